@@ -0,0 +1,82 @@
+#!/usr/bin/env bash
+# Startup time and first-request latency of the backend, for comparing build profiles.
+#
+#   scripts/measure-startup.sh jar     # mvn -DskipTests package           (executable fat jar)
+#   scripts/measure-startup.sh cds     # mvn -Pcds -DskipTests package     (AOT + AppCDS)
+#   scripts/measure-startup.sh native  # mvn -Pnative -DskipTests native:compile
+#
+# Each run starts the application, polls /api/tod/health until it answers 200 (time to
+# ready), then times the first and second POST /api/tod/estimate. RUNS (default 5) runs
+# are made; per-run numbers and medians are printed. PORT defaults to 18080.
+set -euo pipefail
+
+mode="${1:-jar}"
+runs="${RUNS:-5}"
+port="${PORT:-18080}"
+cd "$(dirname "$0")/.."
+
+jar="target/tod-backend-0.0.1-SNAPSHOT.jar"
+case "$mode" in
+  jar)
+    [[ -f target/tod-backend-0.0.1-SNAPSHOT-exec.jar ]] && jar="target/tod-backend-0.0.1-SNAPSHOT-exec.jar"
+    command=(java -jar "$jar") ;;
+  cds)
+    command=(java -XX:SharedArchiveFile=target/application.jsa -Xlog:cds=off -Xlog:cds+dynamic=off
+             -Dspring.aot.enabled=true -jar "$jar") ;;
+  native)
+    command=(target/tod-backend) ;;
+  *)
+    echo "usage: $0 jar|cds|native" >&2
+    exit 2 ;;
+esac
+
+body='{"ambientTempC":20.0,"bodyTempC":32.0,"timeSinceFirstReadingHours":0.0,"k":0.1947}'
+store="$(mktemp -d)"
+trap 'rm -rf "$store"' EXIT
+
+millis() { date +%s%3N; }
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'; }
+
+ready_all=()
+first_all=()
+second_all=()
+for ((run = 1; run <= runs; run++)); do
+  start=$(millis)
+  "${command[@]}" --server.port="$port" --tod.store.directory="$store/run$run" \
+      --logging.level.com.forensics.todbackend=WARN --logging.level.org.springframework.web=WARN \
+      > "$store/run$run.log" 2>&1 &
+  pid=$!
+
+  until curl -sf -o /dev/null "http://localhost:$port/api/tod/health"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "application exited during startup; log:" >&2
+      cat "$store/run$run.log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  ready=$(( $(millis) - start ))
+
+  request() {
+    curl -s -o /dev/null -w '%{time_total}' -H 'Content-Type: application/json' \
+        -d "$body" "http://localhost:$port/api/tod/estimate" | awk '{ printf "%.1f", $1 * 1000 }'
+  }
+  first=$(request)
+  second=$(request)
+  rss=$(awk '/VmRSS/ { printf "%d", $2 / 1024 }' "/proc/$pid/status" 2> /dev/null || echo "?")
+
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+
+  printf '%-6s run %d: ready %5d ms  first request %7s ms  second request %6s ms  RSS %s MB\n' \
+      "$mode" "$run" "$ready" "$first" "$second" "$rss"
+  ready_all+=("$ready")
+  first_all+=("$first")
+  second_all+=("$second")
+done
+
+printf '%-6s median: ready %5s ms  first request %7s ms  second request %6s ms\n' "$mode" \
+    "$(printf '%s\n' "${ready_all[@]}" | median)" \
+    "$(printf '%s\n' "${first_all[@]}" | median)" \
+    "$(printf '%s\n' "${second_all[@]}" | median)"
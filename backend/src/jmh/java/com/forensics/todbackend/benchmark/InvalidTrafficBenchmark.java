@@ -0,0 +1,103 @@
+package com.forensics.todbackend.benchmark;
+
+import com.forensics.todbackend.dto.ErrorResponse;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.exception.ValidationException;
+import com.forensics.todbackend.service.Result;
+import com.forensics.todbackend.service.TodService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intake mix where every other request is physically invalid (body below ambient).
+ *
+ * {@code stackfulThrowingPath} is the pre-result-type handling: throw an exception that
+ * captures its stack trace, catch it, and build the old map body with a fresh
+ * {@code LocalDateTime.now()}. {@code throwingPath} does the same with today's stackless
+ * {@link ValidationException}, which isolates the cost of the trace. {@code resultPath} is
+ * what {@code /estimate} does now.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InvalidTrafficBenchmark {
+
+    private static final int MIX = 1024;
+
+    private TodService todService;
+    private TodEstimateRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setup() {
+        todService = new TodService();
+        requests = new TodEstimateRequest[MIX];
+        for (int i = 0; i < MIX; i++) {
+            TodEstimateRequest request = new TodEstimateRequest();
+            request.setAmbientTempC(20.0);
+            request.setBodyTempC(i % 2 == 0 ? 32.0 - (i % 7) * 0.5 : 15.0 - (i % 5));
+            request.setTimeSinceFirstReadingHours(0.0);
+            request.setK(0.1947);
+            requests[i] = request;
+        }
+    }
+
+    @Benchmark
+    public Object stackfulThrowingPath() {
+        TodEstimateRequest request = requests[next++ & (MIX - 1)];
+        try {
+            return processOrThrowStackful(request);
+        } catch (StackfulValidationException e) {
+            return errorBody(e);
+        }
+    }
+
+    @Benchmark
+    public Object throwingPath() {
+        TodEstimateRequest request = requests[next++ & (MIX - 1)];
+        try {
+            return todService.processTodEstimate(request);
+        } catch (ValidationException e) {
+            return errorBody(e);
+        }
+    }
+
+    @Benchmark
+    public Object resultPath() {
+        TodEstimateRequest request = requests[next++ & (MIX - 1)];
+        Result<TodEstimateResponse> result = todService.tryProcessTodEstimate(request);
+        return result.isOk() ? result.value() : ErrorResponse.validation(result.error(), result.message());
+    }
+
+    private TodEstimateResponse processOrThrowStackful(TodEstimateRequest request) {
+        Result<TodEstimateResponse> result = todService.tryProcessTodEstimate(request);
+        if (!result.isOk()) {
+            throw new StackfulValidationException(result.message());
+        }
+        return result.value();
+    }
+
+    private static Map<String, Object> errorBody(RuntimeException e) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("timestamp", LocalDateTime.now().toString());
+        errorResponse.put("status", 400);
+        errorResponse.put("error", "Validation Error");
+        errorResponse.put("message", e.getMessage());
+        return errorResponse;
+    }
+
+    /** ValidationException as it was before it stopped capturing stack traces */
+    private static final class StackfulValidationException extends RuntimeException {
+        StackfulValidationException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.forensics.todbackend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.forensics.todbackend.dto.BodyPosture;
+import com.forensics.todbackend.dto.CoolingMedium;
+import com.forensics.todbackend.dto.ExplainLevel;
+import com.forensics.todbackend.dto.SceneBody;
+import com.forensics.todbackend.dto.SceneRequest;
+import com.forensics.todbackend.dto.SceneResponse;
+import com.forensics.todbackend.dto.SecondReading;
+import com.forensics.todbackend.dto.SweepAxis;
+import com.forensics.todbackend.dto.SweepRequest;
+import com.forensics.todbackend.dto.SweepResponse;
+import com.forensics.todbackend.dto.TimedReading;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.service.AmbientProfile;
+import com.forensics.todbackend.service.CalibrationTable;
+import com.forensics.todbackend.service.CoolingCurve;
+import com.forensics.todbackend.service.CoolingKernel;
+import com.forensics.todbackend.service.HenssgeModel;
+import com.forensics.todbackend.service.SceneService;
+import com.forensics.todbackend.service.SweepService;
+import com.forensics.todbackend.service.TodService;
+import com.forensics.todbackend.service.UncertaintySampler;
+import com.forensics.todbackend.service.VaryingAmbientCooling;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the estimate hot path, from the bare math up to JSON serialization.
+ * Run with the gc profiler (the default jmh.args) to see allocation per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TodServiceBenchmark {
+
+    private static final int BULK_ROWS = 4096;
+    private static final int AMBIENT_SAMPLES = 14400;
+    private static final int CURVE_SAMPLES = 100_000;
+
+    private TodService todService;
+    private ObjectMapper objectMapper;
+
+    // Non-final so the JIT cannot fold the scalar benchmarks' inputs into constants
+    private double normalTempC = 37.0;
+    private double ambientTempC = 20.0;
+    private double firstTempC = 34.0;
+    private double secondTempC = 32.0;
+    private double deltaHours = 1.0;
+    private double providedK = 0.1947;
+    private double rectalTempC = 30.0;
+    private double coldAmbientTempC = 15.0;
+    private double bodyMassKg = 70.0;
+    private double correctionFactor = 1.0;
+    private double lookupMassKg = 73.5;
+    private double clothingLayers = 1.3;
+    private CoolingMedium medium = CoolingMedium.AIR;
+    private double windSpeedMs = 2.7;
+    private BodyPosture posture = BodyPosture.FLEXED;
+    private double curveFromHours = 0.0;
+    private double curveToHours = 24.0;
+    private double normalSdC = 0.3;
+    private double ambientSdC = 1.0;
+    private double bodySdC = 0.2;
+    private double kSd = 0.02;
+
+    private ObjectMapper cborMapper;
+
+    private TodEstimateRequest providedKRequest;
+    private TodEstimateRequest twoReadingRequest;
+    private TodEstimateRequest twoReadingCodesRequest;
+    private TodEstimateRequest sceneTimeRequest;
+    private TodEstimateResponse response;
+    private TodEstimateResponse compactResponse;
+
+    private double[] ambient;
+    private double[] body;
+    private double[] normal;
+    private double[] kOut;
+    private double[] hoursOut;
+    private byte[] status;
+
+    private AmbientProfile diurnalAmbient;
+
+    private double[] curveHours;
+    private double[] curveTemps;
+
+    private SweepService sweepService;
+    private SweepRequest sweepRequest;
+
+    private Path calibrationFile;
+    private CalibrationTable calibrationTable;
+
+    private SceneService sceneService;
+    private SceneRequest sceneRequest;
+
+    @Setup
+    public void setup() {
+        todService = new TodService();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+
+        providedKRequest = new TodEstimateRequest();
+        providedKRequest.setAmbientTempC(20.0);
+        providedKRequest.setBodyTempC(32.0);
+        providedKRequest.setTimeSinceFirstReadingHours(0.0);
+        providedKRequest.setK(0.1947);
+
+        twoReadingRequest = new TodEstimateRequest();
+        twoReadingRequest.setAmbientTempC(20.0);
+        twoReadingRequest.setBodyTempC(34.0);
+        twoReadingRequest.setTimeSinceFirstReadingHours(0.0);
+        SecondReading secondReading = new SecondReading();
+        secondReading.setBodyTempC(32.0);
+        secondReading.setDeltaHoursFromFirst(1.0);
+        twoReadingRequest.setSecondReading(secondReading);
+
+        twoReadingCodesRequest = new TodEstimateRequest();
+        twoReadingCodesRequest.setAmbientTempC(20.0);
+        twoReadingCodesRequest.setBodyTempC(34.0);
+        twoReadingCodesRequest.setTimeSinceFirstReadingHours(0.0);
+        twoReadingCodesRequest.setSecondReading(secondReading);
+        twoReadingCodesRequest.setExplain(ExplainLevel.CODES);
+
+        sceneTimeRequest = new TodEstimateRequest();
+        sceneTimeRequest.setAmbientTempC(20.0);
+        sceneTimeRequest.setBodyTempC(32.0);
+        sceneTimeRequest.setTimeSinceFirstReadingHours(1.5);
+        sceneTimeRequest.setSceneDateTime("2024-01-15T20:00:00");
+
+        response = todService.processTodEstimate(twoReadingRequest);
+        compactResponse = response.toBuilder().trace(null).warningCodes(null).steps(null).warnings(null).build();
+
+        ambient = new double[BULK_ROWS];
+        body = new double[BULK_ROWS];
+        normal = new double[BULK_ROWS];
+        kOut = new double[BULK_ROWS];
+        hoursOut = new double[BULK_ROWS];
+        status = new byte[BULK_ROWS];
+        for (int i = 0; i < BULK_ROWS; i++) {
+            ambient[i] = 10.0 + (i % 15);
+            body[i] = 26.0 + (i % 10);
+            normal[i] = 37.0;
+        }
+
+        // Ten days of per-minute ambient samples with a 10°C day/night swing
+        double[] ambientHours = new double[AMBIENT_SAMPLES];
+        double[] ambientTemps = new double[AMBIENT_SAMPLES];
+        for (int i = 0; i < AMBIENT_SAMPLES; i++) {
+            ambientHours[i] = -200.0 + i / 60.0;
+            ambientTemps[i] = 15.0 + 5.0 * Math.sin(2 * Math.PI * (ambientHours[i] + 6.0) / 24.0);
+        }
+        diurnalAmbient = AmbientProfile.of(ambientHours, ambientTemps).orThrow();
+
+        curveHours = new double[CURVE_SAMPLES];
+        curveTemps = new double[CURVE_SAMPLES];
+
+        // 40 ambient x 100 k x 1000 body temperatures = 4M cells
+        sweepService = new SweepService(5_000_000, 0);
+        sweepRequest = new SweepRequest();
+        sweepRequest.setAmbientTempC(axis(0.0, 30.0, 40));
+        sweepRequest.setK(axis(0.05, 0.5, 100));
+        sweepRequest.setBodyTempC(axis(20.0, 37.0, 1000));
+
+        // 12 masses x 6 clothing layers x 2 media x 8 wind speeds x 2 postures
+        double[] mass = {3, 10, 20, 30, 40, 50, 60, 70, 80, 100, 120, 150};
+        double[] clothing = {0, 1, 2, 3, 4, 6};
+        double[] wind = {0, 1, 2, 4, 6, 8, 12, 20};
+        CoolingMedium[] media = CoolingMedium.values();
+        BodyPosture[] postures = BodyPosture.values();
+        double[] k = new double[mass.length * clothing.length * media.length * wind.length * postures.length];
+        for (int i = 0; i < k.length; i++) {
+            k[i] = 0.05 + (i % 97) * 0.003;
+        }
+        try {
+            calibrationFile = Files.createTempFile("k-table", ".bin");
+            CalibrationTable.write(calibrationFile, mass, clothing, media, wind, postures, k);
+            calibrationTable = CalibrationTable.load(calibrationFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // 500 bodies with 200 readings each, 10 minutes apart, around a 14°C ambient
+        sceneService = new SceneService(2_000_000, 0);
+        sceneRequest = new SceneRequest();
+        List<SceneBody> sceneBodies = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int b = 0; b < 500; b++) {
+            double bodyK = 0.08 + 0.22 * random.nextDouble();
+            double hoursDead = 1.0 + 10.0 * random.nextDouble();
+            List<TimedReading> readings = new ArrayList<>();
+            for (int r = 0; r < 200; r++) {
+                TimedReading reading = new TimedReading();
+                reading.setHoursFromFirst(r / 6.0);
+                reading.setBodyTempC(14.0 + 23.0 * Math.exp(-bodyK * (hoursDead + r / 6.0)) + 0.05 * random.nextGaussian());
+                readings.add(reading);
+            }
+            SceneBody sceneBody = new SceneBody();
+            sceneBody.setReadings(readings);
+            sceneBody.setTimeSinceFirstReadingHours(0.5);
+            sceneBodies.add(sceneBody);
+        }
+        sceneRequest.setBodies(sceneBodies);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sweepService.shutdown();
+        sceneService.shutdown();
+        Files.deleteIfExists(calibrationFile);
+    }
+
+    private static SweepAxis axis(double from, double to, int steps) {
+        SweepAxis axis = new SweepAxis();
+        axis.setFrom(from);
+        axis.setTo(to);
+        axis.setSteps(steps);
+        return axis;
+    }
+
+    @Benchmark
+    public double estimateK() {
+        return todService.estimateK(normalTempC, ambientTempC, firstTempC, secondTempC, deltaHours).value();
+    }
+
+    @Benchmark
+    public double estimateTimeSinceDeath() {
+        return todService.estimateTimeSinceDeath(normalTempC, ambientTempC, secondTempC, providedK).value();
+    }
+
+    /** Table-seeded bracketed Newton solve of the double-exponential model. */
+    @Benchmark
+    public double henssgeTimeSinceDeath() {
+        return HenssgeModel.timeSinceDeath(rectalTempC, coldAmbientTempC, bodyMassKg, correctionFactor);
+    }
+
+    /** Same solve bracketed over the full range, for comparison with the tabulated start. */
+    @Benchmark
+    public double henssgeUntabulated() {
+        return HenssgeModel.solveUntabulated(false, HenssgeModel.standardizedTemp(rectalTempC, coldAmbientTempC));
+    }
+
+    /** Joint fit of one ambient temperature to 500 bodies x 200 readings, then each body's estimate. */
+    @Benchmark
+    public SceneResponse sceneEstimate() {
+        return sceneService.estimate(sceneRequest).orThrow();
+    }
+
+    /** Interpolated k from a memory-mapped calibration table; should not allocate. */
+    @Benchmark
+    public double calibrationLookup() {
+        return calibrationTable.k(lookupMassKg, clothingLayers, medium, windSpeedMs, posture);
+    }
+
+    @Benchmark
+    public TodEstimateResponse processProvidedK() {
+        return todService.processTodEstimate(providedKRequest);
+    }
+
+    @Benchmark
+    public TodEstimateResponse processTwoReadings() {
+        return todService.processTodEstimate(twoReadingRequest);
+    }
+
+    /** Same estimate with the trace as codes and operands only, so no step text is formatted. */
+    @Benchmark
+    public TodEstimateResponse processTwoReadingsCodes() {
+        return todService.processTodEstimate(twoReadingCodesRequest);
+    }
+
+    /** Includes sceneDateTime parsing and formatting in calculateTimeOfDeath. */
+    @Benchmark
+    public TodEstimateResponse processWithSceneDateTime() {
+        return todService.processTodEstimate(sceneTimeRequest);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    /** What a machine client gets with {@code compact: true} and {@code Accept: application/cbor}. */
+    @Benchmark
+    public byte[] serializeCompactCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(compactResponse);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_ROWS)
+    public double[] kernelBulkEvaluate() {
+        CoolingKernel.evaluate(ambient, body, normal, null, null, null, null,
+                kOut, hoursOut, status, 0, BULK_ROWS);
+        return hoursOut;
+    }
+
+    /** Backward RK integration with event detection across a 14,400-sample ambient series. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public double varyingAmbientTimeSinceDeath() {
+        return VaryingAmbientCooling.timeSinceDeath(normalTempC, rectalTempC, providedK, diurnalAmbient);
+    }
+
+    /** Two-reading k under the same series: a root find over short forward integrations. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public double varyingAmbientTwoReadingK() {
+        return VaryingAmbientCooling.k(firstTempC, secondTempC, deltaHours, diurnalAmbient);
+    }
+
+    /** Blocked curve sampling: about 2*sqrt(n) exp calls and a vectorizable inner loop. */
+    @Benchmark
+    @OperationsPerInvocation(CURVE_SAMPLES)
+    public double[] curveSample() {
+        CoolingCurve.sample(normalTempC, ambientTempC, providedK, curveFromHours, curveToHours, curveHours, curveTemps);
+        return curveTemps;
+    }
+
+    /** One exp per sample, for comparison with {@link #curveSample}. */
+    @Benchmark
+    @OperationsPerInvocation(CURVE_SAMPLES)
+    public double[] curveSampleDirectExp() {
+        double step = (curveToHours - curveFromHours) / (CURVE_SAMPLES - 1);
+        for (int i = 0; i < CURVE_SAMPLES; i++) {
+            curveHours[i] = curveFromHours + i * step;
+            curveTemps[i] = ambientTempC + (normalTempC - ambientTempC) * Math.exp(-providedK * curveHours[i]);
+        }
+        return curveTemps;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int[] curveDownsample() {
+        return CoolingCurve.downsample(curveHours, curveTemps, 500);
+    }
+
+    /** One million Monte Carlo draws, as used by the default uncertainty mode. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public UncertaintySampler.Draws uncertaintyMillionDraws() {
+        return UncertaintySampler.sample(normalTempC, normalSdC, ambientTempC, ambientSdC, secondTempC,
+                Double.NaN, bodySdC, Double.NaN, providedK, kSd, 0.0, 1_000_000, 42L);
+    }
+
+    /** A 4M-cell sensitivity sweep on the fork/join pool, one logarithm per (ambient, body) pair. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public SweepResponse sweepFourMillionCells() {
+        return sweepService.sweep(sweepRequest).value();
+    }
+}
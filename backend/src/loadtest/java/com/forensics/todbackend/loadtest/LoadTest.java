@@ -0,0 +1,315 @@
+package com.forensics.todbackend.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load generator for {@code /api/tod/estimate}.
+ *
+ * Boots the backend in a separate JVM (or drives {@code target=}), then runs one stage
+ * per configured arrival rate. Requests are sent on a fixed schedule whether or not
+ * earlier ones have completed, and response time is measured from each request's
+ * scheduled send time, so a stalled server shows up in the tail instead of silently
+ * slowing the generator down (coordinated omission). Service time, measured from the
+ * actual send, is recorded alongside for comparison.
+ *
+ * Run with: mvn -Ploadtest -DskipTests verify -Dloadtest.args="rates=500,1000 duration=20s"
+ */
+public final class LoadTest {
+
+    /** Latencies are recorded in microseconds, up to one minute, with three significant digits */
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final ExecutorService callbacks = Executors.newVirtualThreadPerTaskExecutor();
+    private final RequestMix mix;
+    private URI estimateUri;
+
+    private LoadTest(LoadTestConfig config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(callbacks)
+                .build();
+        this.mix = new RequestMix(config.mix(), config.seed());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        new LoadTest(config).run();
+        // The HTTP client's selector thread is not a daemon
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        Files.createDirectories(config.reportDirectory());
+        Process backend = null;
+        URI base = config.target();
+        try {
+            if (base == null) {
+                int port = freePort();
+                backend = boot(port);
+                base = URI.create("http://localhost:" + port);
+                awaitReady(base, backend);
+            }
+            estimateUri = base.resolve("/api/tod/estimate");
+
+            System.out.printf(Locale.ROOT, "Warming up at %.0f req/s for %s%n", config.rates()[0], config.warmup());
+            runStage(config.rates()[0], config.warmup());
+
+            List<StageResult> results = new ArrayList<>();
+            for (double rate : config.rates()) {
+                System.out.printf(Locale.ROOT, "Stage %.0f req/s for %s%n", rate, config.duration());
+                StageResult result = runStage(rate, config.duration());
+                results.add(result);
+                System.out.println("  " + result.summary());
+                if (config.stopOnSaturation() && !result.sustainable(config.sloP99())) {
+                    System.out.println("  Not sustainable; skipping higher rates");
+                    break;
+                }
+            }
+            writeReport(base, results);
+        } finally {
+            if (backend != null) {
+                backend.destroy();
+                if (!backend.waitFor(30, TimeUnit.SECONDS)) {
+                    backend.destroyForcibly();
+                }
+            }
+            callbacks.shutdownNow();
+        }
+    }
+
+    /**
+     * Start the backend with this JVM's classpath. Logging is reduced to INFO, and the case
+     * store, jobs, audit trail and calibration table all live under the report directory, so
+     * the run neither writes into the working tree nor picks up a developer's table. The audit
+     * trail stays on, as in production.
+     */
+    private Process boot(int port) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(config.jvmArgs());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("com.forensics.todbackend.TodBackendApplication");
+        command.add("--server.port=" + port);
+        command.add("--logging.level.com.forensics.todbackend=INFO");
+        command.add("--logging.level.org.springframework.web=INFO");
+        command.add("--tod.store.directory=" + config.reportDirectory().resolve("cases"));
+        command.add("--tod.jobs.directory=" + config.reportDirectory().resolve("jobs"));
+        command.add("--tod.audit.directory=" + config.reportDirectory().resolve("audit"));
+        command.add("--tod.calibration.file=" + config.reportDirectory().resolve("calibration").resolve("k-table.bin"));
+
+        Path log = config.reportDirectory().resolve("backend.log");
+        System.out.println("Booting backend on port " + port + " (log: " + log + ")");
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    private void awaitReady(URI base, Process backend) throws Exception {
+        HttpRequest probe = HttpRequest.newBuilder(base.resolve("/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (System.nanoTime() < deadline) {
+            if (!backend.isAlive()) {
+                throw new IllegalStateException("Backend exited with status " + backend.exitValue()
+                        + "; see " + config.reportDirectory().resolve("backend.log"));
+            }
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Backend did not become ready within 120s");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private StageResult runStage(double rate, Duration duration) throws InterruptedException {
+        StageResult result = new StageResult(rate);
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        SplittableRandom random = new SplittableRandom(config.seed() + (long) rate);
+        double intervalNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            // Absolute schedule: a late send does not push back the ones after it
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                result.rejected.increment();
+                continue;
+            }
+
+            RequestMix.Kind kind = mix.next(random);
+            HttpRequest request = HttpRequest.newBuilder(estimateUri)
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mix.body(kind, random)))
+                    .build();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long done = System.nanoTime();
+                inFlight.release();
+                if (error != null) {
+                    result.errors.increment();
+                } else if (response.statusCode() != kind.expectedStatus) {
+                    result.unexpectedStatus.increment();
+                } else {
+                    result.completed.increment();
+                }
+                result.responseTime.recordValue(Math.min(HIGHEST_MICROS, (done - intended) / 1000));
+                result.serviceTime.recordValue(Math.min(HIGHEST_MICROS, (done - sent) / 1000));
+                result.lastCompletion.accumulate(done);
+            });
+        }
+
+        // Wait for the stragglers, so they land in this stage's histograms
+        if (inFlight.tryAcquire(config.maxInFlight(), 60, TimeUnit.SECONDS)) {
+            inFlight.release(config.maxInFlight());
+        }
+        result.elapsedNanos = Math.max(result.lastCompletion.get(), end) - start;
+        return result;
+    }
+
+    private void writeReport(URI base, List<StageResult> results) throws IOException {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path report = config.reportDirectory().resolve("report-" + stamp + ".txt");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(report))) {
+            out.printf("TOD backend load test, %s%n", LocalDateTime.now().withNano(0));
+            out.printf("Target: %s%s%n", base, config.target() == null ? " (booted)" : "");
+            out.printf(Locale.ROOT, "Mix (default-k, provided-k, two-reading, invalid): %d/%d/%d/%d%n",
+                    config.mix()[0], config.mix()[1], config.mix()[2], config.mix()[3]);
+            out.printf("Stage duration %s, warmup %s, p99 SLO %d ms, max in flight %d%n%n",
+                    config.duration(), config.warmup(), config.sloP99().toMillis(), config.maxInFlight());
+
+            out.println("Response time (from scheduled send), ms:");
+            out.printf("%10s %10s %10s %8s %8s %8s %8s %8s %8s %6s%n", "target/s", "achieved/s", "ok", "errors",
+                    "p50", "p90", "p99", "p99.9", "max", "sus");
+            for (StageResult result : results) {
+                Histogram h = result.responseTime;
+                out.printf(Locale.ROOT, "%10.0f %10.1f %10d %8d %8.2f %8.2f %8.2f %8.2f %8.2f %6s%n",
+                        result.rate, result.throughput(), result.completed.sum(), result.failures(),
+                        millis(h, 50), millis(h, 90), millis(h, 99), millis(h, 99.9),
+                        h.getMaxValue() / 1000.0, result.sustainable(config.sloP99()) ? "yes" : "no");
+            }
+
+            out.println();
+            out.println("Service time (from actual send), ms:");
+            out.printf("%10s %8s %8s %8s %8s%n", "target/s", "p50", "p99", "p99.9", "max");
+            for (StageResult result : results) {
+                Histogram h = result.serviceTime;
+                out.printf(Locale.ROOT, "%10.0f %8.2f %8.2f %8.2f %8.2f%n", result.rate,
+                        millis(h, 50), millis(h, 99), millis(h, 99.9), h.getMaxValue() / 1000.0);
+            }
+
+            double ceiling = results.stream()
+                    .filter(result -> result.sustainable(config.sloP99()))
+                    .mapToDouble(result -> result.rate)
+                    .max().orElse(0);
+            double peak = results.stream().mapToDouble(StageResult::throughput).max().orElse(0);
+            out.println();
+            out.printf(Locale.ROOT, "Throughput ceiling: %.0f req/s sustained within SLO; peak achieved %.1f req/s%n",
+                    ceiling, peak);
+        }
+
+        // Full percentile distributions, loadable in the HdrHistogram plotter
+        for (StageResult result : results) {
+            Path hgrm = config.reportDirectory().resolve(String.format(Locale.ROOT, "report-%s-%.0f.hgrm",
+                    stamp, result.rate));
+            try (PrintStream out = new PrintStream(Files.newOutputStream(hgrm))) {
+                result.responseTime.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.println();
+        System.out.print(Files.readString(report));
+        System.out.println("Report written to " + report);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static final class StageResult {
+        final double rate;
+        final Histogram responseTime = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        final LongAdder completed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder unexpectedStatus = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAccumulator lastCompletion = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        long elapsedNanos;
+
+        StageResult(double rate) {
+            this.rate = rate;
+        }
+
+        long failures() {
+            return errors.sum() + unexpectedStatus.sum() + rejected.sum();
+        }
+
+        double throughput() {
+            return completed.sum() / (elapsedNanos / 1e9);
+        }
+
+        /** Kept up with the schedule, answered everything as expected, and held the p99 SLO */
+        boolean sustainable(Duration sloP99) {
+            return failures() == 0
+                    && throughput() >= 0.95 * rate
+                    && responseTime.getValueAtPercentile(99) <= sloP99.toNanos() / 1000;
+        }
+
+        String summary() {
+            return String.format(Locale.ROOT, "%.1f req/s achieved, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, "
+                            + "%d errors, %d unexpected status, %d rejected",
+                    throughput(), millis(responseTime, 50), millis(responseTime, 99), millis(responseTime, 99.9),
+                    errors.sum(), unexpectedStatus.sum(), rejected.sum());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.forensics.todbackend.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Load test settings, given as {@code key=value} arguments (see {@link #USAGE}).
+ */
+record LoadTestConfig(URI target, double[] rates, Duration duration, Duration warmup, int[] mix,
+                      int maxInFlight, Duration sloP99, boolean stopOnSaturation, List<String> jvmArgs,
+                      long seed, Path reportDirectory) {
+
+    static final String USAGE = """
+            Arguments (key=value, all optional):
+              target=http://host:port   drive a running backend instead of booting one
+              rates=250,500,1000        arrival rates in requests/second, one stage each, in order
+              duration=30s              length of each measured stage
+              warmup=15s                unmeasured run at the first rate before the stages
+              mix=40,30,20,10           weights of default-k, provided-k, two-reading and invalid requests
+              max-in-flight=10000       requests outstanding before further arrivals count as rejected
+              slo-p99=200ms             a stage is sustainable if its p99 response time stays within this
+              stop-on-saturation=true   skip the remaining stages once one is not sustainable
+              jvm-args=-Xmx512m         space-separated JVM options for the booted backend
+              seed=42                   request generator seed
+              report-dir=target/loadtest
+            """;
+
+    static LoadTestConfig parse(String[] args) {
+        URI target = null;
+        double[] rates = {250, 500, 1000, 2000, 4000, 8000};
+        Duration duration = Duration.ofSeconds(30);
+        Duration warmup = Duration.ofSeconds(15);
+        int[] mix = {40, 30, 20, 10};
+        int maxInFlight = 10_000;
+        Duration sloP99 = Duration.ofMillis(200);
+        boolean stopOnSaturation = true;
+        List<String> jvmArgs = new ArrayList<>();
+        long seed = 42;
+        Path reportDirectory = Path.of("target", "loadtest");
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'\n" + USAGE);
+            }
+            String value = arg.substring(equals + 1).trim();
+            switch (arg.substring(0, equals).trim()) {
+                case "target" -> target = URI.create(value.endsWith("/") ? value.substring(0, value.length() - 1) : value);
+                case "rates" -> rates = Arrays.stream(value.split(",")).mapToDouble(Double::parseDouble).toArray();
+                case "duration" -> duration = DurationStyle.detectAndParse(value);
+                case "warmup" -> warmup = DurationStyle.detectAndParse(value);
+                case "mix" -> mix = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                case "max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                case "slo-p99" -> sloP99 = DurationStyle.detectAndParse(value);
+                case "stop-on-saturation" -> stopOnSaturation = Boolean.parseBoolean(value);
+                case "jvm-args" -> jvmArgs = value.isEmpty() ? List.of() : List.of(value.split("\\s+"));
+                case "seed" -> seed = Long.parseLong(value);
+                case "report-dir" -> reportDirectory = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown argument '" + arg + "'\n" + USAGE);
+            }
+        }
+
+        if (rates.length == 0 || Arrays.stream(rates).anyMatch(rate -> !(rate > 0))) {
+            throw new IllegalArgumentException("Rates must be positive");
+        }
+        if (mix.length != 4 || Arrays.stream(mix).anyMatch(weight -> weight < 0) || Arrays.stream(mix).sum() == 0) {
+            throw new IllegalArgumentException("Mix needs four non-negative weights that are not all zero");
+        }
+        return new LoadTestConfig(target, rates, duration, warmup, mix, maxInFlight, sloP99, stopOnSaturation,
+                jvmArgs, seed, reportDirectory);
+    }
+}
@@ -0,0 +1,93 @@
+package com.forensics.todbackend.loadtest;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Pre-built {@code /estimate} request bodies, drawn by weight. Each kind has a pool of
+ * varied bodies so that the result cache sees a realistic mix of hits and misses, and
+ * no JSON is built while the load is running.
+ */
+final class RequestMix {
+
+    enum Kind {
+        DEFAULT_K(200),
+        PROVIDED_K(200),
+        TWO_READING(200),
+        INVALID(400);
+
+        /** The status a correct backend answers with; anything else counts as an error */
+        final int expectedStatus;
+
+        Kind(int expectedStatus) {
+            this.expectedStatus = expectedStatus;
+        }
+    }
+
+    private static final int POOL_SIZE = 512;
+
+    private final String[][] bodies = new String[Kind.values().length][POOL_SIZE];
+    private final int[] cumulativeWeights = new int[Kind.values().length];
+
+    RequestMix(int[] weights, long seed) {
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulativeWeights[i] = total;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            double ambient = round(10.0 + random.nextDouble() * 15.0);
+            double body = round(ambient + 3.0 + random.nextDouble() * (36.5 - ambient - 3.0));
+            double k = round(0.1 + random.nextDouble() * 0.2, 4);
+
+            bodies[Kind.DEFAULT_K.ordinal()][i] = json(
+                    "\"ambientTempC\":%s,\"bodyTempC\":%s,\"timeSinceFirstReadingHours\":0.0", ambient, body);
+            bodies[Kind.PROVIDED_K.ordinal()][i] = json(
+                    "\"ambientTempC\":%s,\"bodyTempC\":%s,\"timeSinceFirstReadingHours\":0.5,\"k\":%s",
+                    ambient, body, k);
+
+            // The second reading follows the model, so k stays in range
+            double deltaHours = round(0.5 + random.nextDouble() * 1.5);
+            double second = round(ambient + (body - ambient) * Math.exp(-k * deltaHours));
+            bodies[Kind.TWO_READING.ordinal()][i] = json(
+                    "\"ambientTempC\":%s,\"bodyTempC\":%s,\"timeSinceFirstReadingHours\":0.0,"
+                            + "\"secondReading\":{\"bodyTempC\":%s,\"deltaHoursFromFirst\":%s}",
+                    ambient, body, second, deltaHours);
+
+            // Half fail bean validation, half pass it and are rejected by the model
+            bodies[Kind.INVALID.ordinal()][i] = i % 2 == 0
+                    ? json("\"ambientTempC\":%s,\"bodyTempC\":%s,\"timeSinceFirstReadingHours\":0.0",
+                            round(60.0 + random.nextDouble() * 20.0), body)
+                    : json("\"ambientTempC\":%s,\"bodyTempC\":%s,\"timeSinceFirstReadingHours\":0.0",
+                            ambient, round(ambient - 1.0 - random.nextDouble() * 5.0));
+        }
+    }
+
+    Kind next(SplittableRandom random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (Kind kind : Kind.values()) {
+            if (draw < cumulativeWeights[kind.ordinal()]) {
+                return kind;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    String body(Kind kind, SplittableRandom random) {
+        return bodies[kind.ordinal()][random.nextInt(POOL_SIZE)];
+    }
+
+    private static String json(String fields, Object... values) {
+        return "{" + String.format(Locale.ROOT, fields, values) + "}";
+    }
+
+    private static double round(double value) {
+        return round(value, 2);
+    }
+
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+}
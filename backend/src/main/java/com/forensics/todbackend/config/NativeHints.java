@@ -0,0 +1,93 @@
+package com.forensics.todbackend.config;
+
+import com.forensics.todbackend.dto.AmbientReading;
+import com.forensics.todbackend.dto.BatchEstimateLine;
+import com.forensics.todbackend.dto.CacheStatsResponse;
+import com.forensics.todbackend.dto.CalibrationResult;
+import com.forensics.todbackend.dto.CaseRecord;
+import com.forensics.todbackend.dto.CaseSummary;
+import com.forensics.todbackend.dto.CurveResult;
+import com.forensics.todbackend.dto.CurveSpec;
+import com.forensics.todbackend.dto.ErrorResponse;
+import com.forensics.todbackend.dto.FitSummary;
+import com.forensics.todbackend.dto.HealthResponse;
+import com.forensics.todbackend.dto.ProbeReading;
+import com.forensics.todbackend.dto.ProbeRevision;
+import com.forensics.todbackend.dto.ProbeSessionRequest;
+import com.forensics.todbackend.dto.SceneBody;
+import com.forensics.todbackend.dto.SceneBodyResult;
+import com.forensics.todbackend.dto.SceneConsistency;
+import com.forensics.todbackend.dto.SceneRequest;
+import com.forensics.todbackend.dto.SceneResponse;
+import com.forensics.todbackend.dto.SecondReading;
+import com.forensics.todbackend.dto.SweepAxis;
+import com.forensics.todbackend.dto.SweepRequest;
+import com.forensics.todbackend.dto.SweepResponse;
+import com.forensics.todbackend.dto.TimedReading;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.dto.TraceStep;
+import com.forensics.todbackend.dto.UncertaintyResult;
+import com.forensics.todbackend.dto.UncertaintySpec;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reflection hints for the AOT and native-image builds.
+ *
+ * Spring infers binding hints only for types that appear literally in controller
+ * signatures. Many DTOs here are reached some other way: behind {@code ResponseEntity<?>},
+ * through the batch and case-store {@code ObjectMapper}, as SSE payloads, or as Lombok
+ * {@code @Jacksonized} builders that Jackson instantiates reflectively. They are all
+ * registered here, so a native image serializes exactly what the JVM build does.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHints.Registrar.class)
+public class NativeHints {
+
+    static final Class<?>[] BINDING_TYPES = {
+            TodEstimateRequest.class, SecondReading.class, TimedReading.class, AmbientReading.class,
+            UncertaintySpec.class, CurveSpec.class,
+            TodEstimateResponse.class, FitSummary.class, UncertaintyResult.class, CurveResult.class,
+            CurveResult.CurveMarker.class, TraceStep.class, CalibrationResult.class,
+            ErrorResponse.class, BatchEstimateLine.class, HealthResponse.class, CacheStatsResponse.class,
+            CaseRecord.class, CaseSummary.class,
+            ProbeSessionRequest.class, ProbeReading.class, ProbeRevision.class,
+            SweepRequest.class, SweepAxis.class, SweepResponse.class,
+            SceneRequest.class, SceneBody.class, SceneResponse.class, SceneBodyResult.class, SceneConsistency.class
+    };
+
+    static final Class<?>[] BUILDER_TYPES = {
+            TodEstimateResponse.TodEstimateResponseBuilder.class,
+            FitSummary.FitSummaryBuilder.class,
+            UncertaintyResult.UncertaintyResultBuilder.class,
+            CurveResult.CurveResultBuilder.class,
+            CurveResult.CurveMarker.CurveMarkerBuilder.class,
+            TraceStep.TraceStepBuilder.class,
+            CalibrationResult.CalibrationResultBuilder.class,
+            CaseRecord.CaseRecordBuilder.class,
+            SceneResponse.SceneResponseBuilder.class,
+            SceneBodyResult.SceneBodyResultBuilder.class,
+            SceneConsistency.SceneConsistencyBuilder.class
+    };
+
+    public static class Registrar implements RuntimeHintsRegistrar {
+
+        private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Also walks field types, so nested DTOs and enums like ErrorCode are covered
+            bindingRegistrar.registerReflectionHints(hints.reflection(), BINDING_TYPES);
+
+            for (Class<?> builder : BUILDER_TYPES) {
+                hints.reflection().registerType(builder,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.forensics.todbackend.controller;
+
+import com.forensics.todbackend.dto.ErrorResponse;
+import com.forensics.todbackend.dto.JobPriority;
+import com.forensics.todbackend.dto.JobStatus;
+import com.forensics.todbackend.service.JobService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Bulk CSV jobs. A client uploads a CSV, polls {@code /jobs/{id}} for progress and downloads
+ * {@code /jobs/{id}/result} once the job has completed. Unknown or expired jobs are answered
+ * with 404.
+ */
+@RestController
+@RequestMapping("/api/tod/jobs")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class JobController {
+
+    @Autowired
+    private JobService jobService;
+
+    /**
+     * Upload a CSV as the raw request body; returns 202 with the queued job. When the queue
+     * is full the upload is rejected with 503 and Retry-After.
+     */
+    @PostMapping(consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<JobStatus> submit(@RequestParam(defaultValue = "NORMAL") JobPriority priority,
+                                            HttpServletRequest request) throws IOException {
+        JobStatus status = jobService.submit(request.getInputStream(), priority);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/tod/jobs/" + status.getJobId())
+                .body(status);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<JobStatus> status(@PathVariable String jobId) {
+        return ResponseEntity.ok(jobService.status(jobId));
+    }
+
+    /**
+     * The result CSV, or 409 while the job is queued, running, failed or cancelled.
+     */
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<?> result(@PathVariable String jobId) {
+        Path result = jobService.result(jobId);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ErrorResponse.of(HttpStatus.CONFLICT.value(),
+                    "Not Ready", "Job " + jobId + " is " + jobService.status(jobId).getState()));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tod-job-" + jobId + ".csv\"")
+                .body(new FileSystemResource(result));
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<JobStatus> cancel(@PathVariable String jobId) {
+        return ResponseEntity.ok(jobService.cancel(jobId));
+    }
+}
@@ -0,0 +1,66 @@
+package com.forensics.todbackend.controller;
+
+import com.forensics.todbackend.dto.ErrorResponse;
+import com.forensics.todbackend.dto.ProbeReading;
+import com.forensics.todbackend.dto.ProbeRevision;
+import com.forensics.todbackend.dto.ProbeSessionRequest;
+import com.forensics.todbackend.service.ProbeSessionService;
+import com.forensics.todbackend.service.Result;
+import com.forensics.todbackend.service.TodMetrics;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Live probe sessions. A probe opens a session, pushes readings to it, and any number of
+ * clients follow the revised estimate at {@code /sessions/{id}/events} (Server-Sent Events).
+ * Unknown or expired sessions are answered with 404.
+ */
+@RestController
+@RequestMapping("/api/tod/sessions")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class ProbeSessionController {
+
+    @Autowired
+    private ProbeSessionService probeSessionService;
+
+    @Autowired
+    private TodMetrics metrics;
+
+    @PostMapping
+    public ResponseEntity<ProbeRevision> open(@Valid @RequestBody ProbeSessionRequest request) {
+        return ResponseEntity.ok(probeSessionService.open(request));
+    }
+
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<ProbeRevision> current(@PathVariable String sessionId) {
+        return ResponseEntity.ok(probeSessionService.current(sessionId));
+    }
+
+    /**
+     * Add a body and/or ambient reading; returns the revised estimate, which is also
+     * pushed to every subscriber. An unusable reading is a 400 and changes nothing.
+     */
+    @PostMapping("/{sessionId}/readings")
+    public ResponseEntity<?> push(@PathVariable String sessionId, @Valid @RequestBody ProbeReading reading) {
+        Result<ProbeRevision> result = probeSessionService.push(sessionId, reading);
+        if (result.isOk()) {
+            return ResponseEntity.ok(result.value());
+        }
+        metrics.validationError(result.error());
+        return ResponseEntity.badRequest().body(ErrorResponse.validation(result.error(), result.message()));
+    }
+
+    @GetMapping("/{sessionId}/events")
+    public SseEmitter events(@PathVariable String sessionId) {
+        return probeSessionService.subscribe(sessionId);
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<Void> close(@PathVariable String sessionId) {
+        probeSessionService.close(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+}
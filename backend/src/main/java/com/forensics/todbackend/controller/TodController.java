@@ -1,31 +1,212 @@
 package com.forensics.todbackend.controller;
 
+import com.forensics.todbackend.dto.CacheStatsResponse;
+import com.forensics.todbackend.dto.CaseRecord;
+import com.forensics.todbackend.dto.CaseSummary;
+import com.forensics.todbackend.dto.ErrorResponse;
+import com.forensics.todbackend.dto.HealthResponse;
+import com.forensics.todbackend.dto.SceneRequest;
+import com.forensics.todbackend.dto.SceneResponse;
+import com.forensics.todbackend.dto.SweepRequest;
+import com.forensics.todbackend.dto.SweepResponse;
 import com.forensics.todbackend.dto.TodEstimateRequest;
 import com.forensics.todbackend.dto.TodEstimateResponse;
-import com.forensics.todbackend.service.TodService;
+import com.forensics.todbackend.service.AsyncEstimateService;
+import com.forensics.todbackend.service.AuditLog;
+import com.forensics.todbackend.service.BatchEstimateService;
+import com.forensics.todbackend.service.CaseStore;
+import com.forensics.todbackend.service.EstimateCache;
+import com.forensics.todbackend.service.Result;
+import com.forensics.todbackend.service.SceneService;
+import com.forensics.todbackend.service.SweepService;
+import com.forensics.todbackend.service.TodMetrics;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/tod")
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
 public class TodController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CBOR = "application/cbor";
+
+    @Autowired
+    private BatchEstimateService batchEstimateService;
+
+    @Autowired
+    private EstimateCache estimateCache;
+
+    @Autowired
+    private AsyncEstimateService asyncEstimateService;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
     @Autowired
-    private TodService todService;
+    private TodMetrics metrics;
+
+    @Autowired
+    private CaseStore caseStore;
+
+    @Autowired
+    private SweepService sweepService;
+
+    @Autowired
+    private SceneService sceneService;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    /**
+     * Physically invalid input is answered with a 400 {@link ErrorResponse} straight from
+     * the estimate result, without throwing. Request and response may each be JSON or CBOR.
+     */
+    @PostMapping(value = "/estimate",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, CBOR},
+            produces = {MediaType.APPLICATION_JSON_VALUE, CBOR})
+    public ResponseEntity<?> estimateTimeOfDeath(
+            @Valid @RequestBody TodEstimateRequest request) {
+
+        long started = System.nanoTime();
+        caseStore.assignCaseId(request);
+        return toResponse(request, estimateCache.tryEstimate(request), started);
+    }
 
-    @PostMapping("/estimate")
-    public ResponseEntity<TodEstimateResponse> estimateTimeOfDeath(
+    /**
+     * Async variant of {@code /estimate}: runs on the bounded estimate executor and
+     * returns 503 with Retry-After when its queue is full.
+     */
+    @PostMapping(value = "/async/estimate",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, CBOR},
+            produces = {MediaType.APPLICATION_JSON_VALUE, CBOR})
+    public CompletableFuture<ResponseEntity<?>> estimateTimeOfDeathAsync(
             @Valid @RequestBody TodEstimateRequest request) {
 
-        TodEstimateResponse response = todService.processTodEstimate(request);
-        return ResponseEntity.ok(response);
+        long started = System.nanoTime();
+        caseStore.assignCaseId(request);
+        return asyncEstimateService.estimate(request).thenApply(result -> toResponse(request, result, started));
+    }
+
+    /**
+     * Batch estimation: accepts a JSON array or NDJSON stream of requests and
+     * streams back one NDJSON line per record, in input order.
+     */
+    @PostMapping(value = "/estimate/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON},
+            produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> estimateBatch(InputStream body) {
+        StreamingResponseBody stream = output -> batchEstimateService.processBatch(body, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(stream);
     }
 
+    /**
+     * Sensitivity sweep: time since death over a grid of ambient temperature, k and body
+     * temperature. Invalid cells are marked in the matrix; only an oversized grid is a 400.
+     */
+    @PostMapping(value = "/sweep",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, CBOR},
+            produces = {MediaType.APPLICATION_JSON_VALUE, CBOR})
+    public ResponseEntity<?> sweep(@Valid @RequestBody SweepRequest request) {
+        Result<SweepResponse> result = sweepService.sweep(request);
+        if (result.isOk()) {
+            return ResponseEntity.ok(result.value());
+        }
+        metrics.validationError(result.error());
+        return ResponseEntity.badRequest().body(ErrorResponse.validation(result.error(), result.message()));
+    }
+
+    /**
+     * Joint estimate for bodies found together: fits one ambient temperature to all of their
+     * readings, then each body's k and time of death. A body that cannot be estimated is
+     * reported in its result; only a scene with no usable fit is a 400.
+     */
+    @PostMapping(value = "/scene",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, CBOR},
+            produces = {MediaType.APPLICATION_JSON_VALUE, CBOR})
+    public ResponseEntity<?> scene(@Valid @RequestBody SceneRequest request) {
+        Result<SceneResponse> result = sceneService.estimate(request);
+        if (result.isOk()) {
+            return ResponseEntity.ok(result.value());
+        }
+        metrics.validationError(result.error());
+        return ResponseEntity.badRequest().body(ErrorResponse.validation(result.error(), result.message()));
+    }
+
+    private ResponseEntity<?> toResponse(TodEstimateRequest request, Result<TodEstimateResponse> result, long started) {
+        if (result.isOk()) {
+            caseStore.record(request, result.value(), null);
+            auditLog.record(AuditLog.Source.ESTIMATE, request, result.value(), null, System.nanoTime() - started);
+            return ResponseEntity.ok(result.value());
+        }
+        metrics.validationError(result.error());
+        ErrorResponse error = ErrorResponse.validation(result.error(), result.message());
+        caseStore.record(request, null, error);
+        auditLog.record(AuditLog.Source.ESTIMATE, request, null, result.error(), System.nanoTime() - started);
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    /**
+     * Every stored estimate for a case, oldest first; 404 if the case has none.
+     */
+    @GetMapping("/cases/{caseId}")
+    public ResponseEntity<?> caseHistory(@PathVariable String caseId) {
+        List<CaseRecord> history = caseStore.history(caseId);
+        if (history.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ErrorResponse.of(404, "Not Found", "No stored estimates for case " + caseId));
+        }
+        return ResponseEntity.ok(history);
+    }
+
+    /**
+     * Cases recorded in [from, to), oldest first. {@code limit} is clamped to 1..1000.
+     */
+    @GetMapping("/cases")
+    public ResponseEntity<List<CaseSummary>> casesBetween(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        return ResponseEntity.ok(caseStore.between(from, to, Math.max(1, Math.min(limit, 1000))));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsResponse> cacheStats() {
+        return ResponseEntity.ok(estimateCache.stats());
+    }
+
+    /**
+     * Liveness and readiness from the application's availability state; 503 until the
+     * service is ready to accept traffic. The same probes are on /actuator/health.
+     */
     @GetMapping("/health")
-    public ResponseEntity<String> health() {
-        return ResponseEntity.ok("TOD Calculator API is running");
+    public ResponseEntity<HealthResponse> health() {
+        LivenessState liveness = availability.getLivenessState();
+        ReadinessState readiness = availability.getReadinessState();
+        boolean up = liveness == LivenessState.CORRECT && readiness == ReadinessState.ACCEPTING_TRAFFIC;
+
+        HealthResponse response = HealthResponse.builder()
+                .status(up ? "UP" : "DOWN")
+                .liveness(liveness.name())
+                .readiness(readiness.name())
+                .build();
+        return ResponseEntity.status(up ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(response);
     }
 }
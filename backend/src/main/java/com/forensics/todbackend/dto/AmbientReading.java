@@ -0,0 +1,17 @@
+package com.forensics.todbackend.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class AmbientReading {
+    @NotNull(message = "Hours from first reading is required")
+    private Double hoursFromFirst; // Negative for samples before the first body reading
+
+    @NotNull(message = "Ambient temperature for sample is required")
+    @DecimalMin(value = "-30.0", message = "Ambient temperature must be at least -30°C")
+    @DecimalMax(value = "50.0", message = "Ambient temperature must be at most 50°C")
+    private Double tempC;
+}
@@ -0,0 +1,24 @@
+package com.forensics.todbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.forensics.todbackend.exception.ErrorCode;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * One NDJSON line of a batch estimate response.
+ * Exactly one of {@code result} or {@code error} is set.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchEstimateLine {
+    private long index;
+    private TodEstimateResponse result;
+    private String error;
+    private ErrorCode code;
+    private String message;
+    private Map<String, String> fieldErrors;
+}
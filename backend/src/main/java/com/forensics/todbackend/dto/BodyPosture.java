@@ -0,0 +1,11 @@
+package com.forensics.todbackend.dto;
+
+/**
+ * How the body is lying; a calibration table dimension.
+ */
+public enum BodyPosture {
+    /** Lying stretched out, exposing most surface area */
+    EXTENDED,
+    /** Curled up, exposing less surface area */
+    FLEXED
+}
@@ -0,0 +1,15 @@
+package com.forensics.todbackend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CacheStatsResponse {
+    private Boolean enabled;
+    private Long size;
+    private Long hits;
+    private Long misses;
+    private Double hitRate;
+    private Long evictions;
+}
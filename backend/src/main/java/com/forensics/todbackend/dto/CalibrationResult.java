@@ -0,0 +1,25 @@
+package com.forensics.todbackend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * The calibration table cell an estimate's k was interpolated from.
+ *
+ * Each numeric dimension is reported as the {@code [lower, upper]} table values around the
+ * input (equal when the input is on a table value or beyond the table's range).
+ */
+@Data
+@Builder
+@Jacksonized
+public class CalibrationResult {
+    private String tableChecksum; // CRC32C of the table file, in hex
+    private double[] bodyMassKg;
+    private double[] clothingLayers;
+    private CoolingMedium medium;
+    private double[] windSpeedMs;
+    private BodyPosture posture;
+    private Double k;
+    private Boolean clamped; // True if an input was outside the table and the nearest edge was used
+}
@@ -0,0 +1,21 @@
+package com.forensics.todbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * One stored estimate for a case: the request as received and either its response or its error.
+ */
+@Data
+@Builder
+@Jacksonized
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CaseRecord {
+    private String caseId;
+    private String recordedAt; // ISO-8601 instant, assigned when the record is written
+    private TodEstimateRequest request;
+    private TodEstimateResponse response;
+    private ErrorResponse error;
+}
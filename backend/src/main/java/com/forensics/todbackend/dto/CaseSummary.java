@@ -0,0 +1,11 @@
+package com.forensics.todbackend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CaseSummary {
+    private String caseId;
+    private String recordedAt;
+}
@@ -0,0 +1,9 @@
+package com.forensics.todbackend.dto;
+
+/**
+ * What the body is cooling in; a calibration table dimension.
+ */
+public enum CoolingMedium {
+    AIR,
+    WATER
+}
@@ -0,0 +1,11 @@
+package com.forensics.todbackend.dto;
+
+/**
+ * Cooling model used to convert a body temperature into time since death.
+ */
+public enum CoolingModel {
+    /** Single exponential: T(t) = Te + (T0 - Te) * e^(-k*t) */
+    NEWTON,
+    /** Marshall–Hoare double exponential with Henssge's body-mass and corrective-factor constant */
+    HENSSGE
+}
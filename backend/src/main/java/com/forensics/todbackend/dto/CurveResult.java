@@ -0,0 +1,30 @@
+package com.forensics.todbackend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+/**
+ * The fitted cooling curve, downsampled for charting, with the readings marked on it.
+ * {@code hours[i]} and {@code tempC[i]} form one point; hours are since death.
+ */
+@Data
+@Builder
+@Jacksonized
+public class CurveResult {
+    private Integer samples; // Points evaluated before downsampling
+    private double[] hours;
+    private double[] tempC;
+    private List<CurveMarker> readings;
+
+    @Data
+    @Builder
+    @Jacksonized
+    public static class CurveMarker {
+        private Double hours;
+        private Double measuredTempC;
+        private Double curveTempC;
+    }
+}
@@ -0,0 +1,31 @@
+package com.forensics.todbackend.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Window and resolution for sampling the fitted cooling curve. Times are hours since death.
+ */
+@Data
+public class CurveSpec {
+    @NotNull(message = "Curve start cannot be null; leave it out for 0")
+    @DecimalMin(value = "0.0", message = "Curve start must be zero or positive")
+    private Double fromHours = 0.0;
+
+    @DecimalMax(value = "240.0", message = "Curve end must be at most 240 hours")
+    private Double toHours; // Two hours past the last reading when absent
+
+    @NotNull(message = "Curve samples cannot be null; leave it out for 10000")
+    @Min(value = 2, message = "At least 2 curve samples are required")
+    @Max(value = 1000000, message = "At most 1000000 curve samples are allowed")
+    private Integer samples = 10000;
+
+    @NotNull(message = "Curve points cannot be null; leave it out for 500")
+    @Min(value = 3, message = "At least 3 curve points are required")
+    @Max(value = 10000, message = "At most 10000 curve points are allowed")
+    private Integer maxPoints = 500; // Samples are downsampled to this many points
+}
@@ -0,0 +1,49 @@
+package com.forensics.todbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.forensics.todbackend.exception.ErrorCode;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Error body for every API failure. Same fields as the earlier map-based body, plus a
+ * machine-readable {@code code} for validation errors.
+ *
+ * The timestamp has one-second resolution and is formatted once per second, so
+ * rejecting a burst of invalid requests does not read the clock zone or re-format a
+ * date for each one.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ErrorResponse(String timestamp, int status, String error, ErrorCode code,
+                            String message, Map<String, String> fieldErrors) {
+
+    private static volatile Stamp lastStamp = new Stamp(Long.MIN_VALUE, null);
+
+    public static ErrorResponse of(int status, String error, String message) {
+        return new ErrorResponse(currentTimestamp(), status, error, null, message, null);
+    }
+
+    /** 400 body for input that passed bean validation but is physically invalid */
+    public static ErrorResponse validation(ErrorCode code, String message) {
+        return new ErrorResponse(currentTimestamp(), 400, "Validation Error", code, message, null);
+    }
+
+    public static ErrorResponse of(int status, String error, String message, Map<String, String> fieldErrors) {
+        return new ErrorResponse(currentTimestamp(), status, error, null, message, fieldErrors);
+    }
+
+    private static String currentTimestamp() {
+        long second = System.currentTimeMillis() / 1000;
+        Stamp stamp = lastStamp;
+        if (stamp.second() != second) {
+            stamp = new Stamp(second, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toString());
+            lastStamp = stamp;
+        }
+        return stamp.text();
+    }
+
+    private record Stamp(long second, String text) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.forensics.todbackend.dto;
+
+/**
+ * How much of the calculation an estimate response explains.
+ */
+public enum ExplainLevel {
+    /** Results only */
+    NONE,
+    /** Step codes with their numeric operands, and warning codes */
+    CODES,
+    /** Codes plus the rendered {@code steps} and {@code warnings} text */
+    FULL
+}
@@ -0,0 +1,20 @@
+package com.forensics.todbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+@Data
+@Builder
+@Jacksonized
+public class FitSummary {
+    private Integer readingsUsed;
+    private Double k;
+    @JsonProperty("kStandardError")
+    private Double kStandardError; // Null with only two readings
+    private Double rmsResidualC;
+    private List<Double> residualsC; // Observed minus fitted temperature, in reading order
+}
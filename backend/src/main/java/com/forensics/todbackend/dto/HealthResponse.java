@@ -0,0 +1,12 @@
+package com.forensics.todbackend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class HealthResponse {
+    private String status;
+    private String liveness;
+    private String readiness;
+}
@@ -0,0 +1,11 @@
+package com.forensics.todbackend.dto;
+
+/**
+ * Scheduling priority of a bulk job. Queued jobs start in priority order, then in
+ * submission order; a running job is never preempted.
+ */
+public enum JobPriority {
+    HIGH,
+    NORMAL,
+    LOW
+}
@@ -0,0 +1,12 @@
+package com.forensics.todbackend.dto;
+
+/**
+ * Lifecycle of a bulk job. COMPLETED, FAILED and CANCELLED are final.
+ */
+public enum JobState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
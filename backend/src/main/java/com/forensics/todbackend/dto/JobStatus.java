@@ -0,0 +1,25 @@
+package com.forensics.todbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Progress snapshot of a bulk CSV job. {@code progress} is the fraction of the uploaded
+ * file read so far; {@code rowsFailed} counts rows written with an error instead of an estimate.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobStatus {
+    private String jobId;
+    private JobState state;
+    private JobPriority priority;
+    private Long rowsProcessed;
+    private Long rowsFailed;
+    private Double progress;
+    private String submittedAt;
+    private String startedAt;
+    private String finishedAt;
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.forensics.todbackend.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import lombok.Data;
+
+/**
+ * One probe sample: a body temperature, an ambient temperature, or both.
+ */
+@Data
+public class ProbeReading {
+    private String takenAt; // ISO-8601 local date-time; time of receipt when absent
+
+    @DecimalMin(value = "0.0", message = "Body temperature must be at least 0°C")
+    @DecimalMax(value = "45.0", message = "Body temperature must be at most 45°C")
+    private Double bodyTempC;
+
+    @DecimalMin(value = "-30.0", message = "Ambient temperature must be at least -30°C")
+    @DecimalMax(value = "50.0", message = "Ambient temperature must be at most 50°C")
+    private Double ambientTempC;
+}
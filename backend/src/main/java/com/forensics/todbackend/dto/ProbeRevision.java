@@ -0,0 +1,34 @@
+package com.forensics.todbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.forensics.todbackend.exception.ErrorCode;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The estimate of a probe session after its latest reading. Until an estimate is possible,
+ * {@code code} and {@code message} say why and the estimate fields are absent.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProbeRevision {
+    private String sessionId;
+    private Long revision;
+    private Integer bodyReadings;
+    private Double ambientTempC; // Mean of the ambient readings so far
+    @JsonProperty("kSource")
+    private String kSource;
+    private Double k;
+    @JsonProperty("kStandardError")
+    private Double kStandardError;
+    private Double timeSinceDeathHours; // At the latest body reading
+    private String estimatedTimeOfDeath;
+    private String lastReadingAt;
+    private List<String> warnings;
+    private ErrorCode code;
+    private String message;
+}
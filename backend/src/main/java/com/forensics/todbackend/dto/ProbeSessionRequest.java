@@ -0,0 +1,26 @@
+package com.forensics.todbackend.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Opens a live probe session. Readings are then pushed one at a time.
+ */
+@Data
+public class ProbeSessionRequest {
+    @NotNull(message = "Ambient temperature is required")
+    @DecimalMin(value = "-30.0", message = "Ambient temperature must be at least -30°C")
+    @DecimalMax(value = "50.0", message = "Ambient temperature must be at most 50°C")
+    private Double ambientTempC;
+
+    @NotNull(message = "Normal body temperature cannot be null; leave it out for 37°C")
+    @DecimalMin(value = "35.0", message = "Normal body temperature must be at least 35°C")
+    @DecimalMax(value = "42.0", message = "Normal body temperature must be at most 42°C")
+    private Double normalBodyTempC = 37.0;
+
+    @DecimalMin(value = "0.001", message = "Cooling constant k must be positive")
+    @DecimalMax(value = "5.0", message = "Cooling constant k must be reasonable (≤5.0)")
+    private Double k; // Used until two body readings let k be fitted; default k otherwise
+}
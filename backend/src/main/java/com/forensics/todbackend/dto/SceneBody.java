@@ -0,0 +1,36 @@
+package com.forensics.todbackend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One body of a {@link SceneRequest} with all of its readings.
+ */
+@Data
+public class SceneBody {
+    @Size(max = 128, message = "Body ID must be at most 128 characters")
+    @Pattern(regexp = "[A-Za-z0-9._:-]+", message = "Body ID may only contain letters, digits, '.', '_', ':' and '-'")
+    private String bodyId; // Defaults to the body's index in the scene
+
+    @NotNull(message = "Readings are required")
+    @Size(min = 2, message = "Each body needs at least two readings")
+    @Valid
+    private List<@NotNull TimedReading> readings; // hoursFromFirst counts from this body's first reading
+
+    @NotNull(message = "Time since first reading is required")
+    @PositiveOrZero(message = "Time since first reading must be zero or positive")
+    private Double timeSinceFirstReadingHours;
+
+    @NotNull(message = "Normal body temperature cannot be null; leave it out for 37°C")
+    @DecimalMin(value = "35.0", message = "Normal body temperature must be at least 35°C")
+    @DecimalMax(value = "42.0", message = "Normal body temperature must be at most 42°C")
+    private Double normalBodyTempC = 37.0;
+}
@@ -0,0 +1,27 @@
+package com.forensics.todbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.forensics.todbackend.exception.ErrorCode;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * One body's estimate at the scene's fitted ambient temperature, or why it has none.
+ */
+@Data
+@Builder
+@Jacksonized
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SceneBodyResult {
+    private String bodyId;
+    private Double k;
+    private Double kStandardError; // Only with three or more readings
+    private Double timeSinceDeathHours;
+    private String estimatedTimeOfDeath;
+    private Integer readings;
+    private Double rmsResidualC; // Root mean square of the weighted reading residuals
+    private Double kRobustZ; // Distance of k from the scene's median k, in robust standard deviations
+    private ErrorCode error;
+    private String message;
+}
@@ -0,0 +1,28 @@
+package com.forensics.todbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+/**
+ * How well the bodies of a scene agree with one shared ambient temperature.
+ *
+ * A body's k is an outlier when its robust z-score against the median k exceeds 3.5; its
+ * fit is an outlier when its residuals are over three times the scene's pooled residual.
+ */
+@Data
+@Builder
+@Jacksonized
+public class SceneConsistency {
+    private Boolean consistent; // True if no body is an outlier
+    private Double rmsResidualC; // Pooled over every reading of every estimated body
+    private Double kMedian;
+    private Double kSpread; // Scaled median absolute deviation of k
+    private List<String> kOutliers;
+    private List<String> residualOutliers;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double ambientOffsetC; // Fitted minus measured ambient temperature
+}
@@ -0,0 +1,33 @@
+package com.forensics.todbackend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Bodies found together that have cooled in the same, constant ambient temperature.
+ * The ambient temperature is fitted from all of their readings at once.
+ */
+@Data
+public class SceneRequest {
+    @NotEmpty(message = "A scene needs at least one body")
+    @Size(max = 10000, message = "A scene has at most 10000 bodies")
+    @Valid
+    private List<@NotNull SceneBody> bodies;
+
+    @DecimalMin(value = "-30.0", message = "Ambient temperature must be at least -30°C")
+    @DecimalMax(value = "50.0", message = "Ambient temperature must be at most 50°C")
+    private Double ambientTempC; // Optional thermometer reading; joins the fit as one more observation
+
+    @Positive(message = "Ambient weight must be positive")
+    private Double ambientWeight = 1.0; // Weight of ambientTempC relative to one body reading
+
+    private String sceneDateTime; // ISO-8601 format
+}
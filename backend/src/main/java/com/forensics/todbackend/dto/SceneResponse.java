@@ -0,0 +1,20 @@
+package com.forensics.todbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+@Data
+@Builder
+@Jacksonized
+public class SceneResponse {
+    private Double ambientTempC; // Fitted shared ambient temperature
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double ambientStandardErrorC; // Omitted when there are no spare observations
+    private Integer estimatedBodies;
+    private List<SceneBodyResult> results; // In request order
+    private SceneConsistency consistency;
+}
@@ -0,0 +1,95 @@
+package com.forensics.todbackend.dto;
+
+import java.util.function.Function;
+
+/**
+ * Stable, machine-readable step of an estimate's calculation. Operands are listed in
+ * the order they appear in {@link TraceStep#getOperands()}; {@link #text} renders the
+ * step the way the {@code steps} list has always shown it.
+ */
+public enum StepCode {
+    /** No operands */
+    NEWTON_LAW(v -> "Newton's Law of Cooling: T(t) = Te + (T0 - Te) * e^(-k*t)"),
+    /** T0, Te */
+    NEWTON_WHERE(v -> "Where: T0 = " + v[0] + "°C (normal body temp), Te = " + v[1] + "°C (ambient temp)"),
+    /** Number of readings */
+    FIT_READINGS(v -> "Using " + (int) v[0] + " readings to fit k by least squares:"),
+    /** No operands */
+    FIT_MODEL(v -> "ln((T(t) - Te)/(T0 - Te)) = ln(R1) - k*t, fitted over all readings"),
+    /** k */
+    FIT_K(v -> "k = " + String.format("%.4f", v[0]) + " h⁻¹"),
+    /** k, standard error of k */
+    FIT_K_WITH_ERROR(v -> "k = " + String.format("%.4f", v[0]) + " h⁻¹ ± "
+            + String.format("%.4f", v[1]) + " (standard error)"),
+    /** No operands */
+    TWO_READINGS(v -> "Using two readings to estimate k:"),
+    /** T1, T2, hours between them */
+    TWO_READINGS_VALUES(v -> "T1 = " + v[0] + "°C at t1, T2 = " + v[1] + "°C at t2 (Δt = " + v[2] + " hours)"),
+    /** R1 */
+    RATIO_R1(v -> "R1 = (T1 - Te)/(T0 - Te) = " + String.format("%.4f", v[0])),
+    /** R2 */
+    RATIO_R2(v -> "R2 = (T2 - Te)/(T0 - Te) = " + String.format("%.4f", v[0])),
+    /** k */
+    K_FROM_TWO_READINGS(v -> "k = -(1/Δt) * ln(R2/R1) = " + String.format("%.4f", v[0]) + " h⁻¹"),
+    /** k */
+    K_PROVIDED(v -> "Using provided cooling constant k = " + v[0] + " h⁻¹"),
+    /** k, body mass, clothing layers, medium ordinal, wind speed, posture ordinal */
+    K_CALIBRATED(v -> "Using calibrated cooling constant k = " + String.format("%.4f", v[0]) + " h⁻¹ for "
+            + v[1] + " kg, " + v[2] + " clothing layers, " + CoolingMedium.values()[(int) v[3]] + ", wind "
+            + v[4] + " m/s, " + BodyPosture.values()[(int) v[5]]),
+    /** k */
+    K_DEFAULT(v -> "Using default cooling constant k = " + v[0] + " h⁻¹"),
+    /** No operands */
+    TIME_HEADER(v -> "Time since death calculation:"),
+    /** No operands */
+    TIME_FIT_FORMULA(v -> "t = -ln(R1_fitted)/k + time_to_first_reading"),
+    /** Fitted ln(R1), k, hours since the first reading */
+    TIME_FIT_VALUES(v -> "t = -(" + String.format("%.4f", v[0]) + ")/" + String.format("%.4f", v[1]) + " + " + v[2]),
+    /** No operands */
+    TIME_FORMULA(v -> "t = -(1/k) * ln((T1 - Te)/(T0 - Te)) + time_to_first_reading"),
+    /** k, T1, Te, T0, hours since the first reading */
+    TIME_VALUES(v -> "t = -(1/" + String.format("%.4f", v[0]) + ") * ln((" + v[1] + " - " + v[2] + ")/("
+            + v[3] + " - " + v[2] + ")) + " + v[4]),
+    /** Hours since death */
+    TIME_RESULT(v -> "t = " + String.format("%.2f", v[0]) + " hours"),
+    /** Valid draws, draws, lower and upper bound of the 95% interval in hours */
+    UNCERTAINTY(v -> "Monte Carlo uncertainty: " + (int) v[0] + " of " + (int) v[1] + " draws valid, 95% interval "
+            + v[2] + " - " + v[3] + " hours"),
+    /** No operands */
+    HENSSGE_WARM(v -> "Henssge model (Ta > 23.2°C): Q = 1.11 * e^(B*t) - 0.11 * e^(10*B*t)"),
+    /** No operands */
+    HENSSGE_COOL(v -> "Henssge model (Ta ≤ 23.2°C): Q = 1.25 * e^(B*t) - 0.25 * e^(5*B*t)"),
+    /** Tr, Ta */
+    HENSSGE_WHERE(v -> "Where: Q = (Tr - Ta)/(37.2 - Ta), Tr = " + v[0] + "°C (rectal temp), Ta = " + v[1] + "°C (ambient temp)"),
+    /** Body mass in kg, corrective factor */
+    HENSSGE_B_FORMULA(v -> "B = -1.2815 * (cf * m)^-0.625 + 0.0284 with m = " + v[0] + " kg, cf = " + v[1]),
+    /** B */
+    HENSSGE_B(v -> "B = " + String.format("%.4f", v[0]) + " h⁻¹"),
+    /** Q */
+    HENSSGE_Q(v -> "Q = " + String.format("%.4f", v[0])),
+    /** Hours from death to the first reading, hours since the first reading */
+    HENSSGE_SOLVED(v -> "t solved numerically (bracketed Newton) = " + String.format("%.2f", v[0]) + " hours + " + v[1]),
+    /** No operands */
+    VARYING_LAW(v -> "Newton's Law of Cooling with time-varying ambient: dT/dt = -k * (T(t) - Te(t))"),
+    /** T0, number of ambient samples, hour of the first and last sample */
+    VARYING_WHERE(v -> "Where: T0 = " + v[0] + "°C (normal body temp), Te(t) interpolated linearly from "
+            + (int) v[1] + " ambient samples between " + v[2] + " and " + v[3] + " hours"),
+    /** k */
+    VARYING_K(v -> "k solved so that integrating forward from T1 reaches T2 at Δt: k = " + String.format("%.4f", v[0]) + " h⁻¹"),
+    /** T1 */
+    VARYING_INTEGRATED(v -> "Integrated backward from T1 = " + v[0] + "°C (adaptive Bogacki–Shampine Runge-Kutta) until T(t) = T0"),
+    /** Mean ambient temperature since death */
+    VARYING_MEAN_AMBIENT(v -> "Mean ambient over that interval = " + String.format("%.2f", v[0]) + "°C"),
+    /** Hours from death to the first reading, hours since the first reading */
+    VARYING_SOLVED(v -> "t = " + String.format("%.2f", v[0]) + " hours + " + v[1]);
+
+    private final Function<double[], String> renderer;
+
+    StepCode(Function<double[], String> renderer) {
+        this.renderer = renderer;
+    }
+
+    public String text(double[] operands) {
+        return renderer.apply(operands);
+    }
+}
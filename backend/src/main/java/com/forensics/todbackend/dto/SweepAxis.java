@@ -0,0 +1,27 @@
+package com.forensics.todbackend.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Evenly spaced values from {@code from} to {@code to}, both included. One step gives {@code from} alone.
+ */
+@Data
+public class SweepAxis {
+    @NotNull(message = "Axis start is required")
+    private Double from;
+
+    @NotNull(message = "Axis end is required")
+    private Double to;
+
+    @NotNull(message = "Axis steps cannot be null; leave it out for 1")
+    @Min(value = 1, message = "An axis needs at least 1 step")
+    @Max(value = 10000, message = "An axis has at most 10000 steps")
+    private Integer steps = 1;
+
+    public double value(int index) {
+        return steps == 1 ? from : from + (to - from) * index / (steps - 1);
+    }
+}
@@ -0,0 +1,30 @@
+package com.forensics.todbackend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Grid of Newton estimates over ranges of ambient temperature, k and body temperature.
+ */
+@Data
+public class SweepRequest {
+    @NotNull(message = "Ambient temperature axis is required")
+    @Valid
+    private SweepAxis ambientTempC;
+
+    @NotNull(message = "Cooling constant axis is required")
+    @Valid
+    private SweepAxis k;
+
+    @NotNull(message = "Body temperature axis is required")
+    @Valid
+    private SweepAxis bodyTempC;
+
+    @NotNull(message = "Normal body temperature cannot be null; leave it out for 37°C")
+    @DecimalMin(value = "35.0", message = "Normal body temperature must be at least 35°C")
+    @DecimalMax(value = "42.0", message = "Normal body temperature must be at most 42°C")
+    private Double normalBodyTempC = 37.0;
+}
@@ -0,0 +1,26 @@
+package com.forensics.todbackend.dto;
+
+import com.forensics.todbackend.exception.ErrorCode;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Time since death over a sweep grid.
+ *
+ * {@code hours} is flattened with body temperature varying fastest, then k, then ambient
+ * temperature: the cell for axis indices (a, j, b) is at {@code (a * k.length + j) * bodyTempC.length + b}.
+ * Cells that cannot be estimated hold -1; {@code invalidReasons} counts them by cause.
+ */
+@Data
+@Builder
+public class SweepResponse {
+    private double[] ambientTempC;
+    private double[] k;
+    private double[] bodyTempC;
+    private float[] hours;
+    private Long cells;
+    private Long invalidCells;
+    private Map<ErrorCode, Long> invalidReasons;
+}
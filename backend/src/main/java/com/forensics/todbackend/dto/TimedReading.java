@@ -0,0 +1,23 @@
+package com.forensics.todbackend.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+@Data
+public class TimedReading {
+    @NotNull(message = "Hours from first reading is required")
+    @PositiveOrZero(message = "Hours from first reading must be zero or positive")
+    private Double hoursFromFirst;
+
+    @NotNull(message = "Body temperature for reading is required")
+    @DecimalMin(value = "0.0", message = "Body temperature must be at least 0°C")
+    @DecimalMax(value = "45.0", message = "Body temperature must be at most 45°C")
+    private Double bodyTempC;
+
+    @Positive(message = "Reading weight must be positive")
+    private Double weight; // Optional relative weight in the fit, default 1
+}
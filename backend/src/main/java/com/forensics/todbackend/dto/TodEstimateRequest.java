@@ -4,9 +4,13 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class TodEstimateRequest {
     @NotNull(message = "Ambient temperature is required")
@@ -34,14 +38,93 @@ public class TodEstimateRequest {
     @Valid
     private SecondReading secondReading;
 
+    @Valid
+    private List<@NotNull TimedReading> readings; // Further readings; k is fitted by least squares over all of them
+
+    @Valid
+    @Size(max = 100000, message = "Ambient series must have at most 100000 samples")
+    private List<@NotNull AmbientReading> ambientSeries; // Timed ambient samples; replaces ambientTempC when given
+
     private String sceneDateTime; // ISO-8601 format
 
+    @Size(max = 128, message = "Case ID must be at most 128 characters")
+    @Pattern(regexp = "[A-Za-z0-9._:-]+", message = "Case ID may only contain letters, digits, '.', '_', ':' and '-'")
+    private String caseId; // Groups stored estimates; generated when absent
+
+    private CoolingModel model = CoolingModel.NEWTON;
+
+    @DecimalMin(value = "1.0", message = "Body mass must be at least 1 kg")
+    @DecimalMax(value = "300.0", message = "Body mass must be at most 300 kg")
+    private Double bodyMassKg; // Required for the HENSSGE model; selects a calibrated k for NEWTON when a table is loaded
+
+    @NotNull(message = "Corrective factor cannot be null; leave it out for 1.0")
+    @DecimalMin(value = "0.3", message = "Corrective factor must be at least 0.3")
+    @DecimalMax(value = "3.0", message = "Corrective factor must be at most 3.0")
+    private Double correctionFactor = 1.0; // Henssge clothing/covering factor, 1.0 = naked in still air
+
+    @NotNull(message = "Clothing layers cannot be null; leave it out for 0")
+    @DecimalMin(value = "0.0", message = "Clothing layers must be zero or positive")
+    @DecimalMax(value = "10.0", message = "Clothing layers must be at most 10")
+    private Double clothingLayers = 0.0; // Calibration table lookup, with medium, windSpeedMs and posture
+
+    @NotNull(message = "Medium cannot be null; leave it out for AIR")
+    private CoolingMedium medium = CoolingMedium.AIR;
+
+    @NotNull(message = "Wind speed cannot be null; leave it out for 0 m/s")
+    @DecimalMin(value = "0.0", message = "Wind speed must be zero or positive")
+    @DecimalMax(value = "50.0", message = "Wind speed must be at most 50 m/s")
+    private Double windSpeedMs = 0.0;
+
+    @NotNull(message = "Posture cannot be null; leave it out for EXTENDED")
+    private BodyPosture posture = BodyPosture.EXTENDED;
+
+    @Valid
+    private UncertaintySpec uncertainty; // Optional Monte Carlo uncertainty analysis
+
+    @Valid
+    private CurveSpec curve; // Optional sampled cooling curve for charting
+
+    private ExplainLevel explain; // How much of the calculation to explain; FULL when absent
+
+    private Boolean compact = false; // Older spelling of explain NONE, used when explain is absent
+
     // Custom validation logic
     public boolean hasSecondReading() {
         return secondReading != null;
     }
 
+    public boolean usesHenssgeModel() {
+        return model == CoolingModel.HENSSGE;
+    }
+
+    public boolean hasReadings() {
+        return readings != null && !readings.isEmpty();
+    }
+
     public boolean hasProvidedK() {
         return k != null;
     }
+
+    public boolean hasBodyMass() {
+        return bodyMassKg != null;
+    }
+
+    public boolean hasAmbientSeries() {
+        return ambientSeries != null && !ambientSeries.isEmpty();
+    }
+
+    public boolean hasUncertainty() {
+        return uncertainty != null;
+    }
+
+    public boolean hasCurve() {
+        return curve != null;
+    }
+
+    public ExplainLevel explainLevel() {
+        if (explain != null) {
+            return explain;
+        }
+        return Boolean.TRUE.equals(compact) ? ExplainLevel.NONE : ExplainLevel.FULL;
+    }
 }
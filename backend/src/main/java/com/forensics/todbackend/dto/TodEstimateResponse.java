@@ -1,16 +1,34 @@
 package com.forensics.todbackend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
 import lombok.Builder;
 
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
+@Jacksonized
 public class TodEstimateResponse {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String caseId;
+    private CoolingModel model;
     private Double k;
     private Double timeSinceDeathHours;
     private String estimatedTimeOfDeath;
-    private List<String> steps;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<TraceStep> trace; // Omitted at explain level NONE
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<WarningCode> warningCodes;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> steps; // Rendered text of trace, only at explain level FULL
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<String> warnings;
+    private UncertaintyResult uncertainty;
+    private FitSummary fit;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private CalibrationResult calibration; // Only when k came from a calibration table
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private CurveResult curve;
 }
@@ -0,0 +1,17 @@
+package com.forensics.todbackend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * One step of an estimate's calculation: what was done and the numbers it was done with.
+ * The meaning of each operand, in order, is listed on its {@link StepCode}.
+ */
+@Data
+@Builder
+@Jacksonized
+public class TraceStep {
+    private StepCode code;
+    private double[] operands;
+}
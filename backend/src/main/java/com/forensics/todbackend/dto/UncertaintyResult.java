@@ -0,0 +1,22 @@
+package com.forensics.todbackend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.Map;
+
+@Data
+@Builder(toBuilder = true)
+@Jacksonized
+public class UncertaintyResult {
+    private Integer samples;
+    private Integer validSamples;
+    private Long seed;
+    private Map<String, Double> hoursPercentiles;
+    private Double hoursLower95;
+    private Double hoursUpper95;
+    private String timeOfDeathEarliest95;
+    private String timeOfDeathMedian;
+    private String timeOfDeathLatest95;
+}
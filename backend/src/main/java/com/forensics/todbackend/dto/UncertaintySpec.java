@@ -0,0 +1,43 @@
+package com.forensics.todbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Measurement error (one standard deviation) for a Monte Carlo uncertainty estimate.
+ */
+@Data
+public class UncertaintySpec {
+    @NotNull(message = "Ambient temperature error cannot be null; leave it out for 0°C")
+    @DecimalMin(value = "0.0", message = "Ambient temperature error must be zero or positive")
+    @DecimalMax(value = "10.0", message = "Ambient temperature error must be at most 10°C")
+    private Double ambientSdC = 0.0;
+
+    @NotNull(message = "Body temperature error cannot be null; leave it out for 0°C")
+    @DecimalMin(value = "0.0", message = "Body temperature error must be zero or positive")
+    @DecimalMax(value = "5.0", message = "Body temperature error must be at most 5°C")
+    private Double bodySdC = 0.0;
+
+    @NotNull(message = "Normal body temperature error cannot be null; leave it out for 0°C")
+    @DecimalMin(value = "0.0", message = "Normal body temperature error must be zero or positive")
+    @DecimalMax(value = "3.0", message = "Normal body temperature error must be at most 3°C")
+    private Double normalBodySdC = 0.0;
+
+    @NotNull(message = "Cooling constant error cannot be null; leave it out for 0")
+    @DecimalMin(value = "0.0", message = "Cooling constant error must be zero or positive")
+    @DecimalMax(value = "1.0", message = "Cooling constant error must be at most 1.0")
+    @JsonProperty("kSd")
+    private Double kSd = 0.0;
+
+    @NotNull(message = "Samples cannot be null; leave it out for 1000000")
+    @Min(value = 1000, message = "At least 1000 samples are required")
+    @Max(value = 5000000, message = "At most 5000000 samples are allowed")
+    private Integer samples = 1000000;
+
+    private Long seed; // Random if absent; the seed used is returned in the result
+}
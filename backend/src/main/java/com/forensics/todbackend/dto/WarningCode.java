@@ -0,0 +1,35 @@
+package com.forensics.todbackend.dto;
+
+/**
+ * Stable, machine-readable caveat attached to an estimate, with its English text.
+ */
+public enum WarningCode {
+    K_FIT_CONSTANT_AMBIENT("K fit assumes constant ambient temperature across all readings"),
+    K_TWO_READINGS_CONSTANT_AMBIENT("K estimation assumes constant ambient temperature between readings"),
+    PROVIDED_K("Using provided k value - ensure it's appropriate for conditions"),
+    CALIBRATION_CLAMPED("Body or conditions lie outside the calibration table - the nearest table values were used"),
+    DEFAULT_K("Using default k value - results may be inaccurate without proper k estimation"),
+    HENSSGE_IGNORES_K("Henssge model derives its constant from body mass - provided k and extra readings are ignored"),
+    BODY_NEAR_AMBIENT("Body temperature very close to ambient - high uncertainty in estimate"),
+    AMBIENT_SERIES_PARTIAL("Ambient series does not cover the whole interval since death - ambient held constant beyond its ends"),
+    LONG_INTERVAL("Estimate is for >24 hours - Newton's cooling becomes less accurate"),
+    NON_STANDARD_NORMAL_TEMP("Non-standard normal body temperature used - verify accuracy"),
+    HENSSGE_LIMITS_STANDARD("Henssge nomogram 95% limits are roughly ±2.8 hours under standard conditions"),
+    HENSSGE_LIMITS_CORRECTED("Henssge nomogram 95% limits widen to roughly ±4.5 hours when a corrective factor is applied"),
+    NEWTON_ASSUMPTIONS("Assumptions: constant ambient temperature, no clothing/covering effects, standard body mass"),
+    CALIBRATED_ASSUMPTIONS("Assumptions: constant ambient temperature, k interpolated from the calibration table for this body and its conditions"),
+    HENSSGE_ASSUMPTIONS("Assumptions: rectal temperature 37.2°C at death, constant ambient temperature"),
+    VARYING_AMBIENT_ASSUMPTIONS("Assumptions: ambient varies linearly between samples, no clothing/covering effects, standard body mass"),
+    NOT_FOR_LEGAL_USE("This is an estimation tool - not suitable for legal determinations without expert validation"),
+    UNCERTAINTY_INVALID_DRAWS("More than 5% of uncertainty draws were physically invalid - interval may be biased");
+
+    private final String text;
+
+    WarningCode(String text) {
+        this.text = text;
+    }
+
+    public String text() {
+        return text;
+    }
+}
@@ -0,0 +1,35 @@
+package com.forensics.todbackend.exception;
+
+import com.forensics.todbackend.service.CoolingKernel;
+
+/**
+ * Stable, machine-readable cause of a rejected estimate.
+ */
+public enum ErrorCode {
+    TEMPS_TOO_CLOSE,
+    INVALID_READINGS,
+    READINGS_NOT_DECREASING,
+    K_OUT_OF_RANGE,
+    BODY_NEAR_AMBIENT,
+    RATIO_OUT_OF_RANGE,
+    NEGATIVE_TIME,
+    INSUFFICIENT_READINGS,
+    BODY_MASS_REQUIRED,
+    UNSUPPORTED_OPTION,
+    NO_VALID_DRAWS,
+    NO_SOLUTION,
+    INVALID_INPUT;
+
+    public static ErrorCode fromKernelStatus(byte status) {
+        return switch (status) {
+            case CoolingKernel.TEMPS_TOO_CLOSE -> TEMPS_TOO_CLOSE;
+            case CoolingKernel.INVALID_READINGS -> INVALID_READINGS;
+            case CoolingKernel.READINGS_NOT_DECREASING -> READINGS_NOT_DECREASING;
+            case CoolingKernel.K_OUT_OF_RANGE -> K_OUT_OF_RANGE;
+            case CoolingKernel.BODY_NEAR_AMBIENT -> BODY_NEAR_AMBIENT;
+            case CoolingKernel.RATIO_OUT_OF_RANGE -> RATIO_OUT_OF_RANGE;
+            case CoolingKernel.NEGATIVE_TIME -> NEGATIVE_TIME;
+            default -> INVALID_INPUT;
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.forensics.todbackend.exception;
+
+/**
+ * Thrown for a bulk job that was never submitted or whose files have expired.
+ */
+public class JobNotFoundException extends RuntimeException {
+    public JobNotFoundException(String jobId) {
+        super("No bulk job " + jobId);
+    }
+}
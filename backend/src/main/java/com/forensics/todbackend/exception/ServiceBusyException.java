@@ -0,0 +1,14 @@
+package com.forensics.todbackend.exception;
+
+/**
+ * Thrown when the bounded async executor cannot accept more work.
+ */
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+
+    public ServiceBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,10 @@
+package com.forensics.todbackend.exception;
+
+/**
+ * Thrown for a probe session that was never opened, was closed, or expired.
+ */
+public class SessionNotFoundException extends RuntimeException {
+    public SessionNotFoundException(String sessionId) {
+        super("No open probe session " + sessionId);
+    }
+}
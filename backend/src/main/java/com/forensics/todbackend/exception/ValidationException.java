@@ -1,11 +1,27 @@
 package com.forensics.todbackend.exception;
 
+/**
+ * Rejected input. Carries no stack trace: the code and message say everything needed,
+ * and capturing a trace per invalid request is the dominant cost on invalid-heavy traffic.
+ */
 public class ValidationException extends RuntimeException {
+    private final ErrorCode code;
+
     public ValidationException(String message) {
-        super(message);
+        this(ErrorCode.INVALID_INPUT, message);
+    }
+
+    public ValidationException(ErrorCode code, String message) {
+        super(message, null, false, false);
+        this.code = code;
     }
 
     public ValidationException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
+        this.code = ErrorCode.INVALID_INPUT;
+    }
+
+    public ErrorCode getCode() {
+        return code;
     }
 }
@@ -0,0 +1,138 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.exception.ErrorCode;
+
+import java.util.Arrays;
+
+/**
+ * Ambient temperature as a function of hours from the first body reading.
+ *
+ * Samples are joined linearly and held flat beyond both ends. Segment lookups take a
+ * hint, so an integrator walking through time finds each segment in amortized O(1)
+ * instead of binary-searching on every evaluation.
+ */
+public final class AmbientProfile {
+
+    private final double[] hours;
+    private final double[] temps;
+
+    private AmbientProfile(double[] hours, double[] temps) {
+        this.hours = hours;
+        this.temps = temps;
+    }
+
+    /**
+     * Build a profile from samples in any order; times must be distinct.
+     */
+    public static Result<AmbientProfile> of(double[] hours, double[] temps) {
+        int n = hours.length;
+        if (n == 0 || temps.length != n) {
+            return Result.failure(ErrorCode.INVALID_INPUT, "Ambient series must contain at least one sample");
+        }
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(hours[a], hours[b]));
+
+        double[] sortedHours = new double[n];
+        double[] sortedTemps = new double[n];
+        for (int i = 0; i < n; i++) {
+            sortedHours[i] = hours[order[i]];
+            sortedTemps[i] = temps[order[i]];
+            if (i > 0 && !(sortedHours[i] > sortedHours[i - 1])) {
+                return Result.failure(ErrorCode.INVALID_INPUT, "Ambient series has more than one sample at "
+                        + sortedHours[i] + " hours");
+            }
+        }
+        return Result.ok(new AmbientProfile(sortedHours, sortedTemps));
+    }
+
+    public static AmbientProfile constant(double tempC) {
+        return new AmbientProfile(new double[]{0.0}, new double[]{tempC});
+    }
+
+    public int size() {
+        return hours.length;
+    }
+
+    public double firstHour() {
+        return hours[0];
+    }
+
+    public double lastHour() {
+        return hours[hours.length - 1];
+    }
+
+    /** Ambient temperature at {@code t}, by binary search. */
+    public double at(double t) {
+        int i = Arrays.binarySearch(hours, t);
+        return valueIn(i >= 0 ? i : -i - 2, t);
+    }
+
+    /** Time-weighted mean ambient over [from, to] (either order). */
+    public double mean(double from, double to) {
+        double lo = Math.min(from, to);
+        double hi = Math.max(from, to);
+        if (hi - lo == 0) {
+            return at(lo);
+        }
+
+        double integral = 0;
+        double t = lo;
+        int segment = segment(lo, 1, -1);
+        while (t < hi) {
+            double end = Math.min(hi, knotAfter(segment, 1));
+            integral += 0.5 * (valueIn(segment, t) + valueIn(segment, end)) * (end - t);
+            t = end;
+            segment = segment(t, 1, segment);
+        }
+        return integral / (hi - lo);
+    }
+
+    /**
+     * Index of the segment just past {@code t} in {@code direction} (+1 forward, -1 backward):
+     * -1 before the first sample, {@code size() - 1} after the last. Walks from {@code hint}.
+     */
+    int segment(double t, int direction, int hint) {
+        int n = hours.length;
+        int i = Math.max(-1, Math.min(hint, n - 1));
+        if (direction > 0) {
+            while (i + 1 < n && hours[i + 1] <= t) {
+                i++;
+            }
+            while (i >= 0 && hours[i] > t) {
+                i--;
+            }
+        } else {
+            while (i >= 0 && hours[i] >= t) {
+                i--;
+            }
+            while (i + 1 < n && hours[i + 1] < t) {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /** Next sample time beyond segment {@code i} in {@code direction}, or ±infinity. */
+    double knotAfter(int i, int direction) {
+        if (direction > 0) {
+            return i + 1 < hours.length ? hours[i + 1] : Double.POSITIVE_INFINITY;
+        }
+        return i >= 0 ? hours[i] : Double.NEGATIVE_INFINITY;
+    }
+
+    /** Linear interpolation within segment {@code i}, flat outside the samples. */
+    double valueIn(int i, double t) {
+        if (i < 0) {
+            return temps[0];
+        }
+        if (i >= hours.length - 1) {
+            return temps[hours.length - 1];
+        }
+        double fraction = (t - hours[i]) / (hours[i + 1] - hours[i]);
+        return temps[i] + (temps[i + 1] - temps[i]) * fraction;
+    }
+}
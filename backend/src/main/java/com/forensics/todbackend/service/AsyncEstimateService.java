@@ -0,0 +1,96 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor behind the async estimate endpoints.
+ *
+ * At most {@code max-concurrency} estimates run at once and at most {@code queue-capacity}
+ * wait. Anything beyond that is rejected immediately with {@link ServiceBusyException}
+ * instead of queueing without limit. Workers are virtual threads when
+ * {@code spring.threads.virtual.enabled} is set.
+ */
+@Service
+public class AsyncEstimateService implements MeterBinder {
+
+    @Autowired
+    private EstimateCache estimateCache;
+
+    private final ThreadPoolExecutor executor;
+
+    public AsyncEstimateService(@Value("${tod.async.max-concurrency:0}") int maxConcurrency,
+                                @Value("${tod.async.queue-capacity:256}") int queueCapacity,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        int workers = maxConcurrency > 0 ? maxConcurrency : Runtime.getRuntime().availableProcessors() * 2;
+
+        ThreadFactory threadFactory;
+        if (virtualThreads) {
+            threadFactory = Thread.ofVirtual().name("tod-async-", 1).factory();
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "tod-async-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public CompletableFuture<Result<TodEstimateResponse>> estimate(TodEstimateRequest request) {
+        return submit(() -> estimateCache.tryEstimate(request));
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Estimate queue is full - retry later", e);
+        }
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tod.async.queue.depth", this, AsyncEstimateService::queueDepth)
+                .description("Async estimates waiting for a worker")
+                .register(registry);
+        Gauge.builder("tod.async.active", this, AsyncEstimateService::activeCount)
+                .description("Async estimates currently running")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
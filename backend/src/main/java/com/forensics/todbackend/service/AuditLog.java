@@ -0,0 +1,427 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.CoolingModel;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.exception.ErrorCode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Audit trail of every estimate and its outcome, kept off the request path.
+ *
+ * Request threads copy an estimate's inputs and outcome into a pre-allocated slot of a
+ * lock-free {@link RingBuffer}; one writer thread drains the ring in batches and appends one
+ * JSON line per estimate to {@code audit.ndjson}. Before that file would grow past
+ * {@code max-file-size} it is renamed with a UTC timestamp and a new one is started, and only
+ * the newest {@code max-files} rotated files are kept. Written lines are forced to disk when
+ * the ring runs empty, and at least once a second under load.
+ *
+ * When the ring is full, {@code DROP} discards and counts the record so requests never wait;
+ * {@code BLOCK} makes the request wait for space for up to {@code block-timeout} first.
+ */
+@Service
+public class AuditLog implements MeterBinder {
+
+    /** What to do with a record when the ring is full */
+    public enum WhenFull {
+        DROP,
+        BLOCK
+    }
+
+    /** How an audited estimate was requested */
+    public enum Source {
+        /** {@code /estimate} or {@code /async/estimate} */
+        ESTIMATE,
+        /** One record of {@code /estimate/batch} */
+        BATCH
+    }
+
+    static final String ACTIVE_FILE = "audit.ndjson";
+    private static final String ROTATED_PREFIX = "audit-";
+    private static final String SUFFIX = ".ndjson";
+    private static final DateTimeFormatter ROTATED_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS").withZone(ZoneOffset.UTC);
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FORCE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final WhenFull whenFull;
+    private final long blockTimeoutNanos;
+    private final int batchSize;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final RingBuffer<Entry> ring;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile long forcedSequence;
+    private Thread writer;
+
+    // Owned by the writer thread
+    private final StringBuilder batch = new StringBuilder(64 * 1024);
+    private FileChannel channel;
+    private long fileSize;
+    private long lastRotation;
+
+    public AuditLog(@Value("${tod.audit.enabled:true}") boolean enabled,
+                    @Value("${tod.audit.directory:data/audit}") Path directory,
+                    @Value("${tod.audit.buffer-size:8192}") int bufferSize,
+                    @Value("${tod.audit.when-full:DROP}") WhenFull whenFull,
+                    @Value("${tod.audit.block-timeout:1s}") Duration blockTimeout,
+                    @Value("${tod.audit.batch-size:512}") int batchSize,
+                    @Value("${tod.audit.max-file-size:64MB}") DataSize maxFileSize,
+                    @Value("${tod.audit.max-files:20}") int maxFiles) throws IOException {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.whenFull = whenFull;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.batchSize = Math.max(1, batchSize);
+        this.maxFileSize = Math.max(4096, maxFileSize.toBytes());
+        this.maxFiles = Math.max(0, maxFiles);
+        this.ring = new RingBuffer<>(enabled ? bufferSize : 2, Entry::new);
+        if (enabled) {
+            Files.createDirectories(directory);
+            channel = openActive();
+            running = true;
+            writer = new Thread(this::runWriter, "tod-audit-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Queue an estimate's inputs and outcome for the audit trail. Never waits under {@code DROP}.
+     *
+     * @param response the estimate, or null if it was rejected
+     * @param error    why it was rejected, or null if it succeeded
+     * @param nanos    time taken to answer, or -1 if unknown
+     * @return false if auditing is off or the record was dropped
+     */
+    public boolean record(Source source, TodEstimateRequest request, TodEstimateResponse response,
+                          ErrorCode error, long nanos) {
+        if (!running) {
+            return false;
+        }
+        long sequence = claim();
+        if (sequence < 0) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        Entry entry = ring.get(sequence);
+        entry.recordedAt = System.currentTimeMillis();
+        entry.source = source;
+        entry.caseId = request.getCaseId();
+        entry.model = request.getModel();
+        entry.ambientTempC = value(request.getAmbientTempC());
+        entry.bodyTempC = value(request.getBodyTempC());
+        entry.normalBodyTempC = value(request.getNormalBodyTempC());
+        entry.timeSinceFirstReadingHours = value(request.getTimeSinceFirstReadingHours());
+        entry.k = value(request.getK());
+        entry.bodyMassKg = request.usesHenssgeModel() ? value(request.getBodyMassKg()) : Double.NaN;
+        entry.correctionFactor = request.usesHenssgeModel() ? value(request.getCorrectionFactor()) : Double.NaN;
+        entry.readings = (request.hasSecondReading() ? 1 : 0) + (request.hasReadings() ? request.getReadings().size() : 0);
+        entry.ambientSamples = request.hasAmbientSeries() ? request.getAmbientSeries().size() : 0;
+        entry.sceneDateTime = request.getSceneDateTime();
+        entry.error = error;
+        entry.resultK = response != null ? value(response.getK()) : Double.NaN;
+        entry.timeSinceDeathHours = response != null ? value(response.getTimeSinceDeathHours()) : Double.NaN;
+        entry.estimatedTimeOfDeath = response != null ? response.getEstimatedTimeOfDeath() : null;
+        entry.nanos = nanos;
+        ring.publish(sequence);
+        return true;
+    }
+
+    /** Wait until everything recorded so far is written and forced to disk. */
+    public void flush() {
+        if (!running) {
+            return;
+        }
+        long target = ring.claimedCount();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (forcedSequence < target) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Audit log flush timed out");
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    public long writtenCount() {
+        return written.get();
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tod.audit.buffered", ring, RingBuffer::size)
+                .description("Audit records waiting in the ring buffer")
+                .register(registry);
+        FunctionCounter.builder("tod.audit.written", written, AtomicLong::get)
+                .description("Audit records written to file")
+                .register(registry);
+        FunctionCounter.builder("tod.audit.dropped", dropped, AtomicLong::get)
+                .description("Audit records dropped because the ring buffer was full")
+                .register(registry);
+        FunctionCounter.builder("tod.audit.blocked", blocked, AtomicLong::get)
+                .description("Audit records whose request had to wait for ring buffer space")
+                .register(registry);
+        FunctionCounter.builder("tod.audit.failed", failed, AtomicLong::get)
+                .description("Audit records lost to file errors")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        writer = null;
+    }
+
+    private long claim() {
+        long sequence = ring.tryClaim();
+        if (sequence >= 0 || whenFull == WhenFull.DROP) {
+            return sequence;
+        }
+        blocked.incrementAndGet();
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        long pause = 1_000;
+        while ((sequence = ring.tryClaim()) < 0 && System.nanoTime() - deadline < 0 && running) {
+            LockSupport.parkNanos(pause);
+            pause = Math.min(pause * 2, 1_000_000);
+        }
+        return sequence;
+    }
+
+    private void runWriter() {
+        long pause = 0;
+        long writtenSequence = ring.consumedCount();
+        long lastForce = System.nanoTime();
+        while (true) {
+            boolean stopping = !running;
+            int count = ring.drain(this::append, batchSize);
+            if (count > 0) {
+                writeBatch(count);
+                writtenSequence = ring.consumedCount();
+                pause = 0;
+                if (System.nanoTime() - lastForce < FORCE_INTERVAL_NANOS) {
+                    continue;
+                }
+            }
+            if (forcedSequence < writtenSequence) {
+                force();
+                forcedSequence = writtenSequence;
+                lastForce = System.nanoTime();
+            }
+            if (count > 0) {
+                continue;
+            }
+            if (stopping) {
+                break;
+            }
+            pause = pause == 0 ? 50_000 : Math.min(pause * 2, MAX_IDLE_NANOS);
+            LockSupport.parkNanos(this, pause);
+        }
+    }
+
+    private void writeBatch(int count) {
+        byte[] bytes = batch.toString().getBytes(StandardCharsets.UTF_8);
+        batch.setLength(0);
+        if (fileSize > 0 && fileSize + bytes.length > maxFileSize) {
+            try {
+                rotate();
+            } catch (IOException | RuntimeException e) {
+                // Keep appending to the current file; the next batch tries to rotate again
+            }
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                fileSize += channel.write(buffer);
+            }
+            written.addAndGet(count);
+        } catch (IOException | RuntimeException e) {
+            failed.addAndGet(count);
+        }
+    }
+
+    private void force() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            // The lines are written; they reach the disk with the next successful force
+        }
+    }
+
+    private FileChannel openActive() throws IOException {
+        FileChannel opened = FileChannel.open(directory.resolve(ACTIVE_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = opened.size();
+        return opened;
+    }
+
+    /**
+     * Rename the active file and start a new one. The current channel stays open until the new
+     * one is, so a failure anywhere leaves a channel that can still be written.
+     */
+    private void rotate() throws IOException {
+        channel.force(false);
+        // Two rotations in the same millisecond would share a name
+        long now = Math.max(System.currentTimeMillis(), lastRotation + 1);
+        lastRotation = now;
+        Path active = directory.resolve(ACTIVE_FILE);
+        // A rename that succeeded before a failed open has nothing left to move
+        if (Files.exists(active)) {
+            Files.move(active,
+                    directory.resolve(ROTATED_PREFIX + ROTATED_TIME.format(Instant.ofEpochMilli(now)) + SUFFIX));
+        }
+        FileChannel previous = channel;
+        channel = openActive();
+        try {
+            previous.close();
+        } catch (IOException e) {
+            // Everything in it was forced above
+        }
+
+        List<Path> rotated = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, ROTATED_PREFIX + "*" + SUFFIX)) {
+            files.forEach(rotated::add);
+        }
+        rotated.sort(null);
+        for (int i = 0; i < rotated.size() - maxFiles; i++) {
+            Files.deleteIfExists(rotated.get(i));
+        }
+    }
+
+    /** Format one entry as a JSON line onto the current batch; fields without a value are left out. */
+    private void append(Entry entry) {
+        StringBuilder line = batch;
+        line.append("{\"at\":\"").append(Instant.ofEpochMilli(entry.recordedAt)).append('"');
+        line.append(",\"source\":\"").append(entry.source).append('"');
+        string(line, "caseId", entry.caseId);
+        if (entry.model != null) {
+            line.append(",\"model\":\"").append(entry.model).append('"');
+        }
+        number(line, "ambientTempC", entry.ambientTempC);
+        number(line, "bodyTempC", entry.bodyTempC);
+        number(line, "normalBodyTempC", entry.normalBodyTempC);
+        number(line, "timeSinceFirstReadingHours", entry.timeSinceFirstReadingHours);
+        number(line, "k", entry.k);
+        number(line, "bodyMassKg", entry.bodyMassKg);
+        number(line, "correctionFactor", entry.correctionFactor);
+        if (entry.readings > 0) {
+            line.append(",\"extraReadings\":").append(entry.readings);
+        }
+        if (entry.ambientSamples > 0) {
+            line.append(",\"ambientSamples\":").append(entry.ambientSamples);
+        }
+        string(line, "sceneDateTime", entry.sceneDateTime);
+        line.append(",\"outcome\":\"").append(entry.error != null ? entry.error.name() : "OK").append('"');
+        number(line, "resultK", entry.resultK);
+        number(line, "timeSinceDeathHours", entry.timeSinceDeathHours);
+        string(line, "estimatedTimeOfDeath", entry.estimatedTimeOfDeath);
+        if (entry.nanos >= 0) {
+            line.append(",\"micros\":").append(entry.nanos / 1000);
+        }
+        line.append("}\n");
+
+        // Let the slot's strings be collected before it is reused
+        entry.caseId = null;
+        entry.sceneDateTime = null;
+        entry.estimatedTimeOfDeath = null;
+    }
+
+    /** Infinite values, which JSON cannot express, are left out like missing ones. */
+    private static void number(StringBuilder line, String name, double value) {
+        if (Double.isFinite(value)) {
+            line.append(",\"").append(name).append("\":").append(value);
+        }
+    }
+
+    private static void string(StringBuilder line, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        line.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static double value(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    /** One ring slot, overwritten in place by each record that claims it */
+    private static final class Entry {
+        long recordedAt;
+        Source source;
+        String caseId;
+        CoolingModel model;
+        double ambientTempC;
+        double bodyTempC;
+        double normalBodyTempC;
+        double timeSinceFirstReadingHours;
+        double k;
+        double bodyMassKg;
+        double correctionFactor;
+        int readings;
+        int ambientSamples;
+        String sceneDateTime;
+        ErrorCode error;
+        double resultK;
+        double timeSinceDeathHours;
+        String estimatedTimeOfDeath;
+        long nanos;
+    }
+}
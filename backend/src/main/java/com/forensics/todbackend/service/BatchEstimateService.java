@@ -0,0 +1,205 @@
+package com.forensics.todbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.forensics.todbackend.dto.BatchEstimateLine;
+import com.forensics.todbackend.dto.ErrorResponse;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.exception.ErrorCode;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class BatchEstimateService {
+
+    @Autowired
+    private EstimateCache estimateCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired(required = false)
+    private TodMetrics metrics = TodMetrics.NOOP;
+
+    @Autowired(required = false)
+    private CaseStore caseStore;
+
+    @Autowired(required = false)
+    private AuditLog auditLog;
+
+    private final int parallelism;
+    private final int window;
+    private final ExecutorService executor;
+
+    public BatchEstimateService(@Value("${tod.batch.parallelism:0}") int parallelism,
+                                @Value("${tod.batch.window-per-thread:8}") int windowPerThread) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.window = this.parallelism * Math.max(1, windowPerThread);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "tod-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Read a JSON array or NDJSON stream of requests and write one NDJSON line per record, in input order.
+     * At most {@code window} records are in flight at any time, so memory use does not depend on input size.
+     */
+    public void processBatch(InputStream input, OutputStream output) throws IOException {
+        ArrayDeque<Future<BatchEstimateLine>> inFlight = new ArrayDeque<>(window);
+
+        try (MappingIterator<TodEstimateRequest> records =
+                     objectMapper.readerFor(TodEstimateRequest.class).readValues(input);
+             SequenceWriter writer = objectMapper.writer()
+                     .withRootValueSeparator("\n")
+                     .writeValues(output)) {
+
+            long index = 0;
+            while (true) {
+                TodEstimateRequest request;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    request = records.nextValue();
+                } catch (DatabindException e) {
+                    // Well-formed JSON that does not bind; the iterator skips to the next record
+                    inFlight.addLast(CompletableFuture.completedFuture(BatchEstimateLine.builder()
+                            .index(index++)
+                            .error("Malformed Record")
+                            .message(e.getOriginalMessage())
+                            .build()));
+                    drain(inFlight, writer, window);
+                    continue;
+                } catch (JsonProcessingException e) {
+                    // The parser cannot resynchronise after a syntax error, so report it and stop reading
+                    drain(inFlight, writer, 0);
+                    writer.write(BatchEstimateLine.builder()
+                            .index(index)
+                            .error("Malformed Record")
+                            .message(e.getOriginalMessage())
+                            .build());
+                    break;
+                }
+
+                final long recordIndex = index++;
+                inFlight.addLast(executor.submit(() -> evaluate(recordIndex, request)));
+                drain(inFlight, writer, window);
+            }
+
+            drain(inFlight, writer, 0);
+            if (index > 0) {
+                output.write('\n');
+            }
+        }
+    }
+
+    private void drain(ArrayDeque<Future<BatchEstimateLine>> inFlight, SequenceWriter writer, int keep)
+            throws IOException {
+        while (inFlight.size() > keep) {
+            writer.write(await(inFlight.removeFirst()));
+        }
+        writer.flush();
+    }
+
+    private BatchEstimateLine await(Future<BatchEstimateLine> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch estimation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch estimation failed", e.getCause());
+        }
+    }
+
+    private BatchEstimateLine evaluate(long index, TodEstimateRequest request) {
+        if (request == null) {
+            return BatchEstimateLine.builder()
+                    .index(index)
+                    .error("Validation Failed")
+                    .message("Record is null")
+                    .build();
+        }
+
+        Set<ConstraintViolation<TodEstimateRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            Map<String, String> fieldErrors = new LinkedHashMap<>();
+            violations.stream()
+                    .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                    .forEach(v -> fieldErrors.put(v.getPropertyPath().toString(), v.getMessage()));
+            fieldErrors.keySet().forEach(metrics::fieldError);
+            if (auditLog != null) {
+                auditLog.record(AuditLog.Source.BATCH, request, null, ErrorCode.INVALID_INPUT, -1);
+            }
+
+            return BatchEstimateLine.builder()
+                    .index(index)
+                    .error("Validation Failed")
+                    .message("Input validation failed")
+                    .fieldErrors(fieldErrors)
+                    .build();
+        }
+
+        long started = System.nanoTime();
+        if (caseStore != null) {
+            caseStore.assignCaseId(request);
+        }
+        Result<TodEstimateResponse> result = estimateCache.tryEstimate(request);
+        if (caseStore != null) {
+            caseStore.record(request, result.isOk() ? result.value() : null,
+                    result.isOk() ? null : ErrorResponse.validation(result.error(), result.message()));
+        }
+        if (auditLog != null) {
+            auditLog.record(AuditLog.Source.BATCH, request, result.isOk() ? result.value() : null,
+                    result.isOk() ? null : result.error(), System.nanoTime() - started);
+        }
+        if (!result.isOk()) {
+            metrics.validationError(result.error());
+            return BatchEstimateLine.builder()
+                    .index(index)
+                    .error("Validation Error")
+                    .code(result.error())
+                    .message(result.message())
+                    .build();
+        }
+        return BatchEstimateLine.builder()
+                .index(index)
+                .result(result.value())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
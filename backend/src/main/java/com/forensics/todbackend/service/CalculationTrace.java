@@ -0,0 +1,94 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.StepCode;
+import com.forensics.todbackend.dto.TraceStep;
+import com.forensics.todbackend.dto.WarningCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Steps and warnings of one estimate, recorded as codes and numbers while it is computed.
+ *
+ * Recording only appends to flat arrays; entries and text are built on first use and
+ * kept, so a cached estimate renders its text at most once however many requests it serves.
+ * A trace is filled by a single thread and only read once its estimate is returned.
+ */
+public final class CalculationTrace {
+
+    private StepCode[] codes = new StepCode[16];
+    private int[] ends = new int[16];
+    private double[] operands = new double[32];
+    private int size;
+    private int operandCount;
+    private final List<WarningCode> warningCodes = new ArrayList<>(8);
+
+    private volatile List<TraceStep> steps;
+    private volatile List<String> stepText;
+    private volatile List<String> warningText;
+
+    void step(StepCode code, double... values) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        if (operandCount + values.length > operands.length) {
+            operands = Arrays.copyOf(operands, Math.max(operands.length * 2, operandCount + values.length));
+        }
+        System.arraycopy(values, 0, operands, operandCount, values.length);
+        operandCount += values.length;
+        codes[size] = code;
+        ends[size++] = operandCount;
+    }
+
+    void warn(WarningCode code) {
+        warningCodes.add(code);
+    }
+
+    public List<TraceStep> steps() {
+        List<TraceStep> rendered = steps;
+        if (rendered == null) {
+            rendered = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                rendered.add(TraceStep.builder()
+                        .code(codes[i])
+                        .operands(Arrays.copyOfRange(operands, i == 0 ? 0 : ends[i - 1], ends[i]))
+                        .build());
+            }
+            steps = rendered = Collections.unmodifiableList(rendered);
+        }
+        return rendered;
+    }
+
+    public List<WarningCode> warningCodes() {
+        return Collections.unmodifiableList(warningCodes);
+    }
+
+    /** The steps in the English text of the {@code steps} response field */
+    public List<String> stepText() {
+        List<String> rendered = stepText;
+        if (rendered == null) {
+            rendered = new ArrayList<>(size);
+            for (TraceStep step : steps()) {
+                rendered.add(step.getCode().text(step.getOperands()));
+            }
+            stepText = rendered = Collections.unmodifiableList(rendered);
+        }
+        return rendered;
+    }
+
+    /** The warnings in the English text of the {@code warnings} response field */
+    public List<String> warningText() {
+        List<String> rendered = warningText;
+        if (rendered == null) {
+            rendered = new ArrayList<>(warningCodes.size());
+            for (WarningCode code : warningCodes) {
+                rendered.add(code.text());
+            }
+            warningText = rendered = Collections.unmodifiableList(rendered);
+        }
+        return rendered;
+    }
+}
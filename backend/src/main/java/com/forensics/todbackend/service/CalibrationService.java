@@ -0,0 +1,127 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.BodyPosture;
+import com.forensics.todbackend.dto.CoolingMedium;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The current {@link CalibrationTable}, reloaded when its file changes.
+ *
+ * One thread polls the file's modification time, size and identity every
+ * {@code reload-interval}; a changed file is mapped and validated in full before it replaces
+ * the current table with a single reference swap, so estimates never wait for a reload and
+ * each one sees either the old table or the new one. A file that fails to load is counted and
+ * the previous table stays in use. Replace the file by renaming a new one over it; writing
+ * into the mapped file in place can be seen half-written by a running estimate.
+ */
+@Service
+public class CalibrationService implements MeterBinder {
+
+    private final Path file;
+    private final AtomicReference<CalibrationTable> table = new AtomicReference<>();
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final ScheduledExecutorService watcher;
+
+    // Guarded by this service's monitor
+    private String loadedVersion;
+
+    public CalibrationService(@Value("${tod.calibration.file:data/calibration/k-table.bin}") String file,
+                              @Value("${tod.calibration.reload-interval:5s}") Duration reloadInterval) {
+        this.file = file.isBlank() ? null : Path.of(file);
+        if (this.file == null) {
+            this.watcher = null;
+            return;
+        }
+        reloadIfChanged();
+        this.watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tod-calibration-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(100, reloadInterval.toMillis());
+        watcher.scheduleWithFixedDelay(this::reloadIfChanged, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /** The table in use, or null if none has loaded */
+    public CalibrationTable table() {
+        return table.get();
+    }
+
+    /**
+     * Calibrated k for a body and its conditions, or NaN if there is no table or it has no
+     * values for {@code medium} or {@code posture}.
+     */
+    public double k(double bodyMassKg, double clothing, CoolingMedium medium, double windSpeed, BodyPosture posture) {
+        CalibrationTable current = table.get();
+        return current == null ? Double.NaN : current.k(bodyMassKg, clothing, medium, windSpeed, posture);
+    }
+
+    /**
+     * Load the file if it changed since the last load. A missing or invalid file leaves the
+     * current table in place.
+     *
+     * @return true if a new table was loaded
+     */
+    public synchronized boolean reloadIfChanged() {
+        if (file == null) {
+            return false;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            String version = Objects.requireNonNullElse(attributes.fileKey(), "")
+                    + "/" + attributes.lastModifiedTime().toMillis() + "/" + attributes.size();
+            if (version.equals(loadedVersion)) {
+                return false;
+            }
+            loadedVersion = version;
+            table.set(CalibrationTable.load(file));
+            reloads.incrementAndGet();
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tod.calibration.reloads", reloads, AtomicLong::get)
+                .description("Calibration tables loaded")
+                .register(registry);
+        FunctionCounter.builder("tod.calibration.failures", failures, AtomicLong::get)
+                .description("Calibration table files that could not be loaded")
+                .register(registry);
+        Gauge.builder("tod.calibration.cells", table, current -> current.get() == null ? 0 : current.get().cells())
+                .description("Cells in the calibration table in use")
+                .register(registry);
+    }
+}
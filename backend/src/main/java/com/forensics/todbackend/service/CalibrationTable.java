@@ -0,0 +1,291 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.BodyPosture;
+import com.forensics.todbackend.dto.CalibrationResult;
+import com.forensics.todbackend.dto.CoolingMedium;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Empirical cooling constants by body mass, clothing layers, medium, wind speed and posture,
+ * read from a memory-mapped binary file.
+ *
+ * The file is big-endian: the magic {@code TODK}, a version int, then each axis as an int
+ * count followed by its values. Body mass, clothing layers and wind speed are ascending
+ * doubles; medium and posture are one byte per value holding the enum ordinal. The k values
+ * follow as doubles in row-major order with posture varying fastest, then wind, medium,
+ * clothing and body mass. A trailing CRC32C of everything before it guards against torn files.
+ *
+ * Numeric axes are interpolated (multilinear, clamped to the table's range); medium and
+ * posture must match a table value. A lookup reads the mapped k values in place and does not
+ * allocate. A loaded table never changes: to update one, write a new file and rename it over
+ * the old one, which leaves existing mappings of the old file intact.
+ */
+public final class CalibrationTable {
+
+    static final int MAGIC = 0x544F444B; // "TODK"
+    static final int VERSION = 1;
+
+    private final double[] massKg;
+    private final double[] clothingLayers;
+    private final CoolingMedium[] media;
+    private final double[] windSpeedMs;
+    private final BodyPosture[] postures;
+    private final int[] mediumIndex = new int[CoolingMedium.values().length];
+    private final int[] postureIndex = new int[BodyPosture.values().length];
+    private final MappedByteBuffer data;
+    private final int dataOffset;
+    private final long checksum;
+
+    private CalibrationTable(double[] massKg, double[] clothingLayers, CoolingMedium[] media, double[] windSpeedMs,
+                             BodyPosture[] postures, MappedByteBuffer data, int dataOffset, long checksum) {
+        this.massKg = massKg;
+        this.clothingLayers = clothingLayers;
+        this.media = media;
+        this.windSpeedMs = windSpeedMs;
+        this.postures = postures;
+        this.data = data;
+        this.dataOffset = dataOffset;
+        this.checksum = checksum;
+        Arrays.fill(mediumIndex, -1);
+        for (int i = 0; i < media.length; i++) {
+            mediumIndex[media[i].ordinal()] = i;
+        }
+        Arrays.fill(postureIndex, -1);
+        for (int i = 0; i < postures.length; i++) {
+            postureIndex[postures[i].ordinal()] = i;
+        }
+    }
+
+    /**
+     * Map and validate a table file.
+     *
+     * @throws IOException if the file cannot be read or is not a valid table
+     */
+    public static CalibrationTable load(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Calibration table " + file + " is too large");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return parse(buffer);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid calibration table " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static CalibrationTable parse(MappedByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.duplicate();
+        if (in.remaining() < 8 + Long.BYTES) {
+            throw new IllegalArgumentException("too short");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(in.slice(0, in.limit() - Long.BYTES));
+        long checksum = crc.getValue();
+        if (checksum != in.getLong(in.limit() - Long.BYTES)) {
+            throw new IllegalArgumentException("checksum mismatch");
+        }
+
+        if (in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("not a calibration table");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported version " + version);
+        }
+        double[] massKg = numericAxis(in, "body mass");
+        double[] clothingLayers = numericAxis(in, "clothing layers");
+        CoolingMedium[] media = categoricalAxis(in, CoolingMedium.values(), "medium");
+        double[] windSpeedMs = numericAxis(in, "wind speed");
+        BodyPosture[] postures = categoricalAxis(in, BodyPosture.values(), "posture");
+
+        long cells = (long) massKg.length * clothingLayers.length * media.length * windSpeedMs.length * postures.length;
+        if (in.remaining() != cells * Double.BYTES + Long.BYTES) {
+            throw new IllegalArgumentException("expected " + cells + " k values");
+        }
+        int dataOffset = in.position();
+        for (long i = 0; i < cells; i++) {
+            double k = in.getDouble();
+            if (!(k > 0 && k <= CoolingKernel.MAX_K)) {
+                throw new IllegalArgumentException("k value " + k + " out of range");
+            }
+        }
+        return new CalibrationTable(massKg, clothingLayers, media, windSpeedMs, postures, buffer, dataOffset, checksum);
+    }
+
+    private static double[] numericAxis(ByteBuffer in, String name) {
+        int count = in.getInt();
+        if (count < 1 || count > in.remaining() / Double.BYTES) {
+            throw new IllegalArgumentException(name + " axis has " + count + " values");
+        }
+        double[] axis = new double[count];
+        for (int i = 0; i < count; i++) {
+            axis[i] = in.getDouble();
+            if (!Double.isFinite(axis[i]) || (i > 0 && !(axis[i] > axis[i - 1]))) {
+                throw new IllegalArgumentException(name + " axis must be finite and strictly ascending");
+            }
+        }
+        return axis;
+    }
+
+    private static <E extends Enum<E>> E[] categoricalAxis(ByteBuffer in, E[] values, String name) {
+        int count = in.getInt();
+        if (count < 1 || count > values.length) {
+            throw new IllegalArgumentException(name + " axis has " + count + " values");
+        }
+        E[] axis = Arrays.copyOf(values, count);
+        boolean[] seen = new boolean[values.length];
+        for (int i = 0; i < count; i++) {
+            int ordinal = in.get();
+            if (ordinal < 0 || ordinal >= values.length || seen[ordinal]) {
+                throw new IllegalArgumentException(name + " axis has an unknown or repeated value " + ordinal);
+            }
+            seen[ordinal] = true;
+            axis[i] = values[ordinal];
+        }
+        return axis;
+    }
+
+    /**
+     * Write a table file. It is written next to {@code file} and renamed into place, so a
+     * watching {@link CalibrationService} never maps a partial file.
+     *
+     * @param k one value per cell, in the file's row-major order
+     */
+    public static void write(Path file, double[] massKg, double[] clothingLayers, CoolingMedium[] media,
+                             double[] windSpeedMs, BodyPosture[] postures, double[] k) throws IOException {
+        int header = 8 + 4 + massKg.length * Double.BYTES + 4 + clothingLayers.length * Double.BYTES
+                + 4 + media.length + 4 + windSpeedMs.length * Double.BYTES + 4 + postures.length;
+        ByteBuffer out = ByteBuffer.allocate(header + k.length * Double.BYTES + Long.BYTES);
+        out.putInt(MAGIC).putInt(VERSION);
+        out.putInt(massKg.length);
+        for (double value : massKg) {
+            out.putDouble(value);
+        }
+        out.putInt(clothingLayers.length);
+        for (double value : clothingLayers) {
+            out.putDouble(value);
+        }
+        out.putInt(media.length);
+        for (CoolingMedium medium : media) {
+            out.put((byte) medium.ordinal());
+        }
+        out.putInt(windSpeedMs.length);
+        for (double value : windSpeedMs) {
+            out.putDouble(value);
+        }
+        out.putInt(postures.length);
+        for (BodyPosture posture : postures) {
+            out.put((byte) posture.ordinal());
+        }
+        for (double value : k) {
+            out.putDouble(value);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(out.array(), 0, out.position());
+        out.putLong(crc.getValue());
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, out.array());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Interpolated k for a body and its conditions, or NaN if the table has no values for
+     * {@code medium} or {@code posture}. Inputs beyond a numeric axis use its nearest end.
+     */
+    public double k(double bodyMassKg, double clothing, CoolingMedium medium, double windSpeed, BodyPosture posture) {
+        int m = mediumIndex[medium.ordinal()];
+        int p = postureIndex[posture.ordinal()];
+        if (m < 0 || p < 0) {
+            return Double.NaN;
+        }
+        int i = lower(massKg, bodyMassKg);
+        int j = lower(clothingLayers, clothing);
+        int w = lower(windSpeedMs, windSpeed);
+        double fi = fraction(massKg, i, bodyMassKg);
+        double fj = fraction(clothingLayers, j, clothing);
+        double fw = fraction(windSpeedMs, w, windSpeed);
+
+        double k = 0;
+        for (int corner = 0; corner < 8; corner++) {
+            double weight = ((corner & 1) != 0 ? fi : 1 - fi)
+                    * ((corner & 2) != 0 ? fj : 1 - fj)
+                    * ((corner & 4) != 0 ? fw : 1 - fw);
+            // Zero weights also cover the missing upper corner at the end of an axis
+            if (weight != 0) {
+                k += weight * value(i + (corner & 1), j + ((corner >> 1) & 1), m, w + ((corner >> 2) & 1), p);
+            }
+        }
+        return k;
+    }
+
+    /** The cell {@link #k} interpolates in for these inputs; not meant for the hot path. */
+    public CalibrationResult describe(double bodyMassKg, double clothing, CoolingMedium medium, double windSpeed,
+                                      BodyPosture posture) {
+        return CalibrationResult.builder()
+                .tableChecksum(String.format("%08x", checksum))
+                .bodyMassKg(bounds(massKg, bodyMassKg))
+                .clothingLayers(bounds(clothingLayers, clothing))
+                .medium(medium)
+                .windSpeedMs(bounds(windSpeedMs, windSpeed))
+                .posture(posture)
+                .k(k(bodyMassKg, clothing, medium, windSpeed, posture))
+                .clamped(outside(massKg, bodyMassKg) || outside(clothingLayers, clothing) || outside(windSpeedMs, windSpeed))
+                .build();
+    }
+
+    public long checksum() {
+        return checksum;
+    }
+
+    public int cells() {
+        return massKg.length * clothingLayers.length * media.length * windSpeedMs.length * postures.length;
+    }
+
+    private double value(int mass, int clothing, int medium, int wind, int posture) {
+        int index = (((mass * clothingLayers.length + clothing) * media.length + medium) * windSpeedMs.length + wind)
+                * postures.length + posture;
+        return data.getDouble(dataOffset + index * Double.BYTES);
+    }
+
+    /** Index of the last axis value at or below {@code x}, clamped to the axis. */
+    private static int lower(double[] axis, double x) {
+        if (!(x > axis[0])) {
+            return 0;
+        }
+        if (x >= axis[axis.length - 1]) {
+            return axis.length - 1;
+        }
+        int found = Arrays.binarySearch(axis, x);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private static double fraction(double[] axis, int lower, double x) {
+        if (lower == axis.length - 1 || !(x > axis[lower])) {
+            return 0;
+        }
+        return (x - axis[lower]) / (axis[lower + 1] - axis[lower]);
+    }
+
+    private static double[] bounds(double[] axis, double x) {
+        int lower = lower(axis, x);
+        return new double[]{axis[lower], fraction(axis, lower, x) > 0 ? axis[lower + 1] : axis[lower]};
+    }
+
+    private static boolean outside(double[] axis, double x) {
+        return x < axis[0] || x > axis[axis.length - 1];
+    }
+}
@@ -0,0 +1,527 @@
+package com.forensics.todbackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forensics.todbackend.dto.CaseRecord;
+import com.forensics.todbackend.dto.CaseSummary;
+import com.forensics.todbackend.dto.ErrorResponse;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped log of estimate cases with a compact index by case ID and time.
+ *
+ * Log records are {@code [length][crc32c][recordedAt][idLength][caseId][JSON CaseRecord]}.
+ * The index file holds fixed 24-byte entries {@code [caseId hash][recordedAt][log offset]}
+ * in log order, which is also time order. Request threads only offer to a bounded queue
+ * drained by one writer thread; when the queue is full the record is dropped and counted
+ * rather than blocking the request.
+ *
+ * On open, the last indexed record is verified and the log is scanned from there to the
+ * first zero, torn or corrupt record. Unindexed records are re-indexed and anything after
+ * the last good record is discarded. A crash therefore loses at most what was still queued.
+ */
+@Service
+public class CaseStore implements MeterBinder {
+
+    private static final String LOG_FILE = "cases.log";
+    private static final String INDEX_FILE = "cases.idx";
+    private static final int HEADER_BYTES = 8;
+    private static final int FIXED_BODY_BYTES = 10;
+    private static final int INDEX_ENTRY_BYTES = 24;
+    private static final int BATCH_SIZE = 256;
+    private static final Object STOP = new Object();
+
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+    private final long mapSize;
+    private final BlockingQueue<Object> queue;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private FileChannel logChannel;
+    private FileChannel indexChannel;
+    private FileLock lock;
+    private Thread writer;
+
+    // Owned by the writer thread after open()
+    private MappedByteBuffer mapped;
+    private long logEnd;
+    private long lastRecordedAt;
+
+    // In-memory copy of the index; guarded by this
+    private long[] hashes = new long[1024];
+    private long[] times = new long[1024];
+    private long[] offsets = new long[1024];
+    private int entries;
+    private final Map<Long, CaseEntries> entriesByCase = new HashMap<>();
+
+    public CaseStore(@Value("${tod.store.enabled:true}") boolean enabled,
+                     @Value("${tod.store.directory:data/cases}") Path directory,
+                     @Value("${tod.store.map-size:16MB}") DataSize mapSize,
+                     @Value("${tod.store.queue-capacity:4096}") int queueCapacity,
+                     ObjectMapper objectMapper) throws IOException {
+        this.enabled = enabled;
+        this.objectMapper = objectMapper;
+        this.mapSize = Math.max(4096, mapSize.toBytes());
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        if (enabled) {
+            open(directory);
+        }
+    }
+
+    /**
+     * Give the request a case ID if it has none, so it can be returned and re-queried.
+     */
+    public void assignCaseId(TodEstimateRequest request) {
+        if (enabled && request.getCaseId() == null) {
+            request.setCaseId(UUID.randomUUID().toString());
+        }
+    }
+
+    /**
+     * Queue a request with its response or error for writing. Never blocks.
+     *
+     * @return false if the store is disabled, the request has no case ID, or the queue is full
+     */
+    public boolean record(TodEstimateRequest request, TodEstimateResponse response, ErrorResponse error) {
+        if (!enabled || request.getCaseId() == null) {
+            return false;
+        }
+        if (!queue.offer(new Pending(request, response, error))) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /** Every stored estimate for {@code caseId}, oldest first. */
+    public List<CaseRecord> history(String caseId) {
+        if (!enabled) {
+            return List.of();
+        }
+        long[] caseOffsets;
+        synchronized (this) {
+            CaseEntries caseEntries = entriesByCase.get(hash(caseId));
+            if (caseEntries == null) {
+                return List.of();
+            }
+            caseOffsets = new long[caseEntries.size];
+            for (int i = 0; i < caseEntries.size; i++) {
+                caseOffsets[i] = offsets[caseEntries.indices[i]];
+            }
+        }
+
+        List<CaseRecord> history = new ArrayList<>(caseOffsets.length);
+        for (long offset : caseOffsets) {
+            StoredRecord stored = read(offset, true);
+            // Different case IDs can share a hash
+            if (stored.caseId().equals(caseId)) {
+                history.add(readPayload(stored.payload()));
+            }
+        }
+        return history;
+    }
+
+    /** Cases recorded in [from, to), oldest first, at most {@code limit}. */
+    public List<CaseSummary> between(Instant from, Instant to, int limit) {
+        if (!enabled) {
+            return List.of();
+        }
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        long[] rangeOffsets;
+        synchronized (this) {
+            int first = lowerBound(fromMillis);
+            int last = first;
+            while (last < entries && times[last] < toMillis && last - first < limit) {
+                last++;
+            }
+            rangeOffsets = Arrays.copyOfRange(offsets, first, last);
+        }
+
+        List<CaseSummary> cases = new ArrayList<>(rangeOffsets.length);
+        for (long offset : rangeOffsets) {
+            StoredRecord stored = read(offset, false);
+            cases.add(CaseSummary.builder()
+                    .caseId(stored.caseId())
+                    .recordedAt(Instant.ofEpochMilli(stored.recordedAt()).toString())
+                    .build());
+        }
+        return cases;
+    }
+
+    /** Wait until everything queued so far is written and forced to disk. */
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            queue.put(done);
+            done.get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Case store flush failed", e);
+        }
+    }
+
+    public long writtenCount() {
+        return written.get();
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tod.store.queue.depth", queue, BlockingQueue::size)
+                .description("Case records waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("tod.store.written", written, AtomicLong::get)
+                .description("Case records written to the log")
+                .register(registry);
+        FunctionCounter.builder("tod.store.dropped", dropped, AtomicLong::get)
+                .description("Case records dropped because the write queue was full")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled || writer == null) {
+            return;
+        }
+        try {
+            queue.put(STOP);
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.release();
+        logChannel.close();
+        indexChannel.close();
+        writer = null;
+    }
+
+    private void open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        logChannel = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lock = logChannel.tryLock();
+        if (lock == null) {
+            throw new IllegalStateException("Case store " + directory + " is in use by another process");
+        }
+
+        recover();
+
+        writer = new Thread(this::runWriter, "tod-case-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void recover() throws IOException {
+        long logSize = logChannel.size();
+
+        // Keep the prefix of index entries that point at increasing offsets inside the log
+        long indexEntries = indexChannel.size() / INDEX_ENTRY_BYTES;
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        long scanFrom = 0;
+        for (long i = 0; i < indexEntries; i++) {
+            entry.clear();
+            readFully(indexChannel, entry, i * INDEX_ENTRY_BYTES);
+            entry.flip();
+            long entryHash = entry.getLong();
+            long recordedAt = entry.getLong();
+            long offset = entry.getLong();
+            if (offset != scanFrom || offset + HEADER_BYTES > logSize) {
+                break;
+            }
+            int length = recordLength(offset, logSize);
+            if (length < 0) {
+                break;
+            }
+            addEntry(entryHash, recordedAt, offset);
+            scanFrom = offset + HEADER_BYTES + length;
+        }
+
+        // The last indexed record may have been torn; verify it before trusting the tail position
+        while (entries > 0 && !verify(offsets[entries - 1], logSize)) {
+            scanFrom = offsets[entries - 1];
+            entries--;
+        }
+        indexChannel.truncate((long) entries * INDEX_ENTRY_BYTES);
+
+        // Re-index whatever was logged after the last index entry, up to the first bad record
+        long position = scanFrom;
+        List<long[]> recovered = new ArrayList<>();
+        while (position + HEADER_BYTES <= logSize && verify(position, logSize)) {
+            StoredRecord stored = read(position, false);
+            long entryHash = hash(stored.caseId());
+            addEntry(entryHash, stored.recordedAt(), position);
+            recovered.add(new long[]{entryHash, stored.recordedAt(), position});
+            position += HEADER_BYTES + recordLength(position, logSize);
+        }
+        if (!recovered.isEmpty()) {
+            ByteBuffer entriesBuffer = ByteBuffer.allocate(recovered.size() * INDEX_ENTRY_BYTES);
+            for (long[] values : recovered) {
+                entriesBuffer.putLong(values[0]).putLong(values[1]).putLong(values[2]);
+            }
+            entriesBuffer.flip();
+            writeFully(indexChannel, entriesBuffer, indexChannel.size());
+            indexChannel.force(false);
+        }
+
+        // Group the surviving entries by case once, rather than per entry while recovering
+        for (int i = 0; i < entries; i++) {
+            entriesByCase.computeIfAbsent(hashes[i], key -> new CaseEntries()).add(i);
+        }
+
+        // Drop torn records and the zero padding left by the last mapping
+        logEnd = position;
+        logChannel.truncate(logEnd);
+        lastRecordedAt = entries > 0 ? times[entries - 1] : 0;
+    }
+
+    private void runWriter() {
+        List<Object> batch = new ArrayList<>(BATCH_SIZE);
+        ByteBuffer indexBuffer = ByteBuffer.allocate(BATCH_SIZE * INDEX_ENTRY_BYTES);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+
+            indexBuffer.clear();
+            List<CompletableFuture<?>> flushes = new ArrayList<>();
+            try {
+                for (Object item : batch) {
+                    if (item instanceof Pending pending) {
+                        indexBuffer.put(append(pending));
+                    } else if (item instanceof CompletableFuture<?> flush) {
+                        flushes.add(flush);
+                    } else if (item == STOP) {
+                        running = false;
+                    }
+                }
+                if (indexBuffer.position() > 0) {
+                    if (mapped != null) {
+                        mapped.force();
+                    }
+                    indexBuffer.flip();
+                    writeFully(indexChannel, indexBuffer, indexChannel.size());
+                    indexChannel.force(false);
+                }
+                flushes.forEach(flush -> flush.complete(null));
+            } catch (IOException | RuntimeException e) {
+                flushes.forEach(flush -> flush.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+        if (mapped != null) {
+            mapped.force();
+        }
+    }
+
+    /** Write one record to the mapped log and return its index entry. */
+    private ByteBuffer append(Pending pending) throws IOException {
+        long recordedAt = Math.max(System.currentTimeMillis(), lastRecordedAt);
+        lastRecordedAt = recordedAt;
+        String caseId = pending.request().getCaseId();
+        CaseRecord record = CaseRecord.builder()
+                .caseId(caseId)
+                .recordedAt(Instant.ofEpochMilli(recordedAt).toString())
+                .request(pending.request())
+                .response(pending.response())
+                .error(pending.error())
+                .build();
+
+        byte[] id = caseId.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = objectMapper.writeValueAsBytes(record);
+        int bodyLength = FIXED_BODY_BYTES + id.length + payload.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bodyLength);
+        buffer.putInt(bodyLength).putInt(0).putLong(recordedAt).putShort((short) id.length).put(id).put(payload);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_BYTES, bodyLength);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+
+        if (mapped == null || mapped.remaining() < buffer.remaining()) {
+            if (mapped != null) {
+                mapped.force();
+            }
+            mapped = logChannel.map(FileChannel.MapMode.READ_WRITE, logEnd, Math.max(mapSize, buffer.remaining()));
+        }
+        long offset = logEnd;
+        mapped.put(buffer);
+        logEnd += HEADER_BYTES + bodyLength;
+
+        long entryHash = hash(caseId);
+        synchronized (this) {
+            addToIndex(entryHash, recordedAt, offset);
+        }
+        written.incrementAndGet();
+        return ByteBuffer.allocate(INDEX_ENTRY_BYTES).putLong(entryHash).putLong(recordedAt).putLong(offset).flip();
+    }
+
+    private void addToIndex(long entryHash, long recordedAt, long offset) {
+        addEntry(entryHash, recordedAt, offset);
+        entriesByCase.computeIfAbsent(entryHash, key -> new CaseEntries()).add(entries - 1);
+    }
+
+    /** Append to the time-ordered entries only; recovery groups them by case afterwards. */
+    private void addEntry(long entryHash, long recordedAt, long offset) {
+        if (entries == times.length) {
+            hashes = Arrays.copyOf(hashes, entries * 2);
+            times = Arrays.copyOf(times, entries * 2);
+            offsets = Arrays.copyOf(offsets, entries * 2);
+        }
+        hashes[entries] = entryHash;
+        times[entries] = recordedAt;
+        offsets[entries] = offset;
+        entries++;
+    }
+
+    private int lowerBound(long millis) {
+        int lo = 0;
+        int hi = entries;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Body length of the record at {@code offset}, or -1 if it cannot fit in the log. */
+    private int recordLength(long offset, long logSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(logChannel, header, offset);
+        int length = header.flip().getInt();
+        return length >= FIXED_BODY_BYTES && offset + HEADER_BYTES + length <= logSize ? length : -1;
+    }
+
+    private boolean verify(long offset, long logSize) throws IOException {
+        int length = recordLength(offset, logSize);
+        if (length < 0) {
+            return false;
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length);
+        readFully(logChannel, record, offset);
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), HEADER_BYTES, length);
+        return record.getInt(4) == (int) crc.getValue();
+    }
+
+    private StoredRecord read(long offset, boolean withPayload) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + FIXED_BODY_BYTES);
+            readFully(logChannel, header, offset);
+            header.flip();
+            int length = header.getInt();
+            header.getInt();
+            long recordedAt = header.getLong();
+            int idLength = header.getShort();
+
+            ByteBuffer rest = ByteBuffer.allocate(withPayload ? length - FIXED_BODY_BYTES : idLength);
+            readFully(logChannel, rest, offset + HEADER_BYTES + FIXED_BODY_BYTES);
+            byte[] bytes = rest.array();
+            String caseId = new String(bytes, 0, idLength, StandardCharsets.UTF_8);
+            byte[] payload = withPayload ? Arrays.copyOfRange(bytes, idLength, bytes.length) : null;
+            return new StoredRecord(recordedAt, caseId, payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CaseRecord readPayload(byte[] payload) {
+        try {
+            return objectMapper.readValue(payload, CaseRecord.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of case store at " + position);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, start + buffer.position());
+        }
+    }
+
+    /** 64-bit FNV-1a of the case ID's UTF-8 bytes */
+    private static long hash(String caseId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : caseId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private record Pending(TodEstimateRequest request, TodEstimateResponse response, ErrorResponse error) {
+    }
+
+    private record StoredRecord(long recordedAt, String caseId, byte[] payload) {
+    }
+
+    /** Positions of one case's entries in the index, oldest first; grows by doubling. */
+    private static final class CaseEntries {
+        int[] indices = new int[4];
+        int size;
+
+        void add(int index) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            indices[size++] = index;
+        }
+    }
+}
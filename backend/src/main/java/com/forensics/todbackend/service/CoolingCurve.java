@@ -0,0 +1,96 @@
+package com.forensics.todbackend.service;
+
+/**
+ * Samples the Newton cooling curve T(t) = Te + (T0 - Te) * e^(-k*t) and downsamples it for charting.
+ *
+ * Sampling calls {@code Math.exp} only about 2*sqrt(n) times. The decay over an evenly
+ * spaced grid factors into e^(-k*(b*B + j)*h) = e^(-k*b*B*h) * e^(-k*j*h), so one table
+ * of B offsets is scaled per block. The inner loop is then a multiply-add over arrays
+ * with no calls and no loop-carried dependency, which C2 compiles to SIMD code.
+ */
+public final class CoolingCurve {
+
+    private CoolingCurve() {
+    }
+
+    /**
+     * Fill {@code hours} and {@code temps} (same length, at least 2) with evenly spaced
+     * samples of the curve from {@code from} to {@code to} hours since death.
+     */
+    public static void sample(double T0, double Te, double k, double from, double to,
+                              double[] hours, double[] temps) {
+        int n = hours.length;
+        double step = (to - from) / (n - 1);
+        int block = Math.max(1, (int) Math.sqrt(n));
+
+        double[] offsets = new double[block];
+        for (int j = 0; j < block; j++) {
+            offsets[j] = Math.exp(-k * j * step);
+        }
+
+        double amplitude = T0 - Te;
+        for (int start = 0; start < n; start += block) {
+            double scale = amplitude * Math.exp(-k * (from + start * step));
+            int length = Math.min(block, n - start);
+            for (int j = 0; j < length; j++) {
+                temps[start + j] = Te + scale * offsets[j];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            hours[i] = from + i * step;
+        }
+    }
+
+    /**
+     * Indices of at most {@code threshold} points chosen by Largest-Triangle-Three-Buckets,
+     * which keeps the visual shape of the series. The first and last points are always kept.
+     */
+    public static int[] downsample(double[] x, double[] y, int threshold) {
+        int n = x.length;
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] kept = new int[threshold];
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int previous = 0;
+        kept[0] = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third vertex of each candidate triangle
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, n);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            averageX /= nextCount;
+            averageY /= nextCount;
+
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double px = x[previous];
+            double py = y[previous];
+            double largestArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((px - averageX) * (y[i] - py) - (px - x[i]) * (averageY - py));
+                if (area > largestArea) {
+                    largestArea = area;
+                    chosen = i;
+                }
+            }
+            kept[bucket + 1] = chosen;
+            previous = chosen;
+        }
+        kept[threshold - 1] = n - 1;
+        return kept;
+    }
+}
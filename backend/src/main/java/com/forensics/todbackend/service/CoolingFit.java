@@ -0,0 +1,97 @@
+package com.forensics.todbackend.service;
+
+/**
+ * Weighted least-squares fit of k from timed readings against a fixed T0 and Te.
+ *
+ * Newton cooling gives ln((T - Te)/(T0 - Te)) = a - k*t, a straight line in t.
+ * The fit keeps running weighted means and co-moments (West's update), so {@link #add}
+ * updates k and its standard error in constant time without revisiting earlier readings.
+ * With exactly two readings the fitted k equals {@link CoolingKernel#k}.
+ */
+public final class CoolingFit {
+
+    private final double T0;
+    private final double Te;
+
+    private int count;
+    private double sumWeights;
+    private double meanT;
+    private double meanY;
+    private double ctt;
+    private double cty;
+    private double cyy;
+
+    public CoolingFit(double T0, double Te) {
+        this.T0 = T0;
+        this.Te = Te;
+    }
+
+    /**
+     * Add a reading taken {@code hours} after the first one.
+     *
+     * @return false if the reading is on the wrong side of ambient and cannot be fitted
+     */
+    public boolean add(double hours, double bodyTempC, double weight) {
+        double y = logRatio(bodyTempC);
+        if (Double.isNaN(y) || !(weight > 0)) {
+            return false;
+        }
+
+        count++;
+        sumWeights += weight;
+        double dt = hours - meanT;
+        double dy = y - meanY;
+        meanT += weight * dt / sumWeights;
+        meanY += weight * dy / sumWeights;
+        ctt += weight * dt * (hours - meanT);
+        cty += weight * dt * (y - meanY);
+        cyy += weight * dy * (y - meanY);
+        return true;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /** True once two readings at distinct times have been added. */
+    public boolean isDetermined() {
+        return count >= 2 && ctt > 0;
+    }
+
+    public double k() {
+        return -cty / ctt;
+    }
+
+    /** Fitted ln((T - Te)/(T0 - Te)) at the first reading (t = 0). */
+    public double intercept() {
+        return meanY + k() * meanT;
+    }
+
+    /** Standard error of k, or NaN with fewer than three readings. */
+    public double kStandardError() {
+        if (count < 3) {
+            return Double.NaN;
+        }
+        return Math.sqrt(residualSumOfSquares() / (count - 2) / ctt);
+    }
+
+    /** Weighted sum of squared residuals of ln((T - Te)/(T0 - Te)) about the fitted line. */
+    public double residualSumOfSquares() {
+        return Math.max(0.0, cyy - cty * cty / ctt);
+    }
+
+    /** Hours from death to the first reading along the fitted curve. */
+    public double timeSinceDeathAtFirstReading() {
+        return -intercept() / k();
+    }
+
+    /** Temperature predicted by the fitted curve {@code hours} after the first reading. */
+    public double fittedTemp(double hours) {
+        return Te + (T0 - Te) * Math.exp(intercept() - k() * hours);
+    }
+
+    private double logRatio(double bodyTempC) {
+        double ratio = (bodyTempC - Te) / (T0 - Te);
+        return ratio > 0 ? Math.log(ratio) : Double.NaN;
+    }
+}
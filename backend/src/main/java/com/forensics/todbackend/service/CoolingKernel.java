@@ -0,0 +1,145 @@
+package com.forensics.todbackend.service;
+
+/**
+ * Stateless Newton cooling kernel working on primitives only.
+ *
+ * Scalar methods return {@code NaN} when the inputs are rejected; the matching
+ * {@code *Status} method gives the reason. The bulk {@link #evaluate} method works on
+ * column arrays and allocates nothing per row, so large in-process batches can call it
+ * directly without going through the request/response DTOs.
+ */
+public final class CoolingKernel {
+
+    public static final byte OK = 0;
+    public static final byte TEMPS_TOO_CLOSE = 1;
+    public static final byte INVALID_READINGS = 2;
+    public static final byte READINGS_NOT_DECREASING = 3;
+    public static final byte K_OUT_OF_RANGE = 4;
+    public static final byte BODY_NEAR_AMBIENT = 5;
+    public static final byte RATIO_OUT_OF_RANGE = 6;
+    public static final byte NEGATIVE_TIME = 7;
+
+    public static final double DEFAULT_K = 0.1947;
+    public static final double MAX_K = 5.0;
+    public static final double MIN_TEMP_DIFFERENCE = 0.1;
+
+    private CoolingKernel() {
+    }
+
+    /**
+     * k = -(1/Δt) * ln(R2/R1), or NaN if the readings are rejected.
+     */
+    public static double k(double T0, double Te, double T1, double T2, double deltaHours) {
+        double span = T0 - Te;
+        if (Math.abs(span) < MIN_TEMP_DIFFERENCE) {
+            return Double.NaN;
+        }
+
+        double R1 = (T1 - Te) / span;
+        double R2 = (T2 - Te) / span;
+        if (R1 <= 0 || R2 <= 0 || R2 >= R1) {
+            return Double.NaN;
+        }
+
+        double k = -(1.0 / deltaHours) * Math.log(R2 / R1);
+        return k > 0 && k <= MAX_K ? k : Double.NaN;
+    }
+
+    public static byte kStatus(double T0, double Te, double T1, double T2, double deltaHours) {
+        double span = T0 - Te;
+        if (Math.abs(span) < MIN_TEMP_DIFFERENCE) {
+            return TEMPS_TOO_CLOSE;
+        }
+
+        double R1 = (T1 - Te) / span;
+        double R2 = (T2 - Te) / span;
+        if (R1 <= 0 || R2 <= 0) {
+            return INVALID_READINGS;
+        }
+        if (R2 >= R1) {
+            return READINGS_NOT_DECREASING;
+        }
+
+        double k = -(1.0 / deltaHours) * Math.log(R2 / R1);
+        return k > 0 && k <= MAX_K ? OK : K_OUT_OF_RANGE;
+    }
+
+    /**
+     * t = -(1/k) * ln((Tt - Te)/(T0 - Te)), or NaN if the inputs are rejected.
+     */
+    public static double timeSinceDeath(double T0, double Te, double Tt, double k) {
+        double span = T0 - Te;
+        if (Math.abs(span) < MIN_TEMP_DIFFERENCE || Math.abs(Tt - Te) < MIN_TEMP_DIFFERENCE) {
+            return Double.NaN;
+        }
+
+        double ratio = (Tt - Te) / span;
+        if (ratio <= 0 || ratio > 1) {
+            return Double.NaN;
+        }
+
+        double t = -(1.0 / k) * Math.log(ratio);
+        return t < 0 ? Double.NaN : t;
+    }
+
+    public static byte timeSinceDeathStatus(double T0, double Te, double Tt, double k) {
+        double span = T0 - Te;
+        if (Math.abs(span) < MIN_TEMP_DIFFERENCE) {
+            return TEMPS_TOO_CLOSE;
+        }
+        if (Math.abs(Tt - Te) < MIN_TEMP_DIFFERENCE) {
+            return BODY_NEAR_AMBIENT;
+        }
+
+        double ratio = (Tt - Te) / span;
+        if (ratio <= 0 || ratio > 1) {
+            return RATIO_OUT_OF_RANGE;
+        }
+
+        return -(1.0 / k) * Math.log(ratio) < 0 ? NEGATIVE_TIME : OK;
+    }
+
+    /**
+     * Evaluate rows {@code [from, to)} of a columnar batch.
+     *
+     * For each row, k is estimated from the second reading when {@code secondBodyTempC[i]} is not NaN,
+     * otherwise taken from {@code k[i]} when not NaN, otherwise {@link #DEFAULT_K}. The optional columns
+     * ({@code k}, {@code secondBodyTempC}, {@code deltaHours}, {@code offsetHours}) may be {@code null}.
+     * {@code hoursOut} receives the time since death, plus {@code offsetHours[i]} when given. Rejected rows
+     * get NaN outputs and a non-zero status code.
+     */
+    public static void evaluate(double[] ambientTempC, double[] bodyTempC, double[] normalBodyTempC,
+                                double[] k, double[] secondBodyTempC, double[] deltaHours, double[] offsetHours,
+                                double[] kOut, double[] hoursOut, byte[] statusOut, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double T0 = normalBodyTempC[i];
+            double Te = ambientTempC[i];
+            double T1 = bodyTempC[i];
+
+            double rowK;
+            if (secondBodyTempC != null && !Double.isNaN(secondBodyTempC[i])) {
+                rowK = k(T0, Te, T1, secondBodyTempC[i], deltaHours[i]);
+                if (Double.isNaN(rowK)) {
+                    kOut[i] = Double.NaN;
+                    hoursOut[i] = Double.NaN;
+                    statusOut[i] = kStatus(T0, Te, T1, secondBodyTempC[i], deltaHours[i]);
+                    continue;
+                }
+            } else if (k != null && !Double.isNaN(k[i])) {
+                rowK = k[i];
+            } else {
+                rowK = DEFAULT_K;
+            }
+
+            double t = timeSinceDeath(T0, Te, T1, rowK);
+            kOut[i] = rowK;
+            if (Double.isNaN(t)) {
+                hoursOut[i] = Double.NaN;
+                statusOut[i] = timeSinceDeathStatus(T0, Te, T1, rowK);
+            } else {
+                hoursOut[i] = offsetHours != null ? t + offsetHours[i] : t;
+                statusOut[i] = OK;
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.AmbientReading;
+import com.forensics.todbackend.dto.CacheStatsResponse;
+import com.forensics.todbackend.dto.SecondReading;
+import com.forensics.todbackend.dto.TimedReading;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.dto.UncertaintySpec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Bounded result cache in front of {@link TodService#computeEstimate}.
+ *
+ * Requests are keyed on their numeric inputs, snapped to configurable quanta, so requests
+ * that differ only by less than a quantum share one entry. {@code sceneDateTime},
+ * {@code caseId}, {@code explain} and {@code compact} are left out of the key; they are
+ * applied per request when rendering. The checksum of the calibration table in use is part
+ * of the key, so entries made with a replaced table are no longer hit.
+ */
+@Service
+public class EstimateCache implements MeterBinder {
+
+    private static final long ABSENT = Long.MIN_VALUE;
+
+    @Autowired
+    private TodService todService;
+
+    @Autowired(required = false)
+    private CalibrationService calibration;
+
+    private final boolean enabled;
+    private final double temperatureQuantum;
+    private final double hoursQuantum;
+    private final double kQuantum;
+    private final Cache<Key, TodEstimate> cache;
+
+    public EstimateCache(@Value("${tod.cache.enabled:true}") boolean enabled,
+                         @Value("${tod.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${tod.cache.ttl:10m}") Duration ttl,
+                         @Value("${tod.cache.temperature-quantum:0.01}") double temperatureQuantum,
+                         @Value("${tod.cache.hours-quantum:0.001}") double hoursQuantum,
+                         @Value("${tod.cache.k-quantum:0.00001}") double kQuantum) {
+        this.enabled = enabled;
+        this.temperatureQuantum = temperatureQuantum;
+        this.hoursQuantum = hoursQuantum;
+        this.kQuantum = kQuantum;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Same contract as {@link TodService#processTodEstimate}, served from the cache when possible.
+     */
+    public TodEstimateResponse estimate(TodEstimateRequest request) {
+        return tryEstimate(request).orThrow();
+    }
+
+    /**
+     * Same contract as {@link TodService#tryProcessTodEstimate}, served from the cache when possible.
+     * Failed estimates are not cached.
+     */
+    public Result<TodEstimateResponse> tryEstimate(TodEstimateRequest request) {
+        if (!enabled || !isCacheable(request)) {
+            return todService.tryProcessTodEstimate(request);
+        }
+
+        // The curve is not part of the key, so its options are checked even on a hit
+        Result<TodEstimateResponse> curve = todService.checkCurve(request);
+        if (!curve.isOk()) {
+            return curve;
+        }
+        Key key = keyOf(request);
+        TodEstimate estimate = cache.getIfPresent(key);
+        if (estimate == null) {
+            Result<TodEstimate> computed = todService.tryComputeEstimate(request);
+            if (!computed.isOk()) {
+                return computed.propagate();
+            }
+            estimate = computed.value();
+            cache.put(key, estimate);
+        }
+        return Result.ok(todService.render(estimate, request));
+    }
+
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        return CacheStatsResponse.builder()
+                .enabled(enabled)
+                .size(cache.estimatedSize())
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictions(stats.evictionCount())
+                .build();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "tod.estimates");
+    }
+
+    private static boolean isCacheable(TodEstimateRequest request) {
+        // Unseeded Monte Carlo results are meant to differ between calls
+        return !request.hasUncertainty() || request.getUncertainty().getSeed() != null;
+    }
+
+    private Key keyOf(TodEstimateRequest request) {
+        int readings = request.hasReadings() ? request.getReadings().size() : 0;
+        int ambientSamples = request.hasAmbientSeries() ? request.getAmbientSeries().size() : 0;
+        long[] values = new long[23 + 3 * readings + 2 * ambientSamples];
+        int i = 0;
+
+        values[i++] = request.getModel() != null ? request.getModel().ordinal() : ABSENT;
+        values[i++] = quantize(request.getAmbientTempC(), temperatureQuantum);
+        values[i++] = quantize(request.getBodyTempC(), temperatureQuantum);
+        values[i++] = quantize(request.getNormalBodyTempC(), temperatureQuantum);
+        values[i++] = quantize(request.getTimeSinceFirstReadingHours(), hoursQuantum);
+        values[i++] = quantize(request.getK(), kQuantum);
+        values[i++] = exact(request.getBodyMassKg());
+        values[i++] = exact(request.getCorrectionFactor());
+        values[i++] = exact(request.getClothingLayers());
+        values[i++] = request.getMedium() != null ? request.getMedium().ordinal() : ABSENT;
+        values[i++] = exact(request.getWindSpeedMs());
+        values[i++] = request.getPosture() != null ? request.getPosture().ordinal() : ABSENT;
+        // A reloaded calibration table must not be answered from estimates made with the old one
+        CalibrationTable table = calibration != null ? calibration.table() : null;
+        values[i++] = table != null ? table.checksum() : ABSENT;
+
+        SecondReading second = request.getSecondReading();
+        values[i++] = second != null ? quantize(second.getBodyTempC(), temperatureQuantum) : ABSENT;
+        values[i++] = second != null ? quantize(second.getDeltaHoursFromFirst(), hoursQuantum) : ABSENT;
+
+        UncertaintySpec spec = request.getUncertainty();
+        values[i++] = spec != null ? exact(spec.getAmbientSdC()) : ABSENT;
+        values[i++] = spec != null ? exact(spec.getBodySdC()) : ABSENT;
+        values[i++] = spec != null ? exact(spec.getNormalBodySdC()) : ABSENT;
+        values[i++] = spec != null ? exact(spec.getKSd()) : ABSENT;
+        values[i++] = spec != null && spec.getSamples() != null ? spec.getSamples() : ABSENT;
+        values[i++] = spec != null && spec.getSeed() != null ? spec.getSeed() : ABSENT;
+
+        values[i++] = readings;
+        for (int r = 0; r < readings; r++) {
+            TimedReading reading = request.getReadings().get(r);
+            values[i++] = quantize(reading.getHoursFromFirst(), hoursQuantum);
+            values[i++] = quantize(reading.getBodyTempC(), temperatureQuantum);
+            values[i++] = exact(reading.getWeight());
+        }
+
+        values[i++] = ambientSamples;
+        for (int a = 0; a < ambientSamples; a++) {
+            AmbientReading sample = request.getAmbientSeries().get(a);
+            values[i++] = quantize(sample.getHoursFromFirst(), hoursQuantum);
+            values[i++] = quantize(sample.getTempC(), temperatureQuantum);
+        }
+
+        return new Key(values);
+    }
+
+    private static long quantize(Double value, double quantum) {
+        if (value == null) {
+            return ABSENT;
+        }
+        return quantum > 0 ? Math.round(value / quantum) : Double.doubleToLongBits(value);
+    }
+
+    private static long exact(Double value) {
+        return value == null ? ABSENT : Double.doubleToLongBits(value);
+    }
+
+    static final class Key {
+        private final long[] values;
+        private final int hash;
+
+        Key(long[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && hash == key.hash && Arrays.equals(values, key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
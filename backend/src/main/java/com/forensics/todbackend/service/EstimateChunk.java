@@ -0,0 +1,67 @@
+package com.forensics.todbackend.service;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity columnar block of bulk-job rows. A job reuses one chunk for the whole
+ * file, so its memory does not depend on the number of rows.
+ *
+ * Optional numeric inputs are NaN when absent. A row whose input could not be parsed has
+ * {@code inputError} set and is skipped by the estimator.
+ */
+final class EstimateChunk {
+
+    final long[] rowNumber;
+    final String[] caseId;
+    final String[] sceneDateTime;
+    final String[] inputError;
+
+    final double[] ambientTempC;
+    final double[] bodyTempC;
+    final double[] normalBodyTempC;
+    final double[] k;
+    final double[] secondBodyTempC;
+    final double[] deltaHours;
+    final double[] offsetHours;
+
+    final double[] kOut;
+    final double[] hoursOut;
+    final byte[] status;
+    final String[] timeOfDeath;
+
+    int size;
+
+    EstimateChunk(int capacity) {
+        rowNumber = new long[capacity];
+        caseId = new String[capacity];
+        sceneDateTime = new String[capacity];
+        inputError = new String[capacity];
+        ambientTempC = new double[capacity];
+        bodyTempC = new double[capacity];
+        normalBodyTempC = new double[capacity];
+        k = new double[capacity];
+        secondBodyTempC = new double[capacity];
+        deltaHours = new double[capacity];
+        offsetHours = new double[capacity];
+        kOut = new double[capacity];
+        hoursOut = new double[capacity];
+        status = new byte[capacity];
+        timeOfDeath = new String[capacity];
+    }
+
+    int capacity() {
+        return rowNumber.length;
+    }
+
+    boolean isFull() {
+        return size == rowNumber.length;
+    }
+
+    void clear() {
+        Arrays.fill(caseId, 0, size, null);
+        Arrays.fill(sceneDateTime, 0, size, null);
+        Arrays.fill(inputError, 0, size, null);
+        Arrays.fill(timeOfDeath, 0, size, null);
+        size = 0;
+    }
+}
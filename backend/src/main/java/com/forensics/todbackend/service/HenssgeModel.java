@@ -0,0 +1,143 @@
+package com.forensics.todbackend.service;
+
+/**
+ * Marshall–Hoare double-exponential cooling with Henssge's body-mass constant.
+ *
+ * Q = (Tr - Ta)/(37.2 - Ta) = A*e^(B*t) - (A - 1)*e^(n*B*t),
+ * with A = 1.25, n = 5 for Ta ≤ 23.2°C and A = 1.11, n = 10 above, and
+ * B = -1.2815 * (cf * mass)^-0.625 + 0.0284.
+ *
+ * Substituting x = -B*t leaves Q(x) independent of mass and clothing, so x(Q) is
+ * tabulated once per ambient regime. A lookup gives a tight bracket and start point,
+ * and a safeguarded Newton step polishes it to full precision. That keeps the solve
+ * close to the cost of the closed-form Newton path.
+ */
+public final class HenssgeModel {
+
+    public static final double RECTAL_TEMP_AT_DEATH = 37.2;
+    public static final double WARM_AMBIENT_THRESHOLD = 23.2;
+    /**
+     * End of the nomogram's body weight scale. Beyond it the fitted B flattens towards zero,
+     * and it turns positive once the corrected mass passes about 445 kg.
+     */
+    public static final double MAX_CORRECTED_MASS_KG = 200.0;
+
+    private static final double MAX_X = 16.0;
+    private static final double TOLERANCE = 1e-12;
+    private static final int MAX_ITERATIONS = 60;
+    private static final int TABLE_SIZE = 1024;
+
+    private static final Regime COOL = new Regime(1.25, 5.0);
+    private static final Regime WARM = new Regime(1.11, 10.0);
+
+    private HenssgeModel() {
+    }
+
+    /**
+     * Henssge's B; the equivalent single-exponential k is {@code -B}. Only meaningful for a
+     * corrected mass {@code correctionFactor * bodyMassKg} up to {@link #MAX_CORRECTED_MASS_KG}.
+     */
+    public static double coolingConstant(double bodyMassKg, double correctionFactor) {
+        return -1.2815 * Math.pow(correctionFactor * bodyMassKg, -0.625) + 0.0284;
+    }
+
+    /**
+     * Hours since death for rectal temperature {@code Tr} at ambient {@code Ta}, or NaN
+     * if Q is outside (0, 1) or too close to zero to resolve, or B is not negative.
+     */
+    public static double timeSinceDeath(double Tr, double Ta, double bodyMassKg, double correctionFactor) {
+        double B = coolingConstant(bodyMassKg, correctionFactor);
+        if (!(B < 0)) {
+            return Double.NaN;
+        }
+        double x = solve(Ta <= WARM_AMBIENT_THRESHOLD ? COOL : WARM, standardizedTemp(Tr, Ta));
+        return x / -B;
+    }
+
+    public static double standardizedTemp(double Tr, double Ta) {
+        return (Tr - Ta) / (RECTAL_TEMP_AT_DEATH - Ta);
+    }
+
+    /**
+     * Solve Q(x) = q with a plain bracket over the whole range, without the lookup table.
+     * Kept for tests and benchmarks.
+     */
+    public static double solveUntabulated(boolean warmAmbient, double q) {
+        Regime regime = warmAmbient ? WARM : COOL;
+        if (!(q > regime.minQ && q < 1.0)) {
+            return Double.NaN;
+        }
+        return regime.newton(q, 0.0, MAX_X, MAX_X / 2);
+    }
+
+    private static double solve(Regime regime, double q) {
+        if (!(q > regime.minQ && q < 1.0)) {
+            return Double.NaN;
+        }
+
+        // Table rows are uniform in q, so the row index is direct and x[j], x[j+1] bracket the root
+        double position = q * TABLE_SIZE;
+        int j = (int) position;
+        double lo = j == 0 ? regime.x[1] : regime.x[j + 1];
+        double hi = j == 0 ? MAX_X : regime.x[j];
+        if (j == 0) {
+            return regime.newton(q, lo, hi, lo);
+        }
+        double guess = hi + (lo - hi) * (position - j);
+        return regime.newton(q, lo, hi, guess);
+    }
+
+    private static final class Regime {
+        private final double a;
+        private final double n;
+        private final double minQ;
+        private final double[] x = new double[TABLE_SIZE + 1];
+
+        Regime(double a, double n) {
+            this.a = a;
+            this.n = n;
+            this.minQ = q(MAX_X);
+
+            // x[j] solves Q(x) = j / TABLE_SIZE; x[0] (Q = 0) is unbounded and never read
+            x[TABLE_SIZE] = 0.0;
+            for (int j = TABLE_SIZE - 1; j >= 1; j--) {
+                double target = (double) j / TABLE_SIZE;
+                x[j] = target > minQ ? newton(target, x[j + 1], MAX_X, x[j + 1]) : MAX_X;
+            }
+            x[0] = MAX_X;
+        }
+
+        double q(double x) {
+            return a * Math.exp(-x) - (a - 1.0) * Math.exp(-n * x);
+        }
+
+        /**
+         * Safeguarded Newton on Q(x) - target over the bracket [lo, hi]. Q is strictly
+         * decreasing, so a step leaving the bracket falls back to bisection.
+         */
+        double newton(double target, double lo, double hi, double x0) {
+            double xi = Math.min(Math.max(x0, lo), hi);
+            for (int i = 0; i < MAX_ITERATIONS; i++) {
+                double e1 = Math.exp(-xi);
+                double en = Math.exp(-n * xi);
+                double f = a * e1 - (a - 1.0) * en - target;
+                if (f > 0) {
+                    lo = xi;
+                } else {
+                    hi = xi;
+                }
+
+                double slope = -a * e1 + n * (a - 1.0) * en;
+                double next = slope < 0 ? xi - f / slope : Double.NaN;
+                if (!(next > lo && next < hi)) {
+                    next = 0.5 * (lo + hi);
+                }
+                if (Math.abs(next - xi) < TOLERANCE || hi - lo < TOLERANCE) {
+                    return next;
+                }
+                xi = next;
+            }
+            return xi;
+        }
+    }
+}
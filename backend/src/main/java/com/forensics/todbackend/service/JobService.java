@@ -0,0 +1,585 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.JobPriority;
+import com.forensics.todbackend.dto.JobState;
+import com.forensics.todbackend.dto.JobStatus;
+import com.forensics.todbackend.exception.ErrorCode;
+import com.forensics.todbackend.exception.JobNotFoundException;
+import com.forensics.todbackend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Asynchronous bulk estimation over uploaded CSV files.
+ *
+ * An upload is streamed to {@code <directory>/<jobId>/input.csv} and queued. At most
+ * {@code max-concurrent} jobs run at once, taken from the queue by priority and then
+ * submission order. A running job reads the file one chunk of rows at a time into a reused
+ * {@link EstimateChunk}, splits each chunk across the shared worker pool, and appends the
+ * results in input order to {@code output.csv}; memory per job is one chunk whatever the
+ * file size. Cancellation is checked between chunks. Jobs are kept in memory only and are
+ * deleted, files included, {@code retention} after they finish.
+ */
+@Service
+public class JobService implements MeterBinder {
+
+    static final String OUTPUT_HEADER = "row,caseId,k,timeSinceDeathHours,estimatedTimeOfDeath,error,message";
+
+    /** Rows below this are not worth handing to another worker */
+    private static final int MIN_SLICE = 1024;
+
+    @Autowired
+    private TodService todService;
+
+    private final Path directory;
+    private final int maxQueued;
+    private final int chunkSize;
+    private final int parallelism;
+    private final long retentionMillis;
+
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong rowsProcessed = new AtomicLong();
+    private final ThreadPoolExecutor runner;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService sweeper;
+
+    public JobService(@Value("${tod.jobs.directory:data/jobs}") Path directory,
+                      @Value("${tod.jobs.max-concurrent:2}") int maxConcurrent,
+                      @Value("${tod.jobs.max-queued:100}") int maxQueued,
+                      @Value("${tod.jobs.chunk-size:8192}") int chunkSize,
+                      @Value("${tod.jobs.parallelism:0}") int parallelism,
+                      @Value("${tod.jobs.retention:24h}") Duration retention) {
+        this.directory = directory;
+        this.maxQueued = maxQueued;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.retentionMillis = retention.toMillis();
+
+        AtomicInteger runnerCount = new AtomicInteger();
+        // Jobs are Comparable, so the queue hands out the highest priority first
+        this.runner = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "tod-job-" + runnerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "tod-job-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tod-job-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(retentionMillis / 4, TimeUnit.HOURS.toMillis(1)));
+        sweeper.scheduleAtFixedRate(this::expireFinishedJobs, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Store the uploaded CSV and queue it.
+     *
+     * @throws ServiceBusyException if {@code max-queued} jobs are already waiting
+     */
+    public JobStatus submit(InputStream csv, JobPriority priority) throws IOException {
+        if (runner.getQueue().size() >= maxQueued) {
+            throw new ServiceBusyException("Too many queued jobs - retry later");
+        }
+        String id = UUID.randomUUID().toString();
+        Path jobDirectory = directory.resolve(id);
+        Files.createDirectories(jobDirectory);
+        Path input = jobDirectory.resolve("input.csv");
+        try (OutputStream out = Files.newOutputStream(input)) {
+            csv.transferTo(out);
+        } catch (IOException e) {
+            FileSystemUtils.deleteRecursively(jobDirectory);
+            throw e;
+        }
+
+        Job job = new Job(id, priority, sequence.incrementAndGet(), jobDirectory, Files.size(input));
+        jobs.put(id, job);
+        runner.execute(job);
+        return job.status();
+    }
+
+    /**
+     * @throws JobNotFoundException for an unknown or expired job
+     */
+    public JobStatus status(String jobId) {
+        return job(jobId).status();
+    }
+
+    /**
+     * The result file of a completed job, or {@code null} while it has not completed.
+     *
+     * @throws JobNotFoundException for an unknown or expired job
+     */
+    public Path result(String jobId) {
+        Job job = job(jobId);
+        return job.state.get() == JobState.COMPLETED ? job.output() : null;
+    }
+
+    /**
+     * Cancel a queued or running job; a finished job is left as it is. A running job stops
+     * at its next chunk boundary and its partial output is discarded.
+     *
+     * @throws JobNotFoundException for an unknown or expired job
+     */
+    public JobStatus cancel(String jobId) {
+        Job job = job(jobId);
+        job.cancelled = true;
+        if (job.state.compareAndSet(JobState.QUEUED, JobState.CANCELLED)) {
+            runner.remove(job);
+            job.finish(null);
+        }
+        return job.status();
+    }
+
+    private Job job(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new JobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    private void expireFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> {
+            Instant finishedAt = job.finishedAt;
+            if (finishedAt == null || finishedAt.toEpochMilli() > cutoff) {
+                return false;
+            }
+            try {
+                FileSystemUtils.deleteRecursively(job.directory);
+            } catch (IOException e) {
+                // Leave the files; the job itself is still forgotten
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tod.jobs.queued", runner, executor -> executor.getQueue().size())
+                .description("Bulk jobs waiting to start")
+                .register(registry);
+        Gauge.builder("tod.jobs.running", runner, ThreadPoolExecutor::getActiveCount)
+                .description("Bulk jobs currently running")
+                .register(registry);
+        FunctionCounter.builder("tod.jobs.rows", rowsProcessed, AtomicLong::get)
+                .description("Rows evaluated by bulk jobs")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.cancelled = true);
+        sweeper.shutdownNow();
+        runner.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Evaluate a chunk, split into slices of at least {@link #MIN_SLICE} rows across the workers.
+     */
+    private void evaluate(EstimateChunk chunk) throws IOException {
+        int slices = Math.min(parallelism, Math.max(1, chunk.size / MIN_SLICE));
+        if (slices == 1) {
+            todService.estimateChunk(chunk, 0, chunk.size);
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(slices);
+        for (int s = 0; s < slices; s++) {
+            int from = (int) ((long) chunk.size * s / slices);
+            int to = (int) ((long) chunk.size * (s + 1) / slices);
+            futures.add(workers.submit(() -> todService.estimateChunk(chunk, from, to)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Job interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Chunk evaluation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Input columns, matched by header name (case-insensitive, any order). Only
+     * {@code ambientTempC} and {@code bodyTempC} are required; numeric ranges are those
+     * of the {@code /estimate} request.
+     */
+    private enum Column {
+        CASE_ID("caseId"),
+        AMBIENT("ambientTempC", -30.0, 50.0),
+        BODY("bodyTempC", 0.0, 45.0),
+        TIME_SINCE_FIRST_READING("timeSinceFirstReadingHours", 0.0, Double.MAX_VALUE),
+        NORMAL_BODY("normalBodyTempC", 35.0, 42.0),
+        K("k", 0.001, CoolingKernel.MAX_K),
+        SECOND_BODY("secondBodyTempC", 0.0, 45.0),
+        SECOND_DELTA("secondDeltaHours", Double.MIN_VALUE, Double.MAX_VALUE),
+        SCENE_DATE_TIME("sceneDateTime");
+
+        final String header;
+        final double min;
+        final double max;
+
+        Column(String header) {
+            this(header, Double.NaN, Double.NaN);
+        }
+
+        Column(String header, double min, double max) {
+            this.header = header;
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    /** Field position of every column in the file, -1 when absent */
+    private static final class Layout {
+        private final int[] positions = new int[Column.values().length];
+
+        static Layout parse(String header) throws IOException {
+            Layout layout = new Layout();
+            Arrays.fill(layout.positions, -1);
+            String[] names = split(header);
+            for (int i = 0; i < names.length; i++) {
+                String name = names[i].replace("\uFEFF", "").toLowerCase(Locale.ROOT);
+                for (Column column : Column.values()) {
+                    if (column.header.toLowerCase(Locale.ROOT).equals(name)) {
+                        layout.positions[column.ordinal()] = i;
+                    }
+                }
+            }
+            for (Column required : new Column[]{Column.AMBIENT, Column.BODY}) {
+                if (layout.positions[required.ordinal()] < 0) {
+                    throw new IOException("Missing required column " + required.header);
+                }
+            }
+            if (layout.positions[Column.SECOND_BODY.ordinal()] >= 0 != layout.positions[Column.SECOND_DELTA.ordinal()] >= 0) {
+                throw new IOException("secondBodyTempC and secondDeltaHours must be given together");
+            }
+            return layout;
+        }
+
+        String text(String[] fields, Column column) {
+            int position = positions[column.ordinal()];
+            if (position < 0 || position >= fields.length || fields[position].isEmpty()) {
+                return null;
+            }
+            return fields[position];
+        }
+
+        double number(String[] fields, Column column, double absent) {
+            String text = text(fields, column);
+            if (text == null) {
+                return absent;
+            }
+            double value;
+            try {
+                value = Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(column.header + " is not a number: " + text);
+            }
+            if (!(value >= column.min && value <= column.max)) {
+                throw new IllegalArgumentException(column.header + " is out of range: " + text);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Split one CSV line. Fields are trimmed and may be wrapped in double quotes; a quoted
+     * field may contain commas and doubled quotes.
+     */
+    static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private final class Job implements Runnable, Comparable<Job> {
+        private final String id;
+        private final JobPriority priority;
+        private final long sequence;
+        private final Path directory;
+        private final long inputBytes;
+        private final Instant submittedAt = Instant.now();
+        private final AtomicReference<JobState> state = new AtomicReference<>(JobState.QUEUED);
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong failedRows = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String message;
+
+        Job(String id, JobPriority priority, long sequence, Path directory, long inputBytes) {
+            this.id = id;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.directory = directory;
+            this.inputBytes = inputBytes;
+        }
+
+        Path input() {
+            return directory.resolve("input.csv");
+        }
+
+        Path output() {
+            return directory.resolve("output.csv");
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(JobState.QUEUED, JobState.RUNNING)) {
+                return;
+            }
+            startedAt = Instant.now();
+            Path partial = directory.resolve("output.csv.part");
+            try {
+                process(partial);
+                if (cancelled) {
+                    Files.deleteIfExists(partial);
+                    state.set(JobState.CANCELLED);
+                } else {
+                    Files.move(partial, output(), StandardCopyOption.REPLACE_EXISTING);
+                    state.set(JobState.COMPLETED);
+                }
+                finish(null);
+            } catch (IOException | RuntimeException e) {
+                try {
+                    Files.deleteIfExists(partial);
+                } catch (IOException ignored) {
+                    // The directory is removed when the job expires
+                }
+                state.set(cancelled ? JobState.CANCELLED : JobState.FAILED);
+                finish(cancelled ? null : e.getMessage());
+            }
+        }
+
+        void finish(String error) {
+            message = error;
+            finishedAt = Instant.now();
+            try {
+                Files.deleteIfExists(input());
+            } catch (IOException ignored) {
+                // The directory is removed when the job expires
+            }
+        }
+
+        private void process(Path partial) throws IOException {
+            InputStream counted = new FilterInputStream(Files.newInputStream(input())) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        bytesRead.incrementAndGet();
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int n = super.read(buffer, offset, length);
+                    if (n > 0) {
+                        bytesRead.addAndGet(n);
+                    }
+                    return n;
+                }
+            };
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(counted, StandardCharsets.UTF_8));
+                 BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                String header = reader.readLine();
+                if (header == null) {
+                    throw new IOException("The file is empty");
+                }
+                Layout layout = Layout.parse(header);
+                writer.write(OUTPUT_HEADER);
+                writer.newLine();
+
+                EstimateChunk chunk = new EstimateChunk(chunkSize);
+                long rowNumber = 0;
+                String line = reader.readLine();
+                while (line != null && !cancelled) {
+                    chunk.clear();
+                    while (line != null && !chunk.isFull()) {
+                        if (!line.isBlank()) {
+                            parse(layout, line, ++rowNumber, chunk);
+                        }
+                        line = reader.readLine();
+                    }
+                    evaluate(chunk);
+                    write(chunk, writer);
+                }
+            }
+        }
+
+        private void parse(Layout layout, String line, long rowNumber, EstimateChunk chunk) {
+            int i = chunk.size++;
+            chunk.rowNumber[i] = rowNumber;
+            String[] fields = split(line);
+            chunk.caseId[i] = layout.text(fields, Column.CASE_ID);
+            try {
+                chunk.ambientTempC[i] = layout.number(fields, Column.AMBIENT, Double.NaN);
+                chunk.bodyTempC[i] = layout.number(fields, Column.BODY, Double.NaN);
+                if (Double.isNaN(chunk.ambientTempC[i]) || Double.isNaN(chunk.bodyTempC[i])) {
+                    throw new IllegalArgumentException("ambientTempC and bodyTempC are required");
+                }
+                chunk.offsetHours[i] = layout.number(fields, Column.TIME_SINCE_FIRST_READING, 0.0);
+                chunk.normalBodyTempC[i] = layout.number(fields, Column.NORMAL_BODY, 37.0);
+                chunk.k[i] = layout.number(fields, Column.K, Double.NaN);
+                chunk.secondBodyTempC[i] = layout.number(fields, Column.SECOND_BODY, Double.NaN);
+                chunk.deltaHours[i] = layout.number(fields, Column.SECOND_DELTA, Double.NaN);
+                if (Double.isNaN(chunk.secondBodyTempC[i]) != Double.isNaN(chunk.deltaHours[i])) {
+                    throw new IllegalArgumentException("secondBodyTempC and secondDeltaHours must be given together");
+                }
+                String sceneDateTime = layout.text(fields, Column.SCENE_DATE_TIME);
+                if (sceneDateTime != null) {
+                    LocalDateTime.parse(sceneDateTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                }
+                chunk.sceneDateTime[i] = sceneDateTime;
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                chunk.inputError[i] = e instanceof DateTimeParseException
+                        ? "sceneDateTime is not an ISO local date-time: " + ((DateTimeParseException) e).getParsedString()
+                        : e.getMessage();
+                // NaN inputs make the kernel reject the row without further work
+                chunk.ambientTempC[i] = Double.NaN;
+                chunk.secondBodyTempC[i] = Double.NaN;
+            }
+        }
+
+        private void write(EstimateChunk chunk, BufferedWriter writer) throws IOException {
+            long failed = 0;
+            StringBuilder line = new StringBuilder(96);
+            for (int i = 0; i < chunk.size; i++) {
+                line.setLength(0);
+                line.append(chunk.rowNumber[i]).append(',');
+                if (chunk.caseId[i] != null) {
+                    line.append(quote(chunk.caseId[i]));
+                }
+                line.append(',');
+                if (chunk.inputError[i] != null) {
+                    line.append(",,,").append(ErrorCode.INVALID_INPUT).append(',').append(quote(chunk.inputError[i]));
+                    failed++;
+                } else if (chunk.status[i] != CoolingKernel.OK) {
+                    line.append(",,,").append(ErrorCode.fromKernelStatus(chunk.status[i])).append(',');
+                    failed++;
+                } else {
+                    line.append(chunk.kOut[i]).append(',')
+                            .append(Math.round(chunk.hoursOut[i] * 100.0) / 100.0).append(',');
+                    if (chunk.timeOfDeath[i] != null) {
+                        line.append(chunk.timeOfDeath[i]);
+                    }
+                    line.append(",,");
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+            rows.addAndGet(chunk.size);
+            failedRows.addAndGet(failed);
+            rowsProcessed.addAndGet(chunk.size);
+        }
+
+        JobStatus status() {
+            JobState current = state.get();
+            double progress = current == JobState.COMPLETED ? 1.0
+                    : inputBytes == 0 ? 0.0 : Math.min(1.0, (double) bytesRead.get() / inputBytes);
+            return JobStatus.builder()
+                    .jobId(id)
+                    .state(current)
+                    .priority(priority)
+                    .rowsProcessed(rows.get())
+                    .rowsFailed(failedRows.get())
+                    .progress(Math.round(progress * 1000.0) / 1000.0)
+                    .submittedAt(submittedAt.toString())
+                    .startedAt(startedAt != null ? startedAt.toString() : null)
+                    .finishedAt(finishedAt != null ? finishedAt.toString() : null)
+                    .message(message)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.forensics.todbackend.service;
+
+/**
+ * Where the cooling constant k of an estimate came from.
+ */
+public enum KSource {
+    READINGS_FIT("readings_fit"),
+    TWO_READINGS("two_readings"),
+    PROVIDED("provided"),
+    CALIBRATION("calibration"),
+    DEFAULT("default"),
+    BODY_MASS("body_mass");
+
+    private final String tag;
+
+    KSource(String tag) {
+        this.tag = tag;
+    }
+
+    /** Lower-case name used as a metric tag value */
+    public String tag() {
+        return tag;
+    }
+}
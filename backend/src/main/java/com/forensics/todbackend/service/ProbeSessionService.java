@@ -0,0 +1,435 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.ProbeReading;
+import com.forensics.todbackend.dto.ProbeRevision;
+import com.forensics.todbackend.dto.ProbeSessionRequest;
+import com.forensics.todbackend.exception.ErrorCode;
+import com.forensics.todbackend.exception.ServiceBusyException;
+import com.forensics.todbackend.exception.SessionNotFoundException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Live probe sessions: readings arrive one at a time and every revision of the estimate is
+ * pushed to the session's Server-Sent Event subscribers.
+ *
+ * Each body reading updates the session's {@link CoolingFit} in constant time, so a
+ * revision costs the same after the thousandth reading as after the second. A new ambient
+ * reading changes Te for every reading, so the fit is rebuilt from the stored readings.
+ *
+ * Pushing a reading only hands the new revision to each subscriber; a small pool of sender
+ * threads writes the events, so a slow or stalled subscriber cannot delay the probe or
+ * anyone else reading the session. A subscriber that falls behind skips straight to the
+ * newest revision. An idle session holds no thread, only its readings and its emitters.
+ * One sweeper thread expires idle sessions.
+ */
+@Service
+public class ProbeSessionService implements MeterBinder {
+
+    @Autowired
+    private TodService todService;
+
+    private final ConcurrentHashMap<String, ProbeSession> sessions = new ConcurrentHashMap<>();
+    private final int maxSessions;
+    private final long idleTimeoutMillis;
+    private final ScheduledExecutorService sweeper;
+    private final ExecutorService sender;
+
+    public ProbeSessionService(@Value("${tod.sessions.max-sessions:10000}") int maxSessions,
+                               @Value("${tod.sessions.idle-timeout:30m}") Duration idleTimeout,
+                               @Value("${tod.sessions.sender-threads:4}") int senderThreads,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.maxSessions = maxSessions;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+
+        ThreadFactory senderFactory;
+        if (virtualThreads) {
+            senderFactory = Thread.ofVirtual().name("tod-session-sender-", 1).factory();
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            senderFactory = runnable -> {
+                Thread thread = new Thread(runnable, "tod-session-sender-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        this.sender = Executors.newFixedThreadPool(Math.max(1, senderThreads), senderFactory);
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tod-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 4);
+        sweeper.scheduleAtFixedRate(this::expireIdleSessions, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @throws ServiceBusyException if {@code max-sessions} sessions are already open
+     */
+    public ProbeRevision open(ProbeSessionRequest request) {
+        if (sessions.size() >= maxSessions) {
+            throw new ServiceBusyException("Too many open probe sessions - retry later");
+        }
+        String id = UUID.randomUUID().toString();
+        double k = request.getK() != null ? request.getK() : CoolingKernel.DEFAULT_K;
+        ProbeSession session = new ProbeSession(id, request.getNormalBodyTempC(), request.getAmbientTempC(),
+                request.getK() != null ? KSource.PROVIDED : KSource.DEFAULT, k);
+        sessions.put(id, session);
+        return session.current();
+    }
+
+    /**
+     * @throws SessionNotFoundException if the session is not open
+     */
+    public ProbeRevision current(String sessionId) {
+        return find(sessionId).current();
+    }
+
+    /**
+     * Add a reading and publish the new revision. A reading that cannot be used is
+     * reported as a failure and leaves the session unchanged.
+     *
+     * @throws SessionNotFoundException if the session is not open
+     */
+    public Result<ProbeRevision> push(String sessionId, ProbeReading reading) {
+        return find(sessionId).push(reading);
+    }
+
+    /**
+     * Subscribe to a session's revisions; the current one is sent straight away.
+     *
+     * @throws SessionNotFoundException if the session is not open
+     */
+    public SseEmitter subscribe(String sessionId) {
+        return find(sessionId).subscribe(idleTimeoutMillis);
+    }
+
+    /**
+     * @throws SessionNotFoundException if the session is not open
+     */
+    public void close(String sessionId) {
+        ProbeSession session = sessions.remove(sessionId);
+        if (session == null) {
+            throw new SessionNotFoundException(sessionId);
+        }
+        session.complete();
+    }
+
+    private ProbeSession find(String sessionId) {
+        ProbeSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new SessionNotFoundException(sessionId);
+        }
+        return session;
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tod.sessions.active", sessions, ConcurrentHashMap::size)
+                .description("Open live probe sessions")
+                .register(registry);
+        Gauge.builder("tod.sessions.subscribers", this,
+                        service -> service.sessions.values().stream().mapToInt(ProbeSession::subscriberCount).sum())
+                .description("Server-Sent Event subscribers across all probe sessions")
+                .register(registry);
+    }
+
+    private void expireIdleSessions() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        sessions.values().removeIf(session -> {
+            if (session.lastActivity >= cutoff) {
+                return false;
+            }
+            session.complete();
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        sessions.values().forEach(ProbeSession::complete);
+        sessions.clear();
+        sender.shutdownNow();
+    }
+
+    private final class ProbeSession {
+        private final String id;
+        private final double T0;
+        private final KSource fallbackSource;
+        private final double fallbackK;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+        // Guarded by this
+        private LocalDateTime origin;
+        private double[] hours = new double[16];
+        private double[] temps = new double[16];
+        private int bodyReadings;
+        private double ambientSum;
+        private int ambientReadings;
+        private CoolingFit fit;
+        private boolean fitValid = true;
+        private double lastHours;
+        private double lastTemp;
+        private long revision;
+        private ProbeRevision current;
+
+        volatile long lastActivity = System.currentTimeMillis();
+
+        ProbeSession(String id, double T0, double ambientTempC, KSource fallbackSource, double fallbackK) {
+            this.id = id;
+            this.T0 = T0;
+            this.fallbackSource = fallbackSource;
+            this.fallbackK = fallbackK;
+            this.ambientSum = ambientTempC;
+            this.ambientReadings = 1;
+            this.fit = new CoolingFit(T0, ambientTempC);
+            this.current = revise();
+        }
+
+        synchronized ProbeRevision current() {
+            return current;
+        }
+
+        int subscriberCount() {
+            return subscribers.size();
+        }
+
+        synchronized Result<ProbeRevision> push(ProbeReading reading) {
+            lastActivity = System.currentTimeMillis();
+            if (reading.getBodyTempC() == null && reading.getAmbientTempC() == null) {
+                return Result.failure(ErrorCode.INVALID_INPUT, "A reading needs a body or ambient temperature");
+            }
+            LocalDateTime takenAt;
+            try {
+                takenAt = reading.getTakenAt() != null
+                        ? LocalDateTime.parse(reading.getTakenAt(), DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                        : LocalDateTime.now();
+            } catch (DateTimeParseException e) {
+                return Result.failure(ErrorCode.INVALID_INPUT, "takenAt is not an ISO-8601 local date-time");
+            }
+
+            if (reading.getAmbientTempC() != null) {
+                ambientSum += reading.getAmbientTempC();
+                ambientReadings++;
+                rebuildFit();
+            }
+            if (reading.getBodyTempC() != null) {
+                if (origin == null) {
+                    origin = takenAt;
+                }
+                double at = origin.until(takenAt, ChronoUnit.MILLIS) / 3_600_000.0;
+                if (fitValid && !fit.add(at, reading.getBodyTempC(), 1.0)) {
+                    if (bodyReadings == 0) {
+                        origin = null;
+                    }
+                    if (reading.getAmbientTempC() != null) {
+                        ambientSum -= reading.getAmbientTempC();
+                        ambientReadings--;
+                        rebuildFit();
+                    }
+                    return Result.failure(ErrorCode.INVALID_READINGS,
+                            "Body temperature must lie between ambient and normal body temperature");
+                }
+                if (bodyReadings == hours.length) {
+                    hours = Arrays.copyOf(hours, bodyReadings * 2);
+                    temps = Arrays.copyOf(temps, bodyReadings * 2);
+                }
+                hours[bodyReadings] = at;
+                temps[bodyReadings] = reading.getBodyTempC();
+                bodyReadings++;
+                if (bodyReadings == 1 || at >= lastHours) {
+                    lastHours = at;
+                    lastTemp = reading.getBodyTempC();
+                }
+            }
+
+            current = revise();
+            publish(current);
+            return Result.ok(current);
+        }
+
+        SseEmitter subscribe(long timeoutMillis) {
+            SseEmitter emitter = new SseEmitter(timeoutMillis);
+            Subscriber subscriber = new Subscriber(emitter);
+            subscribers.add(subscriber);
+            emitter.onCompletion(() -> subscribers.remove(subscriber));
+            emitter.onTimeout(() -> subscribers.remove(subscriber));
+            emitter.onError(e -> subscribers.remove(subscriber));
+            synchronized (this) {
+                subscriber.offer(current);
+            }
+            return emitter;
+        }
+
+        void complete() {
+            subscribers.forEach(subscriber -> subscriber.emitter.complete());
+            subscribers.clear();
+        }
+
+        private void rebuildFit() {
+            fit = new CoolingFit(T0, ambient());
+            fitValid = true;
+            for (int i = 0; i < bodyReadings; i++) {
+                fitValid &= fit.add(hours[i], temps[i], 1.0);
+            }
+        }
+
+        private double ambient() {
+            return ambientSum / ambientReadings;
+        }
+
+        private ProbeRevision revise() {
+            double Te = ambient();
+            ProbeRevision.ProbeRevisionBuilder revisionBuilder = ProbeRevision.builder()
+                    .sessionId(id)
+                    .revision(revision++)
+                    .bodyReadings(bodyReadings)
+                    .ambientTempC(Te);
+
+            if (Math.abs(T0 - Te) < CoolingKernel.MIN_TEMP_DIFFERENCE) {
+                return revisionBuilder.code(ErrorCode.TEMPS_TOO_CLOSE)
+                        .message("Normal body temperature and ambient temperature too close").build();
+            }
+            if (bodyReadings == 0) {
+                return revisionBuilder.code(ErrorCode.INSUFFICIENT_READINGS)
+                        .message("Waiting for a body temperature reading").build();
+            }
+            if (!fitValid) {
+                return revisionBuilder.code(ErrorCode.INVALID_READINGS)
+                        .message("Some body readings are at or below the mean ambient temperature").build();
+            }
+
+            List<String> warnings = new ArrayList<>();
+            double k;
+            double timeSinceDeath;
+            KSource source;
+            if (fit.isDetermined() && fit.k() > 0 && fit.k() <= CoolingKernel.MAX_K) {
+                k = fit.k();
+                source = KSource.READINGS_FIT;
+                timeSinceDeath = fit.timeSinceDeathAtFirstReading() + lastHours;
+                revisionBuilder.kStandardError(Double.isNaN(fit.kStandardError()) ? null : fit.kStandardError());
+            } else {
+                if (fit.isDetermined()) {
+                    warnings.add("Readings do not yet show steady cooling - using "
+                            + fallbackSource.tag() + " k until they do");
+                }
+                k = fallbackK;
+                source = fallbackSource;
+                Result<Double> solved = todService.estimateTimeSinceDeath(T0, Te, lastTemp, k);
+                if (!solved.isOk()) {
+                    return revisionBuilder.code(solved.error()).message(solved.message()).build();
+                }
+                timeSinceDeath = solved.value();
+            }
+            if (!(timeSinceDeath >= 0)) {
+                return revisionBuilder.code(ErrorCode.NEGATIVE_TIME)
+                        .message("Calculated time since death is negative").build();
+            }
+            if (ambientReadings > 1) {
+                warnings.add("Ambient is the mean of " + ambientReadings + " readings");
+            }
+
+            LocalDateTime lastReadingAt = origin.plus(Math.round(lastHours * 3_600_000.0), ChronoUnit.MILLIS);
+            LocalDateTime timeOfDeath = lastReadingAt.minus(Math.round(timeSinceDeath * 3_600_000.0), ChronoUnit.MILLIS);
+            return revisionBuilder
+                    .kSource(source.tag())
+                    .k(k)
+                    .timeSinceDeathHours(Math.round(timeSinceDeath * 100.0) / 100.0)
+                    .estimatedTimeOfDeath(timeOfDeath.truncatedTo(ChronoUnit.SECONDS).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                    .lastReadingAt(lastReadingAt.truncatedTo(ChronoUnit.SECONDS).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                    .warnings(warnings)
+                    .build();
+        }
+
+        /** Called with this session's monitor held, so each subscriber is offered revisions in order. */
+        private void publish(ProbeRevision revision) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(revision);
+            }
+        }
+
+        /**
+         * One SSE subscriber. At most one send for it is queued or running at a time; revisions
+         * offered meanwhile replace each other, and the newest is sent next.
+         */
+        private final class Subscriber {
+            private final SseEmitter emitter;
+            private final AtomicReference<ProbeRevision> pending = new AtomicReference<>();
+            private final AtomicBoolean sending = new AtomicBoolean();
+
+            Subscriber(SseEmitter emitter) {
+                this.emitter = emitter;
+            }
+
+            void offer(ProbeRevision revision) {
+                pending.set(revision);
+                if (sending.compareAndSet(false, true)) {
+                    try {
+                        sender.execute(this::drain);
+                    } catch (RejectedExecutionException e) {
+                        // Shutting down; the emitter is being completed
+                        sending.set(false);
+                    }
+                }
+            }
+
+            private void drain() {
+                do {
+                    ProbeRevision revision;
+                    while ((revision = pending.getAndSet(null)) != null) {
+                        send(revision);
+                    }
+                    sending.set(false);
+                    // A revision offered after the last getAndSet but before the flag cleared
+                } while (pending.get() != null && sending.compareAndSet(false, true));
+            }
+
+            private void send(ProbeRevision revision) {
+                try {
+                    emitter.send(SseEmitter.event()
+                            .name("revision")
+                            .id(String.valueOf(revision.getRevision()))
+                            .data(revision));
+                } catch (IOException | IllegalStateException e) {
+                    // The client has gone; the completion callback may not have run yet
+                    subscribers.remove(this);
+                    pending.set(null);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.forensics.todbackend.service;
+
+import java.util.concurrent.RecursiveAction;
+
+/** Splits [from, to) in halves until a range is at most {@code leaf} long */
+final class RangeTask extends RecursiveAction {
+
+    interface RangeBody {
+        void apply(int from, int to);
+    }
+
+    private final int from;
+    private final int to;
+    private final int leaf;
+    private final RangeBody body;
+
+    RangeTask(int from, int to, int leaf, RangeBody body) {
+        this.from = from;
+        this.to = to;
+        this.leaf = leaf;
+        this.body = body;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= leaf) {
+            body.apply(from, to);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new RangeTask(from, middle, leaf, body), new RangeTask(middle, to, leaf, body));
+    }
+}
@@ -0,0 +1,42 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.exception.ErrorCode;
+import com.forensics.todbackend.exception.ValidationException;
+
+/**
+ * Value or validation failure, returned by the estimate path instead of throwing.
+ *
+ * Invalid input is routine for intake feeds, so failures are plain values here;
+ * {@link #orThrow()} converts back to a {@link ValidationException} for callers that
+ * prefer exceptions.
+ */
+public record Result<T>(T value, ErrorCode error, String message) {
+
+    public static <T> Result<T> ok(T value) {
+        return new Result<>(value, null, null);
+    }
+
+    public static <T> Result<T> failure(ErrorCode error, String message) {
+        return new Result<>(null, error, message);
+    }
+
+    public boolean isOk() {
+        return error == null;
+    }
+
+    /** Re-type a failure for a caller with a different value type */
+    @SuppressWarnings("unchecked")
+    public <U> Result<U> propagate() {
+        if (isOk()) {
+            throw new IllegalStateException("Cannot propagate a successful result");
+        }
+        return (Result<U>) this;
+    }
+
+    public T orThrow() {
+        if (!isOk()) {
+            throw new ValidationException(error, message);
+        }
+        return value;
+    }
+}
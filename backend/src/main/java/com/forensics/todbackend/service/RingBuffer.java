@@ -0,0 +1,91 @@
+package com.forensics.todbackend.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, lock-free ring of pre-allocated entries for many producers and one consumer.
+ *
+ * A producer claims a sequence with one CAS, fills the entry at that sequence in place and
+ * publishes it; nothing is allocated per item. The consumer reads published entries in
+ * sequence order and frees their slots only after it is done with them, so a producer can
+ * never overwrite an entry that is still being read.
+ */
+final class RingBuffer<E> {
+
+    private final E[] entries;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    @SuppressWarnings("unchecked")
+    RingBuffer(int capacity, Supplier<E> factory) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        entries = (E[]) new Object[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            entries[i] = factory.get();
+            published.set(i, -1);
+        }
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return entries.length;
+    }
+
+    /** Claim the next sequence, or return -1 without waiting if the ring is full. */
+    long tryClaim() {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= entries.length) {
+                return -1;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        return sequence;
+    }
+
+    /** The entry for a claimed sequence, to be filled before {@link #publish}. */
+    E get(long sequence) {
+        return entries[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        published.setRelease((int) sequence & mask, sequence);
+    }
+
+    /**
+     * Hand up to {@code max} published entries to {@code consumer} in order, then free
+     * their slots. Only one thread may drain.
+     *
+     * @return the number of entries consumed
+     */
+    int drain(Consumer<E> consumer, int max) {
+        long next = consumed;
+        int count = 0;
+        while (count < max && published.getAcquire((int) next & mask) == next) {
+            consumer.accept(entries[(int) next & mask]);
+            next++;
+            count++;
+        }
+        consumed = next;
+        return count;
+    }
+
+    /** Sequences claimed so far; every one of them is consumed once {@link #consumedCount} reaches it. */
+    long claimedCount() {
+        return claimed.get();
+    }
+
+    long consumedCount() {
+        return consumed;
+    }
+
+    int size() {
+        return (int) Math.max(0, claimed.get() - consumed);
+    }
+}
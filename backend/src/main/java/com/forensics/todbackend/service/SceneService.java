@@ -0,0 +1,420 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.SceneBody;
+import com.forensics.todbackend.dto.SceneBodyResult;
+import com.forensics.todbackend.dto.SceneConsistency;
+import com.forensics.todbackend.dto.SceneRequest;
+import com.forensics.todbackend.dto.SceneResponse;
+import com.forensics.todbackend.dto.TimedReading;
+import com.forensics.todbackend.exception.ErrorCode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Joint estimate for bodies that cooled in one environment: a shared, constant ambient
+ * temperature Te and a k and time since death for each body.
+ *
+ * For a given Te each body's readings lie on a straight line in ln((T - Te)/(T0 - Te)), so
+ * its k and time since death have a closed-form {@link CoolingFit}. Weighting each reading by
+ * (T - Te)² makes that fit approximate least squares in °C. The residuals in °C of every
+ * reading of every body about its fitted curve, plus an optional thermometer reading, add up
+ * to one sum of squares that depends on Te alone; a reading at or below Te is scored against
+ * the curve like any other, so raising Te never drops the coldest readings from the sum.
+ * That profile is minimised by a coarse grid over the feasible range of Te and then
+ * golden-section search, with the bodies of each evaluation fitted in parallel. The bodies
+ * are then solved at the chosen Te in parallel, and their k values and residuals are
+ * compared across the scene. The work is linear in the total number of readings.
+ */
+@Service
+public class SceneService {
+
+    /** Profile evaluations spread over the feasible range of Te before refining */
+    private static final int GRID_POINTS = 32;
+    private static final double AMBIENT_TOLERANCE = 1e-4;
+    private static final double MIN_AMBIENT = -30.0;
+    private static final double INVERSE_PHI = (Math.sqrt(5.0) - 1.0) / 2.0;
+    private static final double ROBUST_Z_LIMIT = 3.5;
+    private static final double RESIDUAL_RATIO_LIMIT = 3.0;
+    /** Readings per leaf task: large enough to amortise forking, small enough to balance */
+    private static final int LEAF_READINGS = 1 << 13;
+
+    private final long maxReadings;
+    private final ForkJoinPool pool;
+
+    public SceneService(@Value("${tod.scene.max-readings:2000000}") long maxReadings,
+                        @Value("${tod.scene.parallelism:0}") int parallelism) {
+        this.maxReadings = maxReadings;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public Result<SceneResponse> estimate(SceneRequest request) {
+        List<SceneBody> bodies = request.getBodies();
+        long readings = 0;
+        for (SceneBody body : bodies) {
+            readings += body.getReadings().size();
+        }
+        if (readings > maxReadings) {
+            return Result.failure(ErrorCode.INVALID_INPUT,
+                    "Scene has " + readings + " readings; at most " + maxReadings + " are allowed");
+        }
+        Scene scene = new Scene(bodies, (int) readings);
+
+        // Te must stay below every normal temperature, and below two readings at different times of each body
+        double upper = Double.POSITIVE_INFINITY;
+        int usable = 0;
+        long spare = request.getAmbientTempC() != null ? 1 : 0;
+        for (int b = 0; b < scene.count; b++) {
+            if (scene.error[b] == null) {
+                upper = Math.min(upper, Math.min(scene.ceiling[b], scene.normal[b]) - CoolingKernel.MIN_TEMP_DIFFERENCE);
+                usable++;
+                spare += scene.start[b + 1] - scene.start[b] - 2;
+            }
+        }
+        if (usable == 0) {
+            return Result.failure(ErrorCode.INSUFFICIENT_READINGS, "No body has readings at two different times");
+        }
+        if (spare < 1) {
+            return Result.failure(ErrorCode.INSUFFICIENT_READINGS,
+                    "Fitting the ambient temperature needs a body with three readings, or the scene's ambientTempC");
+        }
+        if (!(upper > MIN_AMBIENT)) {
+            return Result.failure(ErrorCode.INVALID_READINGS,
+                    "Readings are too cold for any ambient temperature of at least " + MIN_AMBIENT + "°C");
+        }
+
+        Profile profile = new Profile(scene, request.getAmbientTempC(), request.getAmbientWeight());
+        double Te = profile.minimise(MIN_AMBIENT, upper);
+        Double ambientStandardError = profile.standardError(Te, MIN_AMBIENT, upper, spare);
+
+        // Solve every body at the shared Te
+        double[] k = new double[scene.count];
+        double[] hours = new double[scene.count];
+        double[] kError = new double[scene.count];
+        double[] squares = new double[scene.count];
+        double[] weights = new double[scene.count];
+        pool.invoke(new RangeTask(0, scene.count, scene.leafBodies, (from, to) -> {
+            for (int b = from; b < to; b++) {
+                solve(scene, b, Te, k, hours, kError, squares, weights);
+            }
+        }));
+
+        return Result.ok(respond(request, scene, Te, ambientStandardError, k, hours, kError, squares, weights));
+    }
+
+    private static void solve(Scene scene, int b, double Te, double[] k, double[] hours, double[] kError,
+                              double[] squares, double[] weights) {
+        if (scene.error[b] != null) {
+            return;
+        }
+        CoolingFit fit = scene.fit(b, Te);
+        if (!fit.isDetermined()) {
+            scene.fail(b, ErrorCode.INSUFFICIENT_READINGS, "Readings cannot be fitted at the scene's ambient temperature");
+            return;
+        }
+        k[b] = fit.k();
+        if (!(k[b] > 0 && k[b] <= CoolingKernel.MAX_K)) {
+            scene.fail(b, ErrorCode.K_OUT_OF_RANGE, "Fitted k is unreasonable: " + k[b]);
+            return;
+        }
+        double atFirstReading = fit.timeSinceDeathAtFirstReading();
+        if (!(atFirstReading >= 0)) {
+            scene.fail(b, ErrorCode.NEGATIVE_TIME, "Calculated time since death is negative");
+            return;
+        }
+        hours[b] = atFirstReading + scene.sinceFirstReading[b];
+        kError[b] = fit.kStandardError();
+        for (int r = scene.start[b]; r < scene.start[b + 1]; r++) {
+            double residual = scene.temps[r] - fit.fittedTemp(scene.hours[r]);
+            squares[b] += scene.weights[r] * residual * residual;
+            weights[b] += scene.weights[r];
+        }
+    }
+
+    private static SceneResponse respond(SceneRequest request, Scene scene, double Te, Double ambientStandardError,
+                                  double[] k, double[] hours, double[] kError, double[] squares, double[] weights) {
+        int solved = 0;
+        double pooledSquares = 0;
+        double pooledWeights = 0;
+        double[] solvedK = new double[scene.count];
+        for (int b = 0; b < scene.count; b++) {
+            if (scene.error[b] == null) {
+                solvedK[solved++] = k[b];
+                pooledSquares += squares[b];
+                pooledWeights += weights[b];
+            }
+        }
+        double pooledRms = solved > 0 ? Math.sqrt(pooledSquares / pooledWeights) : Double.NaN;
+        double kMedian = solved > 0 ? median(Arrays.copyOf(solvedK, solved)) : Double.NaN;
+        double kSpread = Double.NaN;
+        if (solved > 0) {
+            double[] deviations = new double[solved];
+            for (int i = 0; i < solved; i++) {
+                deviations[i] = Math.abs(solvedK[i] - kMedian);
+            }
+            // Scaled to the standard deviation for normally distributed k
+            kSpread = 1.4826 * median(deviations);
+        }
+        // Too few bodies, or identical k values, leave nothing to compare against
+        boolean compareK = solved >= 3 && kSpread > 0;
+
+        List<SceneBodyResult> results = new ArrayList<>(scene.count);
+        List<String> kOutliers = new ArrayList<>();
+        List<String> residualOutliers = new ArrayList<>();
+        for (int b = 0; b < scene.count; b++) {
+            if (scene.error[b] != null) {
+                results.add(SceneBodyResult.builder()
+                        .bodyId(scene.id[b])
+                        .readings(scene.start[b + 1] - scene.start[b])
+                        .error(scene.error[b])
+                        .message(scene.message[b])
+                        .build());
+                continue;
+            }
+            int count = scene.start[b + 1] - scene.start[b];
+            double rms = Math.sqrt(squares[b] / weights[b]);
+            Double z = compareK ? round((k[b] - kMedian) / kSpread, 100.0) : null;
+            if (z != null && Math.abs(z) > ROBUST_Z_LIMIT) {
+                kOutliers.add(scene.id[b]);
+            }
+            if (count >= 3 && pooledRms > 0 && rms > RESIDUAL_RATIO_LIMIT * pooledRms) {
+                residualOutliers.add(scene.id[b]);
+            }
+            results.add(SceneBodyResult.builder()
+                    .bodyId(scene.id[b])
+                    .k(k[b])
+                    .kStandardError(Double.isNaN(kError[b]) ? null : kError[b])
+                    .timeSinceDeathHours(round(hours[b], 100.0))
+                    .estimatedTimeOfDeath(TodService.calculateTimeOfDeath(request.getSceneDateTime(), hours[b]))
+                    .readings(count)
+                    .rmsResidualC(round(rms, 1000.0))
+                    .kRobustZ(z)
+                    .build());
+        }
+
+        SceneConsistency consistency = SceneConsistency.builder()
+                .consistent(kOutliers.isEmpty() && residualOutliers.isEmpty())
+                .rmsResidualC(solved > 0 ? round(pooledRms, 1000.0) : null)
+                .kMedian(solved > 0 ? kMedian : null)
+                .kSpread(solved > 0 ? kSpread : null)
+                .kOutliers(kOutliers)
+                .residualOutliers(residualOutliers)
+                .ambientOffsetC(request.getAmbientTempC() != null ? round(Te - request.getAmbientTempC(), 100.0) : null)
+                .build();
+
+        return SceneResponse.builder()
+                .ambientTempC(round(Te, 100.0))
+                .ambientStandardErrorC(ambientStandardError != null ? round(ambientStandardError, 1000.0) : null)
+                .estimatedBodies(solved)
+                .results(results)
+                .consistency(consistency)
+                .build();
+    }
+
+    private static double median(double[] values) {
+        Arrays.sort(values);
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2.0;
+    }
+
+    private static double round(double value, double scale) {
+        return Math.round(value * scale) / scale;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** A scene's readings, flattened body after body */
+    private static final class Scene {
+        final int count;
+        final String[] id;
+        final int[] start;
+        final double[] hours;
+        final double[] temps;
+        final double[] weights;
+        final double[] normal;
+        final double[] sinceFirstReading;
+        final double[] ceiling;
+        final ErrorCode[] error;
+        final String[] message;
+        final int leafBodies;
+
+        Scene(List<SceneBody> bodies, int readings) {
+            count = bodies.size();
+            id = new String[count];
+            start = new int[count + 1];
+            hours = new double[readings];
+            temps = new double[readings];
+            weights = new double[readings];
+            normal = new double[count];
+            sinceFirstReading = new double[count];
+            ceiling = new double[count];
+            error = new ErrorCode[count];
+            message = new String[count];
+            leafBodies = Math.max(1, (int) ((long) LEAF_READINGS * count / Math.max(1, readings)));
+
+            int r = 0;
+            for (int b = 0; b < count; b++) {
+                SceneBody body = bodies.get(b);
+                id[b] = body.getBodyId() != null ? body.getBodyId() : String.valueOf(b);
+                normal[b] = body.getNormalBodyTempC();
+                sinceFirstReading[b] = body.getTimeSinceFirstReadingHours();
+                start[b] = r;
+                int warmest = r;
+                for (TimedReading reading : body.getReadings()) {
+                    hours[r] = reading.getHoursFromFirst();
+                    temps[r] = reading.getBodyTempC();
+                    weights[r] = reading.getWeight() != null ? reading.getWeight() : 1.0;
+                    if (temps[r] > temps[warmest]) {
+                        warmest = r;
+                    }
+                    r++;
+                }
+                // The warmest reading at another time than the warmest one: above it, the fit has two times
+                ceiling[b] = Double.NEGATIVE_INFINITY;
+                for (int i = start[b]; i < r; i++) {
+                    if (hours[i] != hours[warmest]) {
+                        ceiling[b] = Math.max(ceiling[b], temps[i]);
+                    }
+                }
+                if (ceiling[b] == Double.NEGATIVE_INFINITY) {
+                    fail(b, ErrorCode.INSUFFICIENT_READINGS, "Readings must be taken at two different times at least");
+                }
+            }
+            start[count] = r;
+        }
+
+        void fail(int b, ErrorCode code, String reason) {
+            error[b] = code;
+            message[b] = reason;
+        }
+
+        /**
+         * Body {@code b} fitted at {@code Te}, each reading weighted so its residual is in °C.
+         * Readings at or below Te cannot be fitted and are left out; {@link #squares} still
+         * counts them.
+         */
+        CoolingFit fit(int b, double Te) {
+            CoolingFit fit = new CoolingFit(normal[b], Te);
+            for (int r = start[b]; r < start[b + 1]; r++) {
+                double excess = temps[r] - Te;
+                fit.add(hours[r], temps[r], weights[r] * excess * excess);
+            }
+            return fit;
+        }
+
+        /**
+         * Weighted squared residuals in °C of every reading of body {@code b} about its fit at
+         * {@code Te}. The fitted curve never drops to Te, so a reading at or below it costs at
+         * least its distance below Te squared rather than dropping out of the sum.
+         */
+        double squares(int b, double Te) {
+            CoolingFit fit = fit(b, Te);
+            if (!fit.isDetermined()) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double sum = 0.0;
+            for (int r = start[b]; r < start[b + 1]; r++) {
+                double residual = temps[r] - fit.fittedTemp(hours[r]);
+                sum += weights[r] * residual * residual;
+            }
+            return sum;
+        }
+    }
+
+    /** Weighted sum of squared residuals in °C over the whole scene, as a function of Te */
+    private final class Profile {
+        private final Scene scene;
+        private final Double measured;
+        private final double measuredWeight;
+        private final double[] bodySquares;
+
+        Profile(Scene scene, Double measured, Double measuredWeight) {
+            this.scene = scene;
+            this.measured = measured;
+            this.measuredWeight = measuredWeight != null ? measuredWeight : 1.0;
+            this.bodySquares = new double[scene.count];
+        }
+
+        double at(double Te) {
+            pool.invoke(new RangeTask(0, scene.count, scene.leafBodies, (from, to) -> {
+                for (int b = from; b < to; b++) {
+                    bodySquares[b] = scene.error[b] == null ? scene.squares(b, Te) : 0.0;
+                }
+            }));
+            // Summed in body order so the result does not depend on how the work was split
+            double sum = 0.0;
+            for (double squares : bodySquares) {
+                sum += squares;
+            }
+            if (measured != null) {
+                sum += measuredWeight * (Te - measured) * (Te - measured);
+            }
+            return sum;
+        }
+
+        /** Grid search over [lower, upper], then golden-section search around the best grid point */
+        double minimise(double lower, double upper) {
+            double step = (upper - lower) / (GRID_POINTS - 1);
+            int best = 0;
+            double bestValue = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < GRID_POINTS; i++) {
+                double value = at(lower + i * step);
+                if (value < bestValue) {
+                    best = i;
+                    bestValue = value;
+                }
+            }
+
+            double a = lower + Math.max(0, best - 1) * step;
+            double c = lower + Math.min(GRID_POINTS - 1, best + 1) * step;
+            double x1 = c - INVERSE_PHI * (c - a);
+            double x2 = a + INVERSE_PHI * (c - a);
+            double f1 = at(x1);
+            double f2 = at(x2);
+            while (c - a > AMBIENT_TOLERANCE) {
+                if (f1 <= f2) {
+                    c = x2;
+                    x2 = x1;
+                    f2 = f1;
+                    x1 = c - INVERSE_PHI * (c - a);
+                    f1 = at(x1);
+                } else {
+                    a = x1;
+                    x1 = x2;
+                    f1 = f2;
+                    x2 = a + INVERSE_PHI * (c - a);
+                    f2 = at(x2);
+                }
+            }
+            double refined = f1 <= f2 ? x1 : x2;
+            return Math.min(f1, f2) <= bestValue ? refined : lower + best * step;
+        }
+
+        /**
+         * Standard error of Te from the curvature of the profile at its minimum, or null if
+         * the minimum is at the edge of the range or the fit has no spare observations.
+         */
+        Double standardError(double Te, double lower, double upper, long spareObservations) {
+            double h = 0.01;
+            long degreesOfFreedom = spareObservations - 1;
+            if (degreesOfFreedom < 1 || Te - h < lower || Te + h > upper) {
+                return null;
+            }
+            double centre = at(Te);
+            double curvature = (at(Te + h) - 2.0 * centre + at(Te - h)) / (h * h);
+            if (!(curvature > 0)) {
+                return null;
+            }
+            double variance = centre / degreesOfFreedom;
+            return Math.sqrt(2.0 * variance / curvature);
+        }
+    }
+}
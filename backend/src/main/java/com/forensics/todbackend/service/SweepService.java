@@ -0,0 +1,127 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.SweepAxis;
+import com.forensics.todbackend.dto.SweepRequest;
+import com.forensics.todbackend.dto.SweepResponse;
+import com.forensics.todbackend.exception.ErrorCode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Sensitivity sweep of the Newton time-since-death formula over a grid of ambient
+ * temperature, k and body temperature.
+ *
+ * t = -ln((T - Te)/(T0 - Te)) / k, so the logarithm and the validity checks depend only on
+ * the (Te, T) pair. They are computed once per pair, which leaves one multiplication per
+ * grid cell. Both passes are split into fork/join tasks over contiguous index ranges.
+ */
+@Service
+public class SweepService {
+
+    /** Cells per leaf task: large enough to amortise forking, small enough to balance */
+    private static final int LEAF_CELLS = 1 << 15;
+
+    private final long maxCells;
+    private final ForkJoinPool pool;
+
+    public SweepService(@Value("${tod.sweep.max-cells:5000000}") long maxCells,
+                        @Value("${tod.sweep.parallelism:0}") int parallelism) {
+        this.maxCells = maxCells;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public Result<SweepResponse> sweep(SweepRequest request) {
+        double[] ambient = values(request.getAmbientTempC());
+        double[] k = values(request.getK());
+        double[] body = values(request.getBodyTempC());
+        long cells = (long) ambient.length * k.length * body.length;
+        if (cells > maxCells) {
+            return Result.failure(ErrorCode.INVALID_INPUT,
+                    "Sweep grid has " + cells + " cells; at most " + maxCells + " are allowed");
+        }
+        double T0 = request.getNormalBodyTempC();
+        int na = ambient.length;
+        int nk = k.length;
+        int nb = body.length;
+
+        // Pass 1: -ln(ratio) and status for every (ambient, body) pair
+        double[] logRatio = new double[na * nb];
+        byte[] pairStatus = new byte[na * nb];
+        pool.invoke(new RangeTask(0, na * nb, LEAF_CELLS, (from, to) -> {
+            for (int p = from; p < to; p++) {
+                double Te = ambient[p / nb];
+                double Tt = body[p % nb];
+                byte status = CoolingKernel.timeSinceDeathStatus(T0, Te, Tt, 1.0);
+                pairStatus[p] = status;
+                logRatio[p] = status == CoolingKernel.OK ? -Math.log((Tt - Te) / (T0 - Te)) : Double.NaN;
+            }
+        }));
+
+        double[] inverseK = new double[nk];
+        int invalidK = 0;
+        for (int j = 0; j < nk; j++) {
+            boolean valid = k[j] > 0 && k[j] <= CoolingKernel.MAX_K;
+            inverseK[j] = valid ? 1.0 / k[j] : Double.NaN;
+            invalidK += valid ? 0 : 1;
+        }
+
+        // Pass 2: one multiplication per cell; rows are (ambient, k) pairs of nb cells each
+        float[] hours = new float[(int) cells];
+        int rowsPerLeaf = Math.max(1, LEAF_CELLS / nb);
+        pool.invoke(new RangeTask(0, na * nk, rowsPerLeaf, (from, to) -> {
+            for (int row = from; row < to; row++) {
+                double scale = inverseK[row % nk];
+                int pairs = (row / nk) * nb;
+                int cell = row * nb;
+                for (int b = 0; b < nb; b++) {
+                    // NaN for an invalid pair or k, so one comparison marks both
+                    double t = logRatio[pairs + b] * scale;
+                    hours[cell + b] = t >= 0 ? (float) (Math.round(t * 100.0) / 100.0) : -1f;
+                }
+            }
+        }));
+
+        // An invalid k invalidates its whole slice; otherwise each invalid pair repeats once per valid k
+        Map<ErrorCode, Long> reasons = new EnumMap<>(ErrorCode.class);
+        if (invalidK > 0) {
+            reasons.put(ErrorCode.K_OUT_OF_RANGE, (long) invalidK * na * nb);
+        }
+        long validK = nk - invalidK;
+        if (validK > 0) {
+            for (byte status : pairStatus) {
+                if (status != CoolingKernel.OK) {
+                    reasons.merge(ErrorCode.fromKernelStatus(status), validK, Long::sum);
+                }
+            }
+        }
+        long invalidCells = reasons.values().stream().mapToLong(Long::longValue).sum();
+
+        return Result.ok(SweepResponse.builder()
+                .ambientTempC(ambient)
+                .k(k)
+                .bodyTempC(body)
+                .hours(hours)
+                .cells(cells)
+                .invalidCells(invalidCells)
+                .invalidReasons(reasons)
+                .build());
+    }
+
+    private static double[] values(SweepAxis axis) {
+        double[] values = new double[axis.getSteps()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = axis.value(i);
+        }
+        return values;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
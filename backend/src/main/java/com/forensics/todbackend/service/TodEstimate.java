@@ -0,0 +1,24 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.TodEstimateResponse;
+
+/**
+ * Result of an estimate before it is placed on the calendar.
+ *
+ * {@code template} carries everything except the time-of-death dates and the steps and
+ * warnings, which {@code trace} holds until they are rendered for a request. The raw hour
+ * values are kept unrounded so the dates can be derived later for any
+ * {@code sceneDateTime}, which lets one computed estimate serve many requests.
+ * The uncertainty hours are NaN when no uncertainty analysis was requested.
+ */
+public record TodEstimate(TodEstimateResponse template,
+                          CalculationTrace trace,
+                          double timeSinceDeathHours,
+                          double hoursLower95,
+                          double hoursMedian,
+                          double hoursUpper95) {
+
+    public static TodEstimate of(TodEstimateResponse template, CalculationTrace trace, double timeSinceDeathHours) {
+        return new TodEstimate(template, trace, timeSinceDeathHours, Double.NaN, Double.NaN, Double.NaN);
+    }
+}
@@ -0,0 +1,118 @@
+package com.forensics.todbackend.service;
+
+import com.forensics.todbackend.dto.CoolingModel;
+import com.forensics.todbackend.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Micrometer instruments for the estimate hot path.
+ *
+ * Every meter is registered up front and held in a field or enum map, so recording
+ * costs no registry lookup. {@link #NOOP} records nothing; it is used when the
+ * service runs outside a Spring context.
+ */
+@Component
+public class TodMetrics {
+
+    public static final TodMetrics NOOP = new TodMetrics(new CompositeMeterRegistry());
+
+    private static final Pattern LIST_INDEX = Pattern.compile("\\[\\d+]");
+
+    private final MeterRegistry registry;
+    private final Map<KSource, Timer> kTimers = new EnumMap<>(KSource.class);
+    private final Map<CoolingModel, Timer> solveTimers = new EnumMap<>(CoolingModel.class);
+    private final Map<ErrorCode, Counter> validationErrors = new EnumMap<>(ErrorCode.class);
+    private final Map<String, Counter> fieldErrors = new ConcurrentHashMap<>();
+    private final Timer stepsTimer;
+    private final Timer dateTimer;
+    private final Timer uncertaintyTimer;
+    private final Timer curveTimer;
+    private final DistributionSummary kValues;
+
+    public TodMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        for (KSource source : KSource.values()) {
+            kTimers.put(source, stageTimer("k_determination").tag("source", source.tag()).register(registry));
+        }
+        for (CoolingModel model : CoolingModel.values()) {
+            solveTimers.put(model, stageTimer("solve").tag("model", model.name().toLowerCase()).register(registry));
+        }
+        for (ErrorCode code : ErrorCode.values()) {
+            validationErrors.put(code, Counter.builder("tod.validation.errors")
+                    .description("Rejected estimates by cause")
+                    .tag("cause", code.name().toLowerCase())
+                    .register(registry));
+        }
+
+        this.stepsTimer = stageTimer("steps").register(registry);
+        this.dateTimer = stageTimer("tod_date").register(registry);
+        this.uncertaintyTimer = stageTimer("uncertainty").register(registry);
+        this.curveTimer = stageTimer("curve").register(registry);
+        this.kValues = DistributionSummary.builder("tod.estimate.k")
+                .description("Cooling constant k used for each estimate")
+                .baseUnit("per_hour")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(0.001)
+                .maximumExpectedValue(CoolingKernel.MAX_K)
+                .register(registry);
+    }
+
+    private static Timer.Builder stageTimer(String stage) {
+        return Timer.builder("tod.estimate.stage")
+                .description("Time spent in each stage of an estimate")
+                .tag("stage", stage);
+    }
+
+    public void recordKDetermination(KSource source, long nanos, double k) {
+        kTimers.get(source).record(nanos, TimeUnit.NANOSECONDS);
+        kValues.record(k);
+    }
+
+    public void recordSolve(CoolingModel model, long nanos) {
+        solveTimers.get(model).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSteps(long nanos) {
+        stepsTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDate(long nanos) {
+        dateTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUncertainty(long nanos) {
+        uncertaintyTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCurve(long nanos) {
+        curveTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void validationError(ErrorCode code) {
+        validationErrors.get(code).increment();
+    }
+
+    /**
+     * Bean-validation failure on a request field. List indices are stripped from the
+     * property path so the tag stays bounded by the DTO fields.
+     */
+    public void fieldError(String field) {
+        fieldErrors.computeIfAbsent(LIST_INDEX.matcher(field).replaceAll("[]"), name -> Counter.builder("tod.validation.errors")
+                .description("Rejected estimates by cause")
+                .tag("cause", "field_validation")
+                .tag("field", name)
+                .register(registry)).increment();
+    }
+}
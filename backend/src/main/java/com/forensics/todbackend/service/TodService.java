@@ -1,19 +1,43 @@
 package com.forensics.todbackend.service;
 
+import com.forensics.todbackend.dto.AmbientReading;
+import com.forensics.todbackend.dto.CalibrationResult;
+import com.forensics.todbackend.dto.CoolingModel;
+import com.forensics.todbackend.dto.CurveResult;
+import com.forensics.todbackend.dto.CurveSpec;
+import com.forensics.todbackend.dto.ExplainLevel;
+import com.forensics.todbackend.dto.FitSummary;
+import com.forensics.todbackend.dto.SecondReading;
+import com.forensics.todbackend.dto.StepCode;
+import com.forensics.todbackend.dto.TimedReading;
 import com.forensics.todbackend.dto.TodEstimateRequest;
 import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.dto.UncertaintyResult;
+import com.forensics.todbackend.dto.UncertaintySpec;
+import com.forensics.todbackend.dto.WarningCode;
+import com.forensics.todbackend.exception.ErrorCode;
 import com.forensics.todbackend.exception.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
 
 @Service
 public class TodService {
 
+    @Autowired(required = false)
+    private TodMetrics metrics = TodMetrics.NOOP;
+
+    @Autowired(required = false)
+    private CalibrationService calibration;
+
     /**
      * Estimate cooling constant k from two temperature readings
      * Using Newton's Law of Cooling: T(t) = Te + (T0 - Te) * e^(-k*t)
@@ -23,147 +47,714 @@ public class TodService {
      * @param T1 First body temperature reading
      * @param T2 Second body temperature reading
      * @param deltaHours Time difference between readings
-     * @return Estimated cooling constant k
+     * @return Estimated cooling constant k, or the reason it could not be estimated
+     */
+    public Result<Double> estimateK(double T0, double Te, double T1, double T2, double deltaHours) {
+        double k = CoolingKernel.k(T0, Te, T1, T2, deltaHours);
+        if (Double.isNaN(k)) {
+            byte status = CoolingKernel.kStatus(T0, Te, T1, T2, deltaHours);
+            return Result.failure(ErrorCode.fromKernelStatus(status), validationMessage(status,
+                    -(1.0 / deltaHours) * Math.log((T2 - Te) / (T1 - Te))));
+        }
+        return Result.ok(k);
+    }
+
+    /**
+     * Estimate time since death using Newton's Law of Cooling
+     * 
+     * @param T0 Normal body temperature at death
+     * @param Te Ambient temperature
+     * @param Tt Current body temperature
+     * @param k Cooling constant
+     * @return Time since death in hours, or the reason it could not be calculated
      */
-    public double estimateK(double T0, double Te, double T1, double T2, double deltaHours) {
-        // Check for valid inputs
-        if (Math.abs(T0 - Te) < 0.1) {
-            throw new ValidationException("Normal body temperature and ambient temperature too close");
+    public Result<Double> estimateTimeSinceDeath(double T0, double Te, double Tt, double k) {
+        double t = CoolingKernel.timeSinceDeath(T0, Te, Tt, k);
+        if (Double.isNaN(t)) {
+            byte status = CoolingKernel.timeSinceDeathStatus(T0, Te, Tt, k);
+            return Result.failure(ErrorCode.fromKernelStatus(status), validationMessage(status, (Tt - Te) / (T0 - Te)));
         }
+        return Result.ok(t);
+    }
 
-        double R1 = (T1 - Te) / (T0 - Te);
-        double R2 = (T2 - Te) / (T0 - Te);
+    private static String validationMessage(byte status, double value) {
+        return switch (status) {
+            case CoolingKernel.TEMPS_TOO_CLOSE -> "Normal body temperature and ambient temperature too close";
+            case CoolingKernel.INVALID_READINGS -> "Invalid temperature readings for k estimation";
+            case CoolingKernel.READINGS_NOT_DECREASING -> "Second reading should be lower than first reading";
+            case CoolingKernel.K_OUT_OF_RANGE -> "Estimated k is unreasonable: " + value;
+            case CoolingKernel.BODY_NEAR_AMBIENT -> "Current body temperature too close to ambient temperature";
+            case CoolingKernel.RATIO_OUT_OF_RANGE -> "Invalid temperature ratio for time calculation: " + value;
+            case CoolingKernel.NEGATIVE_TIME -> "Calculated time since death is negative";
+            default -> "Invalid input";
+        };
+    }
 
-        if (R1 <= 0 || R2 <= 0) {
-            throw new ValidationException("Invalid temperature readings for k estimation");
+    /**
+     * Process TOD estimation request and return comprehensive response
+     *
+     * @throws ValidationException if the inputs are physically invalid
+     */
+    public TodEstimateResponse processTodEstimate(TodEstimateRequest request) {
+        return tryProcessTodEstimate(request).orThrow();
+    }
+
+    /**
+     * Same as {@link #processTodEstimate} but reports invalid input as a failed result
+     */
+    public Result<TodEstimateResponse> tryProcessTodEstimate(TodEstimateRequest request) {
+        Result<TodEstimateResponse> curve = checkCurve(request);
+        if (!curve.isOk()) {
+            return curve;
         }
+        Result<TodEstimate> estimate = tryComputeEstimate(request);
+        return estimate.isOk()
+                ? Result.ok(render(estimate.value(), request))
+                : estimate.propagate();
+    }
 
-        if (R2 >= R1) {
-            throw new ValidationException("Second reading should be lower than first reading");
+    /**
+     * Run the calculation without resolving calendar dates; see {@link #render}
+     *
+     * @throws ValidationException if the inputs are physically invalid
+     */
+    public TodEstimate computeEstimate(TodEstimateRequest request) {
+        return tryComputeEstimate(request).orThrow();
+    }
+
+    /**
+     * Check the request's cooling-curve options. The curve is drawn in {@link #render}, after any
+     * cache lookup, so callers check it on every request rather than with the estimate
+     */
+    public <T> Result<T> checkCurve(TodEstimateRequest request) {
+        if (request.hasCurve()) {
+            if (request.usesHenssgeModel() || request.hasAmbientSeries()) {
+                return Result.failure(ErrorCode.UNSUPPORTED_OPTION,
+                        "A cooling curve is only available for the Newton model with a constant ambient temperature");
+            }
+            CurveSpec curve = request.getCurve();
+            if (curve.getToHours() != null && !(curve.getToHours() > curve.getFromHours())) {
+                return Result.failure(ErrorCode.INVALID_INPUT, "Curve end must be after its start");
+            }
         }
+        return Result.ok(null);
+    }
 
-        // k = -(1/Δt) * ln(R2/R1)
-        double k = -(1.0 / deltaHours) * Math.log(R2 / R1);
+    public Result<TodEstimate> tryComputeEstimate(TodEstimateRequest request) {
+        if (request.usesHenssgeModel()) {
+            return computeHenssgeEstimate(request);
+        }
+        if (request.hasAmbientSeries()) {
+            return computeVaryingAmbientEstimate(request);
+        }
+
+        CalculationTrace trace = new CalculationTrace();
 
-        if (k <= 0 || k > 5.0) {
-            throw new ValidationException("Estimated k is unreasonable: " + k);
+        double k;
+        double T0 = request.getNormalBodyTempC();
+        double Te = request.getAmbientTempC();
+        double T1 = request.getBodyTempC();
+
+        // Step 1: Determine or estimate k
+        long started = System.nanoTime();
+        KSource source;
+        CoolingFit fit = null;
+        CalibrationTable table = calibration != null && request.hasBodyMass() ? calibration.table() : null;
+        if (request.hasReadings()) {
+            // Least-squares fit over the first reading plus every later reading
+            Result<CoolingFit> fitted = fitReadings(request);
+            if (!fitted.isOk()) {
+                return fitted.propagate();
+            }
+            fit = fitted.value();
+            k = fit.k();
+            source = KSource.READINGS_FIT;
+        } else if (request.hasSecondReading()) {
+            // Estimate k from two readings
+            Result<Double> estimated = estimateK(T0, Te, T1, request.getSecondReading().getBodyTempC(),
+                    request.getSecondReading().getDeltaHoursFromFirst());
+            if (!estimated.isOk()) {
+                return estimated.propagate();
+            }
+            k = estimated.value();
+            source = KSource.TWO_READINGS;
+        } else if (request.hasProvidedK()) {
+            k = request.getK();
+            source = KSource.PROVIDED;
+        } else if (table != null && !Double.isNaN(k = table.k(request.getBodyMassKg(), request.getClothingLayers(),
+                request.getMedium(), request.getWindSpeedMs(), request.getPosture()))) {
+            source = KSource.CALIBRATION;
+        } else {
+            // Use default k (typical range 0.1-0.3 h⁻¹ for humans)
+            k = CoolingKernel.DEFAULT_K; // Commonly used default value
+            source = KSource.DEFAULT;
         }
+        metrics.recordKDetermination(source, System.nanoTime() - started, k);
 
-        return k;
+        // Step 2: Calculate time since death
+        started = System.nanoTime();
+        double timeSinceFirstReading = request.getTimeSinceFirstReadingHours();
+        double timeSinceDeath;
+        if (fit != null) {
+            // Use the fitted curve at the first reading rather than the single measured T1
+            double fittedHours = fit.timeSinceDeathAtFirstReading();
+            if (!(fittedHours >= 0)) {
+                return Result.failure(ErrorCode.NEGATIVE_TIME, "Calculated time since death is negative");
+            }
+            timeSinceDeath = fittedHours + timeSinceFirstReading;
+        } else {
+            Result<Double> solved = estimateTimeSinceDeath(T0, Te, T1, k);
+            if (!solved.isOk()) {
+                return solved.propagate();
+            }
+            timeSinceDeath = solved.value() + timeSinceFirstReading;
+        }
+        metrics.recordSolve(CoolingModel.NEWTON, System.nanoTime() - started);
+
+        // Record the calculation steps; their text is only rendered if a request asks for it
+        started = System.nanoTime();
+        CalibrationResult calibrationResult = null;
+        trace.step(StepCode.NEWTON_LAW);
+        trace.step(StepCode.NEWTON_WHERE, T0, Te);
+
+        switch (source) {
+            case READINGS_FIT -> {
+                trace.step(StepCode.FIT_READINGS, fit.count());
+                trace.step(StepCode.FIT_MODEL);
+                if (fit.count() > 2) {
+                    trace.step(StepCode.FIT_K_WITH_ERROR, k, fit.kStandardError());
+                } else {
+                    trace.step(StepCode.FIT_K, k);
+                }
+                trace.warn(WarningCode.K_FIT_CONSTANT_AMBIENT);
+            }
+            case TWO_READINGS -> {
+                double T2 = request.getSecondReading().getBodyTempC();
+                double deltaHours = request.getSecondReading().getDeltaHoursFromFirst();
+                trace.step(StepCode.TWO_READINGS);
+                trace.step(StepCode.TWO_READINGS_VALUES, T1, T2, deltaHours);
+                trace.step(StepCode.RATIO_R1, (T1 - Te)/(T0 - Te));
+                trace.step(StepCode.RATIO_R2, (T2 - Te)/(T0 - Te));
+                trace.step(StepCode.K_FROM_TWO_READINGS, k);
+                trace.warn(WarningCode.K_TWO_READINGS_CONSTANT_AMBIENT);
+            }
+            case PROVIDED -> {
+                trace.step(StepCode.K_PROVIDED, k);
+                trace.warn(WarningCode.PROVIDED_K);
+            }
+            case CALIBRATION -> {
+                calibrationResult = table.describe(request.getBodyMassKg(), request.getClothingLayers(),
+                        request.getMedium(), request.getWindSpeedMs(), request.getPosture());
+                trace.step(StepCode.K_CALIBRATED, k, request.getBodyMassKg(), request.getClothingLayers(),
+                        request.getMedium().ordinal(), request.getWindSpeedMs(), request.getPosture().ordinal());
+                if (calibrationResult.getClamped()) {
+                    trace.warn(WarningCode.CALIBRATION_CLAMPED);
+                }
+            }
+            default -> {
+                trace.step(StepCode.K_DEFAULT, k);
+                trace.warn(WarningCode.DEFAULT_K);
+            }
+        }
+
+        trace.step(StepCode.TIME_HEADER);
+        if (fit != null) {
+            trace.step(StepCode.TIME_FIT_FORMULA);
+            trace.step(StepCode.TIME_FIT_VALUES, fit.intercept(), k, timeSinceFirstReading);
+        } else {
+            trace.step(StepCode.TIME_FORMULA);
+            trace.step(StepCode.TIME_VALUES, k, T1, Te, T0, timeSinceFirstReading);
+        }
+        trace.step(StepCode.TIME_RESULT, timeSinceDeath);
+
+        // Step 3: The estimated time of death is resolved against sceneDateTime in render()
+
+        // Add warnings based on conditions
+        if (Math.abs(T1 - Te) < 2.0) {
+            trace.warn(WarningCode.BODY_NEAR_AMBIENT);
+        }
+        if (timeSinceDeath > 24) {
+            trace.warn(WarningCode.LONG_INTERVAL);
+        }
+        if (Math.abs(T0 - 37.0) > 1.0) {
+            trace.warn(WarningCode.NON_STANDARD_NORMAL_TEMP);
+        }
+
+        trace.warn(source == KSource.CALIBRATION ? WarningCode.CALIBRATED_ASSUMPTIONS : WarningCode.NEWTON_ASSUMPTIONS);
+        trace.warn(WarningCode.NOT_FOR_LEGAL_USE);
+        metrics.recordSteps(System.nanoTime() - started);
+
+        UncertaintyResult uncertainty = null;
+        Interval interval = null;
+        if (request.hasUncertainty()) {
+            started = System.nanoTime();
+            Result<Interval> sampled = estimateUncertainty(request, k, fit);
+            metrics.recordUncertainty(System.nanoTime() - started);
+            if (!sampled.isOk()) {
+                return sampled.propagate();
+            }
+            interval = sampled.value();
+            uncertainty = interval.result();
+            trace.step(StepCode.UNCERTAINTY, uncertainty.getValidSamples(), uncertainty.getSamples(),
+                    uncertainty.getHoursLower95(), uncertainty.getHoursUpper95());
+            if (uncertainty.getValidSamples() < uncertainty.getSamples() * 0.95) {
+                trace.warn(WarningCode.UNCERTAINTY_INVALID_DRAWS);
+            }
+        }
+
+        TodEstimateResponse template = TodEstimateResponse.builder()
+                .model(CoolingModel.NEWTON)
+                .k(k)
+                .timeSinceDeathHours(Math.round(timeSinceDeath * 100.0) / 100.0)
+                .uncertainty(uncertainty)
+                .fit(fit != null ? summarizeFit(request, fit) : null)
+                .calibration(calibrationResult)
+                .build();
+
+        return Result.ok(interval == null
+                ? TodEstimate.of(template, trace, timeSinceDeath)
+                : new TodEstimate(template, trace, timeSinceDeath, interval.lower(), interval.median(), interval.upper()));
     }
 
     /**
-     * Estimate time since death using Newton's Law of Cooling
-     * 
-     * @param T0 Normal body temperature at death
-     * @param Te Ambient temperature
-     * @param Tt Current body temperature
-     * @param k Cooling constant
-     * @return Time since death in hours
+     * Resolve an estimate's hours into calendar times relative to the request's
+     * {@code sceneDateTime} (or now), and explain it as far as the request's explain level asks
+     */
+    public TodEstimateResponse render(TodEstimate estimate, TodEstimateRequest request) {
+        long started = System.nanoTime();
+        String sceneDateTime = request.getSceneDateTime();
+        TodEstimateResponse template = estimate.template();
+        TodEstimateResponse.TodEstimateResponseBuilder response = template.toBuilder()
+                .caseId(request.getCaseId())
+                .estimatedTimeOfDeath(calculateTimeOfDeath(sceneDateTime, estimate.timeSinceDeathHours()));
+
+        ExplainLevel explain = request.explainLevel();
+        if (explain != ExplainLevel.NONE) {
+            CalculationTrace trace = estimate.trace();
+            response.trace(trace.steps()).warningCodes(trace.warningCodes());
+            if (explain == ExplainLevel.FULL) {
+                response.steps(trace.stepText()).warnings(trace.warningText());
+            }
+        }
+        if (template.getUncertainty() != null) {
+            response.uncertainty(template.getUncertainty().toBuilder()
+                    .timeOfDeathEarliest95(calculateTimeOfDeath(sceneDateTime, estimate.hoursUpper95()))
+                    .timeOfDeathMedian(calculateTimeOfDeath(sceneDateTime, estimate.hoursMedian()))
+                    .timeOfDeathLatest95(calculateTimeOfDeath(sceneDateTime, estimate.hoursLower95()))
+                    .build());
+        }
+        metrics.recordDate(System.nanoTime() - started);
+
+        if (request.hasCurve()) {
+            started = System.nanoTime();
+            response.curve(coolingCurve(estimate, request));
+            metrics.recordCurve(System.nanoTime() - started);
+        }
+        return response.build();
+    }
+
+    /**
+     * Estimate rows {@code [from, to)} of a bulk-job chunk on the Newton path of {@link #tryComputeEstimate}
+     * (second reading, else given k, else default), without building request or response objects per row.
+     * Rows with an input error are skipped; rows with a scene time also get their time of death.
+     */
+    void estimateChunk(EstimateChunk chunk, int from, int to) {
+        CoolingKernel.evaluate(chunk.ambientTempC, chunk.bodyTempC, chunk.normalBodyTempC, chunk.k,
+                chunk.secondBodyTempC, chunk.deltaHours, chunk.offsetHours,
+                chunk.kOut, chunk.hoursOut, chunk.status, from, to);
+        for (int i = from; i < to; i++) {
+            if (chunk.inputError[i] == null && chunk.status[i] == CoolingKernel.OK && chunk.sceneDateTime[i] != null) {
+                chunk.timeOfDeath[i] = calculateTimeOfDeath(chunk.sceneDateTime[i], chunk.hoursOut[i]);
+            }
+        }
+    }
+
+    /**
+     * Sample the cooling curve over the requested window, downsample it, and mark each
+     * reading at its time since death.
      */
-    public double estimateTimeSinceDeath(double T0, double Te, double Tt, double k) {
-        // Check for valid inputs
-        if (Math.abs(T0 - Te) < 0.1) {
-            throw new ValidationException("Normal body temperature and ambient temperature too close");
+    private CurveResult coolingCurve(TodEstimate estimate, TodEstimateRequest request) {
+        double T0 = request.getNormalBodyTempC();
+        double Te = request.getAmbientTempC();
+        double k = estimate.template().getK();
+        double firstReading = estimate.timeSinceDeathHours() - request.getTimeSinceFirstReadingHours();
+
+        List<double[]> readings = new ArrayList<>();
+        readings.add(new double[]{firstReading, request.getBodyTempC()});
+        if (request.hasSecondReading()) {
+            readings.add(new double[]{firstReading + request.getSecondReading().getDeltaHoursFromFirst(),
+                    request.getSecondReading().getBodyTempC()});
+        }
+        if (request.hasReadings()) {
+            for (TimedReading reading : request.getReadings()) {
+                readings.add(new double[]{firstReading + reading.getHoursFromFirst(), reading.getBodyTempC()});
+            }
+        }
+
+        CurveSpec spec = request.getCurve();
+        double from = spec.getFromHours();
+        double to;
+        if (spec.getToHours() != null) {
+            to = spec.getToHours();
+        } else {
+            to = from;
+            for (double[] reading : readings) {
+                to = Math.max(to, reading[0]);
+            }
+            to += 2.0;
+        }
+
+        int samples = spec.getSamples();
+        double[] hours = new double[samples];
+        double[] temps = new double[samples];
+        CoolingCurve.sample(T0, Te, k, from, to, hours, temps);
+
+        int[] kept = CoolingCurve.downsample(hours, temps, spec.getMaxPoints());
+        double[] keptHours = new double[kept.length];
+        double[] keptTemps = new double[kept.length];
+        for (int i = 0; i < kept.length; i++) {
+            keptHours[i] = Math.round(hours[kept[i]] * 1e4) / 1e4;
+            keptTemps[i] = Math.round(temps[kept[i]] * 1e3) / 1e3;
         }
 
-        if (Math.abs(Tt - Te) < 0.1) {
-            throw new ValidationException("Current body temperature too close to ambient temperature");
+        List<CurveResult.CurveMarker> markers = new ArrayList<>(readings.size());
+        for (double[] reading : readings) {
+            markers.add(CurveResult.CurveMarker.builder()
+                    .hours(Math.round(reading[0] * 1e4) / 1e4)
+                    .measuredTempC(reading[1])
+                    .curveTempC(Math.round((Te + (T0 - Te) * Math.exp(-k * reading[0])) * 1e3) / 1e3)
+                    .build());
         }
 
-        // t = -(1/k) * ln((T(t) - Te) / (T0 - Te))
-        double ratio = (Tt - Te) / (T0 - Te);
+        return CurveResult.builder()
+                .samples(samples)
+                .hours(keptHours)
+                .tempC(keptTemps)
+                .readings(markers)
+                .build();
+    }
 
-        if (ratio <= 0 || ratio > 1) {
-            throw new ValidationException("Invalid temperature ratio for time calculation: " + ratio);
+    /**
+     * Estimate time since death with the Marshall–Hoare / Henssge double-exponential model
+     */
+    private Result<TodEstimate> computeHenssgeEstimate(TodEstimateRequest request) {
+        if (request.getBodyMassKg() == null) {
+            return Result.failure(ErrorCode.BODY_MASS_REQUIRED, "Body mass is required for the Henssge model");
+        }
+        if (request.hasUncertainty()) {
+            return Result.failure(ErrorCode.UNSUPPORTED_OPTION, "Uncertainty analysis is only available for the Newton model");
+        }
+        if (request.hasAmbientSeries()) {
+            return Result.failure(ErrorCode.UNSUPPORTED_OPTION, "An ambient series is only available for the Newton model");
         }
 
-        double t = -(1.0 / k) * Math.log(ratio);
+        CalculationTrace trace = new CalculationTrace();
 
-        if (t < 0) {
-            throw new ValidationException("Calculated time since death is negative");
+        double Ta = request.getAmbientTempC();
+        double Tr = request.getBodyTempC();
+        double mass = request.getBodyMassKg();
+        double cf = request.getCorrectionFactor();
+
+        if (Math.abs(HenssgeModel.RECTAL_TEMP_AT_DEATH - Ta) < CoolingKernel.MIN_TEMP_DIFFERENCE) {
+            return Result.failure(ErrorCode.TEMPS_TOO_CLOSE, "Normal body temperature and ambient temperature too close");
+        }
+
+        if (cf * mass > HenssgeModel.MAX_CORRECTED_MASS_KG) {
+            return Result.failure(ErrorCode.K_OUT_OF_RANGE, "Corrected body mass " + cf * mass
+                    + " kg is beyond the Henssge nomogram's " + HenssgeModel.MAX_CORRECTED_MASS_KG + " kg");
         }
 
-        return t;
+        long started = System.nanoTime();
+        double B = HenssgeModel.coolingConstant(mass, cf);
+        metrics.recordKDetermination(KSource.BODY_MASS, System.nanoTime() - started, -B);
+
+        started = System.nanoTime();
+        double Q = HenssgeModel.standardizedTemp(Tr, Ta);
+        double hours = HenssgeModel.timeSinceDeath(Tr, Ta, mass, cf);
+        if (Double.isNaN(hours)) {
+            if (Math.abs(Tr - Ta) < CoolingKernel.MIN_TEMP_DIFFERENCE) {
+                return Result.failure(ErrorCode.BODY_NEAR_AMBIENT, "Current body temperature too close to ambient temperature");
+            }
+            return Result.failure(ErrorCode.RATIO_OUT_OF_RANGE, "Invalid temperature ratio for time calculation: " + Q);
+        }
+        if (hours < 0) {
+            return Result.failure(ErrorCode.NEGATIVE_TIME, "Calculated time since death is negative");
+        }
+
+        double timeSinceFirstReading = request.getTimeSinceFirstReadingHours();
+        double timeSinceDeath = hours + timeSinceFirstReading;
+        metrics.recordSolve(CoolingModel.HENSSGE, System.nanoTime() - started);
+
+        started = System.nanoTime();
+        trace.step(Ta > HenssgeModel.WARM_AMBIENT_THRESHOLD ? StepCode.HENSSGE_WARM : StepCode.HENSSGE_COOL);
+        trace.step(StepCode.HENSSGE_WHERE, Tr, Ta);
+        trace.step(StepCode.HENSSGE_B_FORMULA, mass, cf);
+        trace.step(StepCode.HENSSGE_B, B);
+        trace.step(StepCode.HENSSGE_Q, Q);
+
+        trace.step(StepCode.TIME_HEADER);
+        trace.step(StepCode.HENSSGE_SOLVED, hours, timeSinceFirstReading);
+        trace.step(StepCode.TIME_RESULT, timeSinceDeath);
+
+        if (request.hasProvidedK() || request.hasSecondReading() || request.hasReadings()) {
+            trace.warn(WarningCode.HENSSGE_IGNORES_K);
+        }
+        if (Math.abs(Tr - Ta) < 2.0) {
+            trace.warn(WarningCode.BODY_NEAR_AMBIENT);
+        }
+        trace.warn(cf == 1.0 ? WarningCode.HENSSGE_LIMITS_STANDARD : WarningCode.HENSSGE_LIMITS_CORRECTED);
+        trace.warn(WarningCode.HENSSGE_ASSUMPTIONS);
+        trace.warn(WarningCode.NOT_FOR_LEGAL_USE);
+        metrics.recordSteps(System.nanoTime() - started);
+
+        return Result.ok(TodEstimate.of(TodEstimateResponse.builder()
+                .model(CoolingModel.HENSSGE)
+                .k(-B)
+                .timeSinceDeathHours(Math.round(timeSinceDeath * 100.0) / 100.0)
+                .build(), trace, timeSinceDeath));
     }
 
     /**
-     * Process TOD estimation request and return comprehensive response
+     * Newton cooling against a timed ambient series instead of a constant ambient temperature
      */
-    public TodEstimateResponse processTodEstimate(TodEstimateRequest request) {
-        List<String> steps = new ArrayList<>();
-        List<String> warnings = new ArrayList<>();
+    private Result<TodEstimate> computeVaryingAmbientEstimate(TodEstimateRequest request) {
+        if (request.hasReadings()) {
+            return Result.failure(ErrorCode.UNSUPPORTED_OPTION, "Least-squares k fitting is not available with an ambient series");
+        }
+        if (request.hasUncertainty()) {
+            return Result.failure(ErrorCode.UNSUPPORTED_OPTION, "Uncertainty analysis is not available with an ambient series");
+        }
+
+        List<AmbientReading> series = request.getAmbientSeries();
+        double[] sampleHours = new double[series.size()];
+        double[] sampleTemps = new double[series.size()];
+        for (int i = 0; i < sampleHours.length; i++) {
+            sampleHours[i] = series.get(i).getHoursFromFirst();
+            sampleTemps[i] = series.get(i).getTempC();
+        }
+        Result<AmbientProfile> profiled = AmbientProfile.of(sampleHours, sampleTemps);
+        if (!profiled.isOk()) {
+            return profiled.propagate();
+        }
+        AmbientProfile ambient = profiled.value();
+
+        CalculationTrace trace = new CalculationTrace();
 
-        double k;
         double T0 = request.getNormalBodyTempC();
-        double Te = request.getAmbientTempC();
         double T1 = request.getBodyTempC();
 
-        steps.add("Newton's Law of Cooling: T(t) = Te + (T0 - Te) * e^(-k*t)");
-        steps.add("Where: T0 = " + T0 + "°C (normal body temp), Te = " + Te + "°C (ambient temp)");
-
         // Step 1: Determine or estimate k
+        long started = System.nanoTime();
+        double k;
+        KSource source;
         if (request.hasSecondReading()) {
-            // Estimate k from two readings
             double T2 = request.getSecondReading().getBodyTempC();
-            double deltaHours = request.getSecondReading().getDeltaHoursFromFirst();
-
-            k = estimateK(T0, Te, T1, T2, deltaHours);
-
-            steps.add("Using two readings to estimate k:");
-            steps.add("T1 = " + T1 + "°C at t1, T2 = " + T2 + "°C at t2 (Δt = " + deltaHours + " hours)");
-            steps.add("R1 = (T1 - Te)/(T0 - Te) = " + String.format("%.4f", (T1 - Te)/(T0 - Te)));
-            steps.add("R2 = (T2 - Te)/(T0 - Te) = " + String.format("%.4f", (T2 - Te)/(T0 - Te)));
-            steps.add("k = -(1/Δt) * ln(R2/R1) = " + String.format("%.4f", k) + " h⁻¹");
-
-            warnings.add("K estimation assumes constant ambient temperature between readings");
+            if (!(T2 < T1)) {
+                return Result.failure(ErrorCode.READINGS_NOT_DECREASING, "Second reading should be lower than first reading");
+            }
+            k = VaryingAmbientCooling.k(T1, T2, request.getSecondReading().getDeltaHoursFromFirst(), ambient);
+            if (Double.isNaN(k)) {
+                return Result.failure(ErrorCode.K_OUT_OF_RANGE, "No cooling constant k up to " + CoolingKernel.MAX_K
+                        + " h⁻¹ reproduces both readings under the ambient series");
+            }
+            source = KSource.TWO_READINGS;
         } else if (request.hasProvidedK()) {
             k = request.getK();
-            steps.add("Using provided cooling constant k = " + k + " h⁻¹");
-            warnings.add("Using provided k value - ensure it's appropriate for conditions");
+            source = KSource.PROVIDED;
         } else {
-            // Use default k (typical range 0.1-0.3 h⁻¹ for humans)
-            k = 0.1947; // Commonly used default value
-            steps.add("Using default cooling constant k = " + k + " h⁻¹");
-            warnings.add("Using default k value - results may be inaccurate without proper k estimation");
+            k = CoolingKernel.DEFAULT_K;
+            source = KSource.DEFAULT;
         }
+        metrics.recordKDetermination(source, System.nanoTime() - started, k);
 
-        // Step 2: Calculate time since death
+        // Step 2: Integrate backward from the first reading to normal body temperature
+        started = System.nanoTime();
+        if (!(T1 < T0)) {
+            return Result.failure(ErrorCode.NEGATIVE_TIME, "Calculated time since death is negative");
+        }
+        double hours = VaryingAmbientCooling.timeSinceDeath(T0, T1, k, ambient);
+        if (Double.isNaN(hours)) {
+            return Result.failure(ErrorCode.NO_SOLUTION, "Body does not cool from " + T0 + "°C to " + T1
+                    + "°C within " + (int) VaryingAmbientCooling.MAX_HOURS + " hours under the ambient series");
+        }
         double timeSinceFirstReading = request.getTimeSinceFirstReadingHours();
-        double timeSinceDeath = estimateTimeSinceDeath(T0, Te, T1, k) + timeSinceFirstReading;
-
-        steps.add("Time since death calculation:");
-        steps.add("t = -(1/k) * ln((T1 - Te)/(T0 - Te)) + time_to_first_reading");
-        steps.add("t = -(1/" + String.format("%.4f", k) + ") * ln((" + T1 + " - " + Te + ")/(" + T0 + " - " + Te + ")) + " + timeSinceFirstReading);
-        steps.add("t = " + String.format("%.2f", timeSinceDeath) + " hours");
+        double timeSinceDeath = hours + timeSinceFirstReading;
+        metrics.recordSolve(CoolingModel.NEWTON, System.nanoTime() - started);
+
+        // Record the calculation steps
+        started = System.nanoTime();
+        trace.step(StepCode.VARYING_LAW);
+        trace.step(StepCode.VARYING_WHERE, T0, ambient.size(), ambient.firstHour(), ambient.lastHour());
+
+        switch (source) {
+            case TWO_READINGS -> {
+                double T2 = request.getSecondReading().getBodyTempC();
+                double deltaHours = request.getSecondReading().getDeltaHoursFromFirst();
+                trace.step(StepCode.TWO_READINGS);
+                trace.step(StepCode.TWO_READINGS_VALUES, T1, T2, deltaHours);
+                trace.step(StepCode.VARYING_K, k);
+            }
+            case PROVIDED -> {
+                trace.step(StepCode.K_PROVIDED, k);
+                trace.warn(WarningCode.PROVIDED_K);
+            }
+            default -> {
+                trace.step(StepCode.K_DEFAULT, k);
+                trace.warn(WarningCode.DEFAULT_K);
+            }
+        }
 
-        // Step 3: Calculate estimated time of death
-        String estimatedTimeOfDeath = calculateTimeOfDeath(request.getSceneDateTime(), timeSinceDeath);
+        trace.step(StepCode.TIME_HEADER);
+        trace.step(StepCode.VARYING_INTEGRATED, T1);
+        trace.step(StepCode.VARYING_MEAN_AMBIENT, ambient.mean(-hours, 0.0));
+        trace.step(StepCode.VARYING_SOLVED, hours, timeSinceFirstReading);
+        trace.step(StepCode.TIME_RESULT, timeSinceDeath);
 
-        // Add warnings based on conditions
-        if (Math.abs(T1 - Te) < 2.0) {
-            warnings.add("Body temperature very close to ambient - high uncertainty in estimate");
+        if (Math.abs(T1 - ambient.at(0.0)) < 2.0) {
+            trace.warn(WarningCode.BODY_NEAR_AMBIENT);
+        }
+        if (ambient.firstHour() > -hours || ambient.lastHour() < 0.0) {
+            trace.warn(WarningCode.AMBIENT_SERIES_PARTIAL);
         }
         if (timeSinceDeath > 24) {
-            warnings.add("Estimate is for >24 hours - Newton's cooling becomes less accurate");
+            trace.warn(WarningCode.LONG_INTERVAL);
         }
         if (Math.abs(T0 - 37.0) > 1.0) {
-            warnings.add("Non-standard normal body temperature used - verify accuracy");
+            trace.warn(WarningCode.NON_STANDARD_NORMAL_TEMP);
         }
 
-        warnings.add("Assumptions: constant ambient temperature, no clothing/covering effects, standard body mass");
-        warnings.add("This is an estimation tool - not suitable for legal determinations without expert validation");
+        trace.warn(WarningCode.VARYING_AMBIENT_ASSUMPTIONS);
+        trace.warn(WarningCode.NOT_FOR_LEGAL_USE);
+        metrics.recordSteps(System.nanoTime() - started);
 
-        return TodEstimateResponse.builder()
+        return Result.ok(TodEstimate.of(TodEstimateResponse.builder()
+                .model(CoolingModel.NEWTON)
                 .k(k)
                 .timeSinceDeathHours(Math.round(timeSinceDeath * 100.0) / 100.0)
-                .estimatedTimeOfDeath(estimatedTimeOfDeath)
-                .steps(steps)
-                .warnings(warnings)
+                .build(), trace, timeSinceDeath));
+    }
+
+    /**
+     * Fit k by weighted least squares over the first reading, the optional second reading
+     * and every entry in {@code readings}
+     */
+    public Result<CoolingFit> fitReadings(TodEstimateRequest request) {
+        double T0 = request.getNormalBodyTempC();
+        double Te = request.getAmbientTempC();
+        if (Math.abs(T0 - Te) < CoolingKernel.MIN_TEMP_DIFFERENCE) {
+            return Result.failure(ErrorCode.TEMPS_TOO_CLOSE, "Normal body temperature and ambient temperature too close");
+        }
+
+        CoolingFit fit = new CoolingFit(T0, Te);
+        boolean valid = fit.add(0.0, request.getBodyTempC(), 1.0);
+        if (request.hasSecondReading()) {
+            valid &= fit.add(request.getSecondReading().getDeltaHoursFromFirst(),
+                    request.getSecondReading().getBodyTempC(), 1.0);
+        }
+        for (TimedReading reading : request.getReadings()) {
+            valid &= fit.add(reading.getHoursFromFirst(), reading.getBodyTempC(),
+                    reading.getWeight() != null ? reading.getWeight() : 1.0);
+        }
+        if (!valid) {
+            return Result.failure(ErrorCode.INVALID_READINGS, "Invalid temperature readings for k estimation");
+        }
+
+        if (!fit.isDetermined()) {
+            return Result.failure(ErrorCode.INSUFFICIENT_READINGS, "At least two readings at different times are required to fit k");
+        }
+
+        double k = fit.k();
+        if (!(k > 0 && k <= CoolingKernel.MAX_K)) {
+            return Result.failure(ErrorCode.K_OUT_OF_RANGE, "Estimated k is unreasonable: " + k);
+        }
+        return Result.ok(fit);
+    }
+
+    private FitSummary summarizeFit(TodEstimateRequest request, CoolingFit fit) {
+        List<Double> residuals = new ArrayList<>(fit.count());
+        residuals.add(request.getBodyTempC() - fit.fittedTemp(0.0));
+        if (request.hasSecondReading()) {
+            SecondReading second = request.getSecondReading();
+            residuals.add(second.getBodyTempC() - fit.fittedTemp(second.getDeltaHoursFromFirst()));
+        }
+        for (TimedReading reading : request.getReadings()) {
+            residuals.add(reading.getBodyTempC() - fit.fittedTemp(reading.getHoursFromFirst()));
+        }
+
+        double sumOfSquares = 0;
+        for (int i = 0; i < residuals.size(); i++) {
+            double residual = residuals.get(i);
+            sumOfSquares += residual * residual;
+            residuals.set(i, Math.round(residual * 1000.0) / 1000.0);
+        }
+
+        double standardError = fit.kStandardError();
+        return FitSummary.builder()
+                .readingsUsed(fit.count())
+                .k(fit.k())
+                .kStandardError(Double.isNaN(standardError) ? null : standardError)
+                .rmsResidualC(Math.round(Math.sqrt(sumOfSquares / residuals.size()) * 1000.0) / 1000.0)
+                .residualsC(residuals)
+                .build();
+    }
+
+    /**
+     * Propagate measurement error through the cooling model by Monte Carlo sampling
+     */
+    private record Interval(UncertaintyResult result, double lower, double median, double upper) {
+    }
+
+    private Result<Interval> estimateUncertainty(TodEstimateRequest request, double k, CoolingFit fit) {
+        UncertaintySpec spec = request.getUncertainty();
+        long seed = spec.getSeed() != null ? spec.getSeed() : new SplittableRandom().nextLong();
+        int samples = spec.getSamples();
+
+        double T2 = Double.NaN;
+        double deltaHours = Double.NaN;
+        double sdK = spec.getKSd();
+        if (fit != null) {
+            // Without an explicit k error, propagate the fit's own standard error
+            if (sdK == 0 && fit.count() > 2) {
+                sdK = fit.kStandardError();
+            }
+        } else if (request.hasSecondReading()) {
+            T2 = request.getSecondReading().getBodyTempC();
+            deltaHours = request.getSecondReading().getDeltaHoursFromFirst();
+        }
+
+        UncertaintySampler.Draws draws = UncertaintySampler.sample(
+                request.getNormalBodyTempC(), spec.getNormalBodySdC(),
+                request.getAmbientTempC(), spec.getAmbientSdC(),
+                request.getBodyTempC(), T2, spec.getBodySdC(), deltaHours,
+                k, sdK, request.getTimeSinceFirstReadingHours(),
+                samples, seed);
+
+        if (draws.valid() == 0) {
+            return Result.failure(ErrorCode.NO_VALID_DRAWS, "No valid uncertainty draws - measurement errors are too large for these readings");
+        }
+
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (double p : new double[]{2.5, 5, 25, 50, 75, 95, 97.5}) {
+            percentiles.put("p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p)),
+                    Math.round(draws.percentile(p) * 100.0) / 100.0);
+        }
+
+        double lower = draws.percentile(2.5);
+        double median = draws.percentile(50);
+        double upper = draws.percentile(97.5);
+
+        UncertaintyResult result = UncertaintyResult.builder()
+                .samples(samples)
+                .validSamples(draws.valid())
+                .seed(seed)
+                .hoursPercentiles(percentiles)
+                .hoursLower95(Math.round(lower * 100.0) / 100.0)
+                .hoursUpper95(Math.round(upper * 100.0) / 100.0)
                 .build();
+        return Result.ok(new Interval(result, lower, median, upper));
     }
 
-    private String calculateTimeOfDeath(String sceneDateTime, double hoursAgo) {
+    static String calculateTimeOfDeath(String sceneDateTime, double hoursAgo) {
         LocalDateTime referenceTime;
 
         if (sceneDateTime != null && !sceneDateTime.trim().isEmpty()) {
@@ -0,0 +1,88 @@
+package com.forensics.todbackend.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel Monte Carlo sampling of the Newton cooling model.
+ *
+ * Draws are split into fixed-size chunks, and each chunk gets its own {@link SplittableRandom}
+ * split from the seed in chunk order. The output depends only on the seed and the inputs,
+ * not on how many threads run the chunks.
+ */
+public final class UncertaintySampler {
+
+    static final int CHUNK_SIZE = 16384;
+
+    private UncertaintySampler() {
+    }
+
+    /**
+     * Sorted sample of hours since death. Rejected draws are NaN and sort to the end.
+     */
+    public record Draws(float[] hours, int valid) {
+
+        public double percentile(double p) {
+            if (valid == 0) {
+                return Double.NaN;
+            }
+            double rank = p / 100.0 * (valid - 1);
+            int lower = (int) rank;
+            int upper = Math.min(lower + 1, valid - 1);
+            double fraction = rank - lower;
+            return hours[lower] + (hours[upper] - hours[lower]) * fraction;
+        }
+    }
+
+    /**
+     * Sample hours since death. If {@code T2} is NaN, k is drawn around {@code k};
+     * otherwise k is re-estimated from perturbed readings {@code T1}, {@code T2} on every draw.
+     * {@code offsetHours} (time since first reading) is added to each valid draw.
+     */
+    public static Draws sample(double T0, double sdT0, double Te, double sdTe,
+                               double T1, double T2, double sdBody, double deltaHours,
+                               double k, double sdK, double offsetHours,
+                               int samples, long seed) {
+        float[] hours = new float[samples];
+        int chunks = (samples + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) {
+            streams[c] = root.split();
+        }
+
+        boolean twoReadings = !Double.isNaN(T2);
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            SplittableRandom random = streams[c];
+            int end = Math.min(samples, (c + 1) * CHUNK_SIZE);
+            for (int i = c * CHUNK_SIZE; i < end; i++) {
+                double t0 = T0 + sdT0 * random.nextGaussian();
+                double te = Te + sdTe * random.nextGaussian();
+                double t1 = T1 + sdBody * random.nextGaussian();
+
+                double drawK;
+                if (twoReadings) {
+                    drawK = CoolingKernel.k(t0, te, t1, T2 + sdBody * random.nextGaussian(), deltaHours);
+                } else {
+                    drawK = k + sdK * random.nextGaussian();
+                    if (drawK <= 0 || drawK > CoolingKernel.MAX_K) {
+                        drawK = Double.NaN;
+                    }
+                }
+
+                // NaN propagates for rejected draws
+                hours[i] = (float) (CoolingKernel.timeSinceDeath(t0, te, t1, drawK) + offsetHours);
+            }
+        });
+
+        Arrays.parallelSort(hours);
+
+        int valid = samples;
+        while (valid > 0 && Float.isNaN(hours[valid - 1])) {
+            valid--;
+        }
+        return new Draws(hours, valid);
+    }
+}
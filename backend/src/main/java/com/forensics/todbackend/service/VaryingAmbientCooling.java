@@ -0,0 +1,204 @@
+package com.forensics.todbackend.service;
+
+/**
+ * Newton cooling under a time-varying ambient, dT/dt = -k(T - Te(t)), integrated with
+ * the adaptive Bogacki–Shampine 3(2) pair.
+ *
+ * Time of death is found in a single pass. The integration runs backward from the first
+ * reading, and the crossing of T0 is located on the cubic Hermite interpolant of the step
+ * that brackets it. Every root-finder iteration reuses that one integration, so nothing
+ * is re-integrated per guess. Steps are clamped to ambient sample times: Te is linear
+ * within each step, the error estimate stays valid, and thousands of samples cost
+ * thousands of steps rather than a search per evaluation.
+ */
+public final class VaryingAmbientCooling {
+
+    /** Give up looking for the time of death this far before the first reading. */
+    public static final double MAX_HOURS = 240.0;
+
+    private static final double ABSOLUTE_TOLERANCE = 1e-8;
+    private static final double RELATIVE_TOLERANCE = 1e-10;
+    private static final double INITIAL_STEP = 0.05;
+    private static final int MAX_K_ITERATIONS = 100;
+
+    private VaryingAmbientCooling() {
+    }
+
+    /**
+     * Hours from death to the first reading {@code T1}, or NaN if the body does not
+     * reach {@code T0} within {@link #MAX_HOURS}.
+     */
+    public static double timeSinceDeath(double T0, double T1, double k, AmbientProfile ambient) {
+        if (!(T1 < T0) || !(k > 0)) {
+            return Double.NaN;
+        }
+
+        Stepper stepper = new Stepper(k, -1, ambient, 0.0, T1);
+        while (stepper.t > -MAX_HOURS) {
+            stepper.step(-MAX_HOURS);
+            if (stepper.y >= T0) {
+                return -stepper.crossing(T0);
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Body temperature {@code hours} after a reading of {@code T1} at t = 0.
+     */
+    public static double temperatureAt(double T1, double k, AmbientProfile ambient, double hours) {
+        int direction = hours >= 0 ? 1 : -1;
+        Stepper stepper = new Stepper(k, direction, ambient, 0.0, T1);
+        while (stepper.t != hours) {
+            stepper.step(hours);
+        }
+        return stepper.y;
+    }
+
+    /**
+     * k for which cooling from {@code T1} at t = 0 reaches {@code T2} at {@code deltaHours},
+     * or NaN if no k in (0, {@link CoolingKernel#MAX_K}] does.
+     */
+    public static double k(double T1, double T2, double deltaHours, AmbientProfile ambient) {
+        if (!(deltaHours > 0)) {
+            return Double.NaN;
+        }
+
+        // T(deltaHours) falls monotonically as k grows, so bracket and solve by Illinois regula falsi
+        double lo = 1e-6;
+        double hi = CoolingKernel.MAX_K;
+        double fLo = temperatureAt(T1, lo, ambient, deltaHours) - T2;
+        double fHi = temperatureAt(T1, hi, ambient, deltaHours) - T2;
+        if (fLo < 0 || fHi > 0) {
+            return Double.NaN;
+        }
+
+        int side = 0;
+        for (int i = 0; i < MAX_K_ITERATIONS; i++) {
+            double mid = (lo * fHi - hi * fLo) / (fHi - fLo);
+            double fMid = temperatureAt(T1, mid, ambient, deltaHours) - T2;
+            if (Math.abs(fMid) < 1e-10 || hi - lo < 1e-12) {
+                return mid;
+            }
+            if (fMid > 0) {
+                lo = mid;
+                fLo = fMid;
+                if (side == 1) {
+                    fHi *= 0.5;
+                }
+                side = 1;
+            } else {
+                hi = mid;
+                fHi = fMid;
+                if (side == -1) {
+                    fLo *= 0.5;
+                }
+                side = -1;
+            }
+        }
+        return 0.5 * (lo + hi);
+    }
+
+    /**
+     * One Bogacki–Shampine integration in a fixed direction, keeping the last accepted
+     * step for dense output. The last stage doubles as the next step's first (FSAL).
+     */
+    private static final class Stepper {
+        private final double k;
+        private final int direction;
+        private final AmbientProfile ambient;
+
+        double t;
+        double y;
+        private double f;
+        private double h;
+        private int segment;
+
+        private double previousT;
+        private double previousY;
+        private double previousF;
+
+        Stepper(double k, int direction, AmbientProfile ambient, double t0, double y0) {
+            this.k = k;
+            this.direction = direction;
+            this.ambient = ambient;
+            this.t = t0;
+            this.y = y0;
+            this.segment = ambient.segment(t0, direction, ambient.size() / 2);
+            this.f = -k * (y0 - ambient.valueIn(segment, t0));
+            this.h = direction * INITIAL_STEP;
+        }
+
+        /** Advance by one accepted step, never past {@code limit} or the next ambient sample. */
+        void step(double limit) {
+            double knot = ambient.knotAfter(segment, direction);
+            while (true) {
+                double end = t + h;
+                if (direction > 0) {
+                    end = Math.min(end, Math.min(knot, limit));
+                } else {
+                    end = Math.max(end, Math.max(knot, limit));
+                }
+                double dt = end - t;
+
+                double k1 = f;
+                double k2 = derivative(t + 0.5 * dt, y + 0.5 * dt * k1);
+                double k3 = derivative(t + 0.75 * dt, y + 0.75 * dt * k2);
+                double next = y + dt * (2.0 / 9.0 * k1 + 1.0 / 3.0 * k2 + 4.0 / 9.0 * k3);
+                double k4 = derivative(end, next);
+
+                double error = Math.abs(dt * (-5.0 / 72.0 * k1 + 1.0 / 12.0 * k2 + 1.0 / 9.0 * k3 - 1.0 / 8.0 * k4));
+                double tolerance = ABSOLUTE_TOLERANCE + RELATIVE_TOLERANCE * Math.abs(next);
+                double factor = error == 0 ? 5.0 : Math.min(5.0, Math.max(0.2, 0.9 * Math.cbrt(tolerance / error)));
+
+                if (error <= tolerance) {
+                    previousT = t;
+                    previousY = y;
+                    previousF = f;
+                    t = end;
+                    y = next;
+                    f = k4;
+                    h = dt * factor;
+                    if (end == knot) {
+                        // Te is continuous at a sample, so k4 is still the exact slope in the next segment
+                        segment = ambient.segment(t, direction, segment);
+                    }
+                    return;
+                }
+                h = dt * factor;
+            }
+        }
+
+        /** Time within the last step at which the Hermite interpolant equals {@code target}. */
+        double crossing(double target) {
+            double dt = t - previousT;
+            double lo = 0.0;
+            double hi = 1.0;
+            boolean rising = y > previousY;
+            for (int i = 0; i < 60; i++) {
+                double theta = 0.5 * (lo + hi);
+                double value = hermite(theta, dt);
+                if ((value < target) == rising) {
+                    lo = theta;
+                } else {
+                    hi = theta;
+                }
+            }
+            return previousT + 0.5 * (lo + hi) * dt;
+        }
+
+        private double hermite(double theta, double dt) {
+            double theta2 = theta * theta;
+            double theta3 = theta2 * theta;
+            return (2 * theta3 - 3 * theta2 + 1) * previousY
+                    + (theta3 - 2 * theta2 + theta) * dt * previousF
+                    + (-2 * theta3 + 3 * theta2) * y
+                    + (theta3 - theta2) * dt * f;
+        }
+
+        private double derivative(double time, double temperature) {
+            // Every stage lies inside the current segment, so no search is needed
+            return -k * (temperature - ambient.valueIn(segment, time));
+        }
+    }
+}
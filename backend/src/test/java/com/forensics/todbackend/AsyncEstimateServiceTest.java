@@ -0,0 +1,51 @@
+package com.forensics.todbackend;
+
+import com.forensics.todbackend.exception.ServiceBusyException;
+import com.forensics.todbackend.service.AsyncEstimateService;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncEstimateServiceTest {
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        AsyncEstimateService service = new AsyncEstimateService(1, 1, false);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Integer> running = service.submit(() -> await(release, 1));
+            CompletableFuture<Integer> queued = service.submit(() -> await(release, 2));
+
+            assertThrows(ServiceBusyException.class, () -> service.submit(() -> 3));
+
+            release.countDown();
+            assertEquals(1, running.get(5, TimeUnit.SECONDS));
+            assertEquals(2, queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testVirtualThreadMode() throws Exception {
+        AsyncEstimateService service = new AsyncEstimateService(4, 16, true);
+        try {
+            assertTrue(service.submit(() -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static int await(CountDownLatch latch, int value) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
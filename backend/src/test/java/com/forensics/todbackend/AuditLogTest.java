@@ -0,0 +1,197 @@
+package com.forensics.todbackend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.service.AuditLog;
+import com.forensics.todbackend.service.TodService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"tod.audit.enabled=true", "tod.audit.directory=target/audit-test"})
+@AutoConfigureMockMvc
+public class AuditLogTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @TempDir
+    Path directory;
+
+    private final TodService todService = new TodService();
+
+    private static TodEstimateRequest request(String caseId, double ambientTempC, double bodyTempC) {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setCaseId(caseId);
+        request.setAmbientTempC(ambientTempC);
+        request.setBodyTempC(bodyTempC);
+        request.setTimeSinceFirstReadingHours(0.0);
+        request.setK(0.1947);
+        return request;
+    }
+
+    private AuditLog open(int bufferSize, AuditLog.WhenFull whenFull, DataSize maxFileSize) throws Exception {
+        return new AuditLog(true, directory, bufferSize, whenFull, Duration.ofSeconds(10), 64, maxFileSize, 2);
+    }
+
+    @Test
+    public void testEveryEstimateOutcomeIsAudited() throws Exception {
+        String run = UUID.randomUUID().toString();
+        TodEstimateRequest valid = request(run + "-ok", 20.0, 32.0);
+        valid.setSceneDateTime("2024-01-15T20:00:00");
+        TodEstimateRequest rejected = request(run + "-ratio", 20.0, 40.0);
+        TodEstimateRequest invalid = request(run + "-field", 80.0, 32.0);
+
+        mockMvc.perform(post("/api/tod/estimate").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(valid))).andExpect(status().isOk());
+        mockMvc.perform(post("/api/tod/estimate").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(rejected))).andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/tod/estimate").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(invalid))).andExpect(status().isBadRequest());
+        // Overflows to Infinity, which JSON cannot hold
+        mockMvc.perform(post("/api/tod/estimate").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request(run + "-overflow", 20.0, 32.0))
+                        .replace("20.0", "1e400"))).andExpect(status().isBadRequest());
+        auditLog.flush();
+
+        Map<String, JsonNode> byCase = new HashMap<>();
+        for (String line : Files.readAllLines(Path.of("target/audit-test", "audit.ndjson"))) {
+            JsonNode record = objectMapper.readTree(line);
+            if (record.path("caseId").asText().startsWith(run)) {
+                byCase.put(record.get("caseId").asText(), record);
+            }
+        }
+        assertEquals(4, byCase.size());
+
+        JsonNode ok = byCase.get(run + "-ok");
+        assertEquals("ESTIMATE", ok.get("source").asText());
+        assertEquals("OK", ok.get("outcome").asText());
+        assertEquals(32.0, ok.get("bodyTempC").asDouble());
+        assertEquals(0.1947, ok.get("k").asDouble());
+        assertEquals(1.79, ok.get("timeSinceDeathHours").asDouble());
+        assertEquals("2024-01-15T18:13:00", ok.get("estimatedTimeOfDeath").asText());
+        assertTrue(ok.get("micros").asLong() >= 0);
+
+        assertEquals("RATIO_OUT_OF_RANGE", byCase.get(run + "-ratio").get("outcome").asText());
+        assertFalse(byCase.get(run + "-ratio").has("timeSinceDeathHours"));
+        assertEquals("INVALID_INPUT", byCase.get(run + "-field").get("outcome").asText());
+        assertEquals(80.0, byCase.get(run + "-field").get("ambientTempC").asDouble());
+        assertEquals("INVALID_INPUT", byCase.get(run + "-overflow").get("outcome").asText());
+        assertFalse(byCase.get(run + "-overflow").has("ambientTempC"));
+    }
+
+    @Test
+    public void testBlockingWriterRotatesWithoutLoss() throws Exception {
+        AuditLog log = open(4, AuditLog.WhenFull.BLOCK, DataSize.ofKilobytes(4));
+        TodEstimateRequest request = request("case-\"quoted\"", 20.0, 32.0);
+        TodEstimateResponse response = todService.processTodEstimate(request);
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(log.record(AuditLog.Source.BATCH, request, response, null, i));
+        }
+        log.flush();
+        log.close();
+        assertEquals(2000, log.writtenCount());
+        assertEquals(0, log.droppedCount());
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.sorted().toList();
+        }
+        // The active file and the newest two rotated ones
+        assertEquals(3, files.size());
+        assertEquals("audit.ndjson", files.get(2).getFileName().toString());
+        for (Path file : files) {
+            assertTrue(Files.size(file) <= 4096);
+            for (String line : Files.readAllLines(file)) {
+                assertEquals("case-\"quoted\"", objectMapper.readTree(line).get("caseId").asText());
+            }
+        }
+    }
+
+    @Test
+    public void testFailedRotationKeepsWriting() throws Exception {
+        AuditLog log = open(64, AuditLog.WhenFull.BLOCK, DataSize.ofKilobytes(4));
+        TodEstimateRequest request = request("case", 20.0, 32.0);
+        TodEstimateResponse response = todService.processTodEstimate(request);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(log.record(AuditLog.Source.BATCH, request, response, null, i));
+        }
+        log.flush();
+
+        // With the directory gone neither the rename nor the new file can happen
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path file : listing.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(log.record(AuditLog.Source.BATCH, request, response, null, i));
+        }
+        log.flush();
+
+        // Once it is back, the next rotation starts a new file and nothing more is lost
+        Files.createDirectories(directory);
+        TodEstimateRequest later = request("case-later", 20.0, 32.0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(log.record(AuditLog.Source.BATCH, later, response, null, i));
+        }
+        log.flush();
+        log.close();
+        assertEquals(210, log.writtenCount());
+        List<String> lines = Files.readAllLines(directory.resolve("audit.ndjson"));
+        assertEquals(10, lines.size());
+        assertEquals("case-later", objectMapper.readTree(lines.get(9)).get("caseId").asText());
+    }
+
+    @Test
+    public void testDroppingWriterAccountsForEveryRecord() throws Exception {
+        AuditLog log = open(8, AuditLog.WhenFull.DROP, DataSize.ofMegabytes(64));
+        TodEstimateRequest request = request("case", 20.0, 32.0);
+        TodEstimateResponse response = todService.processTodEstimate(request);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    log.record(AuditLog.Source.ESTIMATE, request, response, null, -1);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.flush();
+        log.close();
+
+        assertEquals(20000, log.writtenCount() + log.droppedCount());
+        assertEquals(log.writtenCount(), Files.readAllLines(directory.resolve("audit.ndjson")).size());
+    }
+}
@@ -0,0 +1,192 @@
+package com.forensics.todbackend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forensics.todbackend.dto.BodyPosture;
+import com.forensics.todbackend.dto.CalibrationResult;
+import com.forensics.todbackend.dto.CoolingMedium;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.service.CalibrationService;
+import com.forensics.todbackend.service.CalibrationTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"tod.calibration.file=target/calibration-test/k-table.bin",
+        "tod.calibration.reload-interval=1h"})
+@AutoConfigureMockMvc
+public class CalibrationServiceTest {
+
+    private static final double[] MASS = {50, 90};
+    private static final double[] CLOTHING = {0, 2};
+    private static final CoolingMedium[] MEDIA = {CoolingMedium.AIR, CoolingMedium.WATER};
+    private static final double[] WIND = {0, 10};
+    private static final BodyPosture[] POSTURES = {BodyPosture.EXTENDED};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CalibrationService calibrationService;
+
+    @TempDir
+    Path directory;
+
+    /** Linear in every numeric axis, so interpolation between table values is exact */
+    private static double expectedK(double base, double mass, double clothing, CoolingMedium medium, double wind) {
+        return base + (medium == CoolingMedium.WATER ? 0.2 : 0) - 0.001 * (mass - 50) - 0.02 * clothing + 0.01 * wind;
+    }
+
+    private static void writeTable(Path file, double base) throws Exception {
+        double[] k = new double[MASS.length * CLOTHING.length * MEDIA.length * WIND.length * POSTURES.length];
+        int i = 0;
+        for (double mass : MASS) {
+            for (double clothing : CLOTHING) {
+                for (CoolingMedium medium : MEDIA) {
+                    for (double wind : WIND) {
+                        for (BodyPosture ignored : POSTURES) {
+                            k[i++] = expectedK(base, mass, clothing, medium, wind);
+                        }
+                    }
+                }
+            }
+        }
+        CalibrationTable.write(file, MASS, CLOTHING, MEDIA, WIND, POSTURES, k);
+    }
+
+    @Test
+    public void testLookupInterpolatesAndClamps() throws Exception {
+        Path file = directory.resolve("k-table.bin");
+        writeTable(file, 0.15);
+        CalibrationTable table = CalibrationTable.load(file);
+        assertEquals(16, table.cells());
+
+        // On table values, between them, and across all three numeric axes at once
+        assertEquals(expectedK(0.15, 90, 2, CoolingMedium.WATER, 10),
+                table.k(90, 2, CoolingMedium.WATER, 10, BodyPosture.EXTENDED), 1e-12);
+        assertEquals(expectedK(0.15, 70, 0, CoolingMedium.AIR, 0),
+                table.k(70, 0, CoolingMedium.AIR, 0, BodyPosture.EXTENDED), 1e-12);
+        assertEquals(expectedK(0.15, 61.5, 1.25, CoolingMedium.WATER, 3.5),
+                table.k(61.5, 1.25, CoolingMedium.WATER, 3.5, BodyPosture.EXTENDED), 1e-12);
+
+        // Beyond the table the nearest edge is used, and reported
+        assertEquals(expectedK(0.15, 90, 2, CoolingMedium.AIR, 0),
+                table.k(120, 3, CoolingMedium.AIR, 0, BodyPosture.EXTENDED), 1e-12);
+        CalibrationResult cell = table.describe(120, 1, CoolingMedium.AIR, 4, BodyPosture.EXTENDED);
+        assertArrayEquals(new double[]{90, 90}, cell.getBodyMassKg());
+        assertArrayEquals(new double[]{0, 2}, cell.getClothingLayers());
+        assertArrayEquals(new double[]{0, 10}, cell.getWindSpeedMs());
+        assertTrue(cell.getClamped());
+        assertFalse(table.describe(70, 1, CoolingMedium.AIR, 4, BodyPosture.EXTENDED).getClamped());
+
+        // Categorical values the table has no cells for
+        assertTrue(Double.isNaN(table.k(70, 1, CoolingMedium.AIR, 4, BodyPosture.FLEXED)));
+    }
+
+    @Test
+    public void testReloadSwapsTableAndKeepsItOnBadFile() throws Exception {
+        Path file = directory.resolve("k-table.bin");
+        CalibrationService service = new CalibrationService(file.toString(), Duration.ofHours(1));
+        try {
+            assertNull(service.table());
+            assertTrue(Double.isNaN(service.k(70, 1, CoolingMedium.AIR, 4, BodyPosture.EXTENDED)));
+
+            writeTable(file, 0.15);
+            assertTrue(service.reloadIfChanged());
+            assertFalse(service.reloadIfChanged());
+            CalibrationTable first = service.table();
+            assertEquals(expectedK(0.15, 70, 1, CoolingMedium.AIR, 4),
+                    service.k(70, 1, CoolingMedium.AIR, 4, BodyPosture.EXTENDED), 1e-12);
+
+            writeTable(file, 0.25);
+            assertTrue(service.reloadIfChanged());
+            assertNotEquals(first.checksum(), service.table().checksum());
+            assertEquals(expectedK(0.25, 70, 1, CoolingMedium.AIR, 4),
+                    service.k(70, 1, CoolingMedium.AIR, 4, BodyPosture.EXTENDED), 1e-12);
+            // A reader still holding the replaced table keeps reading its own mapping
+            assertEquals(expectedK(0.15, 70, 1, CoolingMedium.AIR, 4),
+                    first.k(70, 1, CoolingMedium.AIR, 4, BodyPosture.EXTENDED), 1e-12);
+
+            // A torn or corrupt file is rejected and the current table stays
+            byte[] corrupt = Files.readAllBytes(file);
+            corrupt[40] ^= 0x7f;
+            Path temp = directory.resolve("corrupt.bin");
+            Files.write(temp, corrupt);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            assertFalse(service.reloadIfChanged());
+            assertEquals(expectedK(0.25, 70, 1, CoolingMedium.AIR, 4),
+                    service.k(70, 1, CoolingMedium.AIR, 4, BodyPosture.EXTENDED), 1e-12);
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void testEstimateReportsCalibrationCell() throws Exception {
+        Path file = Path.of("target/calibration-test/k-table.bin");
+        Files.createDirectories(file.getParent());
+        writeTable(file, 0.15);
+        calibrationService.reloadIfChanged();
+
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(32.0);
+        request.setTimeSinceFirstReadingHours(0.0);
+        request.setBodyMassKg(70.0);
+        request.setClothingLayers(1.0);
+        request.setMedium(CoolingMedium.WATER);
+        request.setWindSpeedMs(4.0);
+
+        JsonNode response = objectMapper.readTree(mockMvc.perform(post("/api/tod/estimate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        double k = expectedK(0.15, 70, 1, CoolingMedium.WATER, 4);
+        assertEquals(k, response.get("k").asDouble(), 1e-12);
+        JsonNode calibration = response.get("calibration");
+        assertEquals(String.format("%08x", calibrationService.table().checksum()),
+                calibration.get("tableChecksum").asText());
+        assertEquals(50.0, calibration.get("bodyMassKg").get(0).asDouble());
+        assertEquals(90.0, calibration.get("bodyMassKg").get(1).asDouble());
+        assertEquals("WATER", calibration.get("medium").asText());
+        assertEquals("EXTENDED", calibration.get("posture").asText());
+        assertFalse(calibration.get("clamped").asBoolean());
+        assertTrue(response.get("warningCodes").toString().contains("CALIBRATED_ASSUMPTIONS"));
+
+        // A provided k still wins, and a posture the table lacks falls back to the default
+        request.setK(0.2);
+        JsonNode provided = objectMapper.readTree(mockMvc.perform(post("/api/tod/estimate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(0.2, provided.get("k").asDouble());
+        assertFalse(provided.has("calibration"));
+
+        request.setK(null);
+        request.setPosture(BodyPosture.FLEXED);
+        JsonNode fallback = objectMapper.readTree(mockMvc.perform(post("/api/tod/estimate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andReturn().getResponse().getContentAsString());
+        assertTrue(fallback.get("warningCodes").toString().contains("DEFAULT_K"));
+        assertFalse(fallback.has("calibration"));
+    }
+}
@@ -0,0 +1,214 @@
+package com.forensics.todbackend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forensics.todbackend.dto.CaseRecord;
+import com.forensics.todbackend.dto.CaseSummary;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.service.CaseStore;
+import com.forensics.todbackend.service.TodService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"tod.store.enabled=true", "tod.store.directory=target/case-store-test"})
+@AutoConfigureMockMvc
+public class CaseStoreTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    Path directory;
+
+    private final TodService todService = new TodService();
+
+    private CaseStore open(DataSize mapSize) throws IOException {
+        return new CaseStore(true, directory, mapSize, 1024, objectMapper);
+    }
+
+    private TodEstimateRequest request(String caseId, double bodyTempC) {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setCaseId(caseId);
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(bodyTempC);
+        request.setTimeSinceFirstReadingHours(0.0);
+        return request;
+    }
+
+    private void record(CaseStore store, TodEstimateRequest request) {
+        TodEstimateResponse response = todService.processTodEstimate(request);
+        assertTrue(store.record(request, response, null));
+    }
+
+    @Test
+    public void testHistoryAndTimeRange() throws IOException {
+        Instant start = Instant.now().minusSeconds(1);
+        // A small mapping forces several remaps
+        CaseStore store = open(DataSize.ofKilobytes(4));
+        for (int i = 0; i < 60; i++) {
+            record(store, request(i % 3 == 0 ? "case-a" : "case-b-" + i, 30.0 + i * 0.05));
+        }
+        store.flush();
+
+        List<CaseRecord> history = store.history("case-a");
+        assertEquals(20, history.size());
+        assertEquals(30.0, history.get(0).getRequest().getBodyTempC());
+        assertEquals("case-a", history.get(19).getResponse().getCaseId());
+        assertTrue(store.history("case-missing").isEmpty());
+
+        List<CaseSummary> cases = store.between(start, Instant.now().plusSeconds(1), 1000);
+        assertEquals(60, cases.size());
+        assertEquals("case-a", cases.get(0).getCaseId());
+        assertEquals(10, store.between(start, Instant.now().plusSeconds(1), 10).size());
+        assertTrue(store.between(start.minusSeconds(60), start, 1000).isEmpty());
+        store.close();
+    }
+
+    @Test
+    public void testRecoversFromTornTailAndLostIndex() throws IOException {
+        CaseStore store = open(DataSize.ofKilobytes(64));
+        for (int i = 0; i < 10; i++) {
+            record(store, request("case-" + i, 30.0));
+        }
+        store.close();
+        // Reopening trims the unused tail of the last mapping
+        open(DataSize.ofKilobytes(64)).close();
+
+        // Lose the last four index entries and append a torn record after the last good one
+        try (FileChannel index = FileChannel.open(directory.resolve("cases.idx"), StandardOpenOption.WRITE)) {
+            index.truncate(6 * 24);
+        }
+        long logSize = Files.size(directory.resolve("cases.log"));
+        try (FileChannel log = FileChannel.open(directory.resolve("cases.log"), StandardOpenOption.WRITE)) {
+            log.write(ByteBuffer.wrap(new byte[]{0, 0, 1, 0, 42, 42, 42, 42, 7}), logSize);
+        }
+
+        store = open(DataSize.ofKilobytes(64));
+        assertEquals(logSize, Files.size(directory.resolve("cases.log")));
+        assertEquals(10 * 24, Files.size(directory.resolve("cases.idx")));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, store.history("case-" + i).size());
+        }
+
+        record(store, request("case-3", 31.0));
+        store.close();
+
+        store = open(DataSize.ofKilobytes(64));
+        List<CaseRecord> history = store.history("case-3");
+        assertEquals(2, history.size());
+        assertEquals(31.0, history.get(1).getRequest().getBodyTempC());
+        store.close();
+    }
+
+    @Test
+    public void testLongCaseHistoryAfterTornIndexedRecord() throws IOException {
+        CaseStore store = open(DataSize.ofKilobytes(64));
+        for (int i = 0; i < 2000; i++) {
+            record(store, request(i % 2 == 0 ? "case-long" : "case-other", 30.0 + i * 0.001));
+            if (i % 500 == 499) {
+                store.flush();
+            }
+        }
+        store.close();
+        open(DataSize.ofKilobytes(64)).close();
+
+        // Corrupt the last record, which the index already points at
+        long logSize = Files.size(directory.resolve("cases.log"));
+        try (FileChannel log = FileChannel.open(directory.resolve("cases.log"), StandardOpenOption.WRITE)) {
+            log.write(ByteBuffer.wrap(new byte[]{'#'}), logSize - 2);
+        }
+
+        store = open(DataSize.ofKilobytes(64));
+        assertEquals(1999 * 24, Files.size(directory.resolve("cases.idx")));
+        List<CaseRecord> history = store.history("case-long");
+        assertEquals(1000, history.size());
+        assertEquals(30.0, history.get(0).getRequest().getBodyTempC());
+        assertEquals(31.998, history.get(999).getRequest().getBodyTempC(), 1e-9);
+        assertEquals(999, store.history("case-other").size());
+
+        record(store, request("case-other", 33.0));
+        store.flush();
+        assertEquals(1000, store.history("case-other").size());
+        assertEquals(33.0, store.history("case-other").get(999).getRequest().getBodyTempC());
+        store.close();
+    }
+
+    @Test
+    public void testCaseEndpoints() throws Exception {
+        String caseId = "endpoint-" + UUID.randomUUID();
+        TodEstimateRequest request = request(caseId, 32.0);
+
+        mockMvc.perform(post("/api/tod/estimate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.caseId").value(caseId));
+
+        request.setBodyTempC(10.0);
+        mockMvc.perform(post("/api/tod/estimate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        // Without a case ID, one is generated and returned
+        String body = mockMvc.perform(post("/api/tod/estimate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request(null, 30.0))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String generated = objectMapper.readTree(body).get("caseId").asText();
+        assertFalse(generated.isEmpty());
+
+        // Writes are asynchronous but in order, so once the last case is visible the others are too
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (mockMvc.perform(get("/api/tod/cases/" + generated)).andReturn().getResponse().getStatus() == 200) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        mockMvc.perform(get("/api/tod/cases/" + generated))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].caseId").value(generated));
+
+        mockMvc.perform(get("/api/tod/cases/" + caseId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].response.timeSinceDeathHours").value(1.79))
+                .andExpect(jsonPath("$[1].error.code").value("RATIO_OUT_OF_RANGE"));
+
+        mockMvc.perform(get("/api/tod/cases/no-such-case"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+
+        mockMvc.perform(get("/api/tod/cases")
+                        .param("from", Instant.now().minusSeconds(60).toString())
+                        .param("to", Instant.now().plusSeconds(60).toString())
+                        .param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.caseId == '" + caseId + "')]").exists());
+    }
+}
@@ -0,0 +1,87 @@
+package com.forensics.todbackend;
+
+import com.forensics.todbackend.dto.CurveResult;
+import com.forensics.todbackend.dto.CurveSpec;
+import com.forensics.todbackend.dto.SecondReading;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.exception.ErrorCode;
+import com.forensics.todbackend.service.CoolingCurve;
+import com.forensics.todbackend.service.TodService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoolingCurveTest {
+
+    private final TodService todService = new TodService();
+
+    @Test
+    public void testSamplesMatchClosedForm() {
+        for (int n : new int[]{2, 3, 17, 1000, 100003}) {
+            double[] hours = new double[n];
+            double[] temps = new double[n];
+            CoolingCurve.sample(37.0, 20.0, 0.1947, 0.5, 30.0, hours, temps);
+            assertEquals(0.5, hours[0], 0.0);
+            assertEquals(30.0, hours[n - 1], 1e-12);
+            for (int i = 0; i < n; i++) {
+                assertEquals(20.0 + 17.0 * Math.exp(-0.1947 * hours[i]), temps[i], 1e-12, "n=" + n + " i=" + i);
+            }
+        }
+    }
+
+    @Test
+    public void testDownsampleKeepsEndsAndPeak() {
+        int n = 10000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = i == 4321 ? 100.0 : Math.sin(i / 500.0);
+        }
+
+        int[] kept = CoolingCurve.downsample(x, y, 200);
+        assertEquals(200, kept.length);
+        assertEquals(0, kept[0]);
+        assertEquals(n - 1, kept[199]);
+        for (int i = 1; i < kept.length; i++) {
+            assertTrue(kept[i] > kept[i - 1]);
+        }
+        assertTrue(Arrays.stream(kept).anyMatch(i -> i == 4321));
+
+        assertEquals(5, CoolingCurve.downsample(new double[5], new double[5], 200).length);
+    }
+
+    @Test
+    public void testCurvePassesThroughEstimate() {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(32.0);
+        request.setTimeSinceFirstReadingHours(0.5);
+        SecondReading second = new SecondReading();
+        second.setBodyTempC(31.0);
+        second.setDeltaHoursFromFirst(1.0);
+        request.setSecondReading(second);
+        CurveSpec spec = new CurveSpec();
+        spec.setSamples(100000);
+        spec.setMaxPoints(300);
+        request.setCurve(spec);
+
+        CurveResult curve = todService.processTodEstimate(request).getCurve();
+        assertEquals(100000, curve.getSamples());
+        assertEquals(300, curve.getHours().length);
+        assertEquals(37.0, curve.getTempC()[0], 1e-9);
+        assertEquals(0.0, curve.getHours()[0], 0.0);
+
+        // Two readings define k exactly, so the curve passes through both
+        assertEquals(2, curve.getReadings().size());
+        for (CurveResult.CurveMarker marker : curve.getReadings()) {
+            assertEquals(marker.getMeasuredTempC(), marker.getCurveTempC(), 1e-3);
+        }
+        assertEquals(curve.getReadings().get(1).getHours() + 2.0, curve.getHours()[299], 1e-3);
+
+        request.getCurve().setToHours(0.0);
+        assertEquals(ErrorCode.INVALID_INPUT, todService.tryProcessTodEstimate(request).error());
+    }
+}
@@ -0,0 +1,61 @@
+package com.forensics.todbackend;
+
+import com.forensics.todbackend.service.CoolingKernel;
+import com.forensics.todbackend.service.Result;
+import com.forensics.todbackend.service.TodService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoolingKernelTest {
+
+    private final TodService todService = new TodService();
+
+    @Test
+    public void testScalarMatchesTodService() {
+        for (double Te = -10.0; Te <= 40.0; Te += 2.5) {
+            for (double Tt = 0.0; Tt <= 45.0; Tt += 1.5) {
+                Result<Double> result = todService.estimateTimeSinceDeath(37.0, Te, Tt, 0.1947);
+                double expected = result.isOk() ? result.value() : Double.NaN;
+                assertEquals(expected, CoolingKernel.timeSinceDeath(37.0, Te, Tt, 0.1947), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluateColumns() {
+        double[] ambient = {20.0, 20.0, 20.0, 25.0};
+        double[] body = {34.0, 32.0, 32.0, 20.0};
+        double[] normal = {37.0, 37.0, 37.0, 37.0};
+        double[] k = {Double.NaN, 0.25, Double.NaN, Double.NaN};
+        double[] second = {32.0, Double.NaN, Double.NaN, Double.NaN};
+        double[] delta = {1.0, Double.NaN, Double.NaN, Double.NaN};
+        double[] offset = {0.0, 2.0, 0.0, 0.0};
+
+        double[] kOut = new double[4];
+        double[] hoursOut = new double[4];
+        byte[] status = new byte[4];
+        CoolingKernel.evaluate(ambient, body, normal, k, second, delta, offset, kOut, hoursOut, status, 0, 4);
+
+        double twoReadingK = todService.estimateK(37.0, 20.0, 34.0, 32.0, 1.0).orThrow();
+        assertEquals(CoolingKernel.OK, status[0]);
+        assertEquals(twoReadingK, kOut[0], 0.0);
+        assertEquals(todService.estimateTimeSinceDeath(37.0, 20.0, 34.0, twoReadingK).orThrow(), hoursOut[0], 0.0);
+
+        assertEquals(0.25, kOut[1], 0.0);
+        assertEquals(todService.estimateTimeSinceDeath(37.0, 20.0, 32.0, 0.25).orThrow() + 2.0, hoursOut[1], 0.0);
+
+        assertEquals(CoolingKernel.DEFAULT_K, kOut[2], 0.0);
+
+        assertEquals(CoolingKernel.RATIO_OUT_OF_RANGE, status[3]);
+        assertTrue(Double.isNaN(hoursOut[3]));
+    }
+
+    @Test
+    public void testStatusCodes() {
+        assertEquals(CoolingKernel.TEMPS_TOO_CLOSE, CoolingKernel.kStatus(20.0, 20.0, 20.0, 19.0, 1.0));
+        assertEquals(CoolingKernel.READINGS_NOT_DECREASING, CoolingKernel.kStatus(37.0, 20.0, 32.0, 34.0, 1.0));
+        assertEquals(CoolingKernel.BODY_NEAR_AMBIENT, CoolingKernel.timeSinceDeathStatus(37.0, 20.0, 20.05, 0.2));
+        assertTrue(Double.isNaN(CoolingKernel.k(37.0, 20.0, 32.0, 34.0, 1.0)));
+    }
+}
@@ -0,0 +1,100 @@
+package com.forensics.todbackend;
+
+import com.forensics.todbackend.dto.CacheStatsResponse;
+import com.forensics.todbackend.dto.CoolingModel;
+import com.forensics.todbackend.dto.CurveSpec;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.exception.ErrorCode;
+import com.forensics.todbackend.exception.ValidationException;
+import com.forensics.todbackend.service.EstimateCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class EstimateCacheTest {
+
+    @Autowired
+    private EstimateCache estimateCache;
+
+    @BeforeEach
+    public void clearCache() {
+        estimateCache.clear();
+    }
+
+    private TodEstimateRequest request(double bodyTempC, String sceneDateTime) {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(bodyTempC);
+        request.setTimeSinceFirstReadingHours(0.0);
+        request.setK(0.1947);
+        request.setSceneDateTime(sceneDateTime);
+        return request;
+    }
+
+    @Test
+    public void testHitAppliesSceneDateTimeAfterLookup() {
+        CacheStatsResponse before = estimateCache.stats();
+
+        TodEstimateResponse first = estimateCache.estimate(request(32.0, "2024-01-15T20:00:00"));
+        TodEstimateResponse second = estimateCache.estimate(request(32.0, "2024-01-16T20:00:00"));
+
+        CacheStatsResponse after = estimateCache.stats();
+        assertEquals(before.getMisses() + 1, after.getMisses());
+        assertEquals(before.getHits() + 1, after.getHits());
+
+        assertEquals(first.getTimeSinceDeathHours(), second.getTimeSinceDeathHours());
+        assertEquals("2024-01-15T18:13:00", first.getEstimatedTimeOfDeath());
+        assertEquals("2024-01-16T18:13:00", second.getEstimatedTimeOfDeath());
+    }
+
+    @Test
+    public void testInputsWithinQuantumShareEntry() {
+        long hits = estimateCache.stats().getHits();
+
+        estimateCache.estimate(request(32.0, null));
+        estimateCache.estimate(request(32.001, null));
+        assertEquals(hits + 1, estimateCache.stats().getHits());
+
+        estimateCache.estimate(request(32.5, null));
+        assertEquals(hits + 1, estimateCache.stats().getHits());
+    }
+
+    @Test
+    public void testValidationFailuresAreNotCached() {
+        long size = estimateCache.stats().getSize();
+        assertThrows(ValidationException.class, () -> estimateCache.estimate(request(15.0, null)));
+        assertThrows(ValidationException.class, () -> estimateCache.estimate(request(15.0, null)));
+        assertEquals(size, estimateCache.stats().getSize());
+    }
+
+    @Test
+    public void testCurveIsCheckedOnHit() {
+        // The curve is not part of the key, so a cached estimate must not skip its checks
+        TodEstimateRequest newton = request(32.0, null);
+        estimateCache.estimate(newton);
+        CurveSpec reversed = new CurveSpec();
+        reversed.setFromHours(10.0);
+        reversed.setToHours(2.0);
+        newton.setCurve(reversed);
+        long hits = estimateCache.stats().getHits();
+        assertEquals(ErrorCode.INVALID_INPUT, estimateCache.tryEstimate(newton).error());
+
+        TodEstimateRequest henssge = request(32.0, null);
+        henssge.setK(null);
+        henssge.setModel(CoolingModel.HENSSGE);
+        henssge.setBodyMassKg(70.0);
+        estimateCache.estimate(henssge);
+        henssge.setCurve(new CurveSpec());
+        assertEquals(ErrorCode.UNSUPPORTED_OPTION, estimateCache.tryEstimate(henssge).error());
+        assertEquals(hits, estimateCache.stats().getHits());
+
+        newton.getCurve().setToHours(null);
+        assertNotNull(estimateCache.estimate(newton).getCurve());
+        assertEquals(hits + 1, estimateCache.stats().getHits());
+    }
+}
@@ -0,0 +1,86 @@
+package com.forensics.todbackend;
+
+import com.forensics.todbackend.dto.CoolingModel;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.exception.ErrorCode;
+import com.forensics.todbackend.exception.ValidationException;
+import com.forensics.todbackend.service.HenssgeModel;
+import com.forensics.todbackend.service.TodService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HenssgeModelTest {
+
+    private final TodService todService = new TodService();
+
+    @Test
+    public void testRoundTripAgainstForwardModel() {
+        double B = HenssgeModel.coolingConstant(70.0, 1.0);
+        for (double Ta : new double[]{-5.0, 10.0, 20.0, 23.0, 26.0, 32.0}) {
+            boolean warm = Ta > HenssgeModel.WARM_AMBIENT_THRESHOLD;
+            double a = warm ? 1.11 : 1.25;
+            double n = warm ? 10.0 : 5.0;
+            for (double t = 0.25; t < 60.0; t += 0.75) {
+                double q = a * Math.exp(B * t) - (a - 1.0) * Math.exp(n * B * t);
+                double Tr = Ta + q * (HenssgeModel.RECTAL_TEMP_AT_DEATH - Ta);
+
+                assertEquals(t, HenssgeModel.timeSinceDeath(Tr, Ta, 70.0, 1.0), 1e-6, "Ta=" + Ta + " t=" + t);
+                assertEquals(HenssgeModel.solveUntabulated(warm, q) / -B,
+                        HenssgeModel.timeSinceDeath(Tr, Ta, 70.0, 1.0), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testNomogramReference() {
+        // 70 kg, naked, 15°C ambient, 30°C rectal: the nomogram reads about 9.7 hours
+        assertEquals(9.7, HenssgeModel.timeSinceDeath(30.0, 15.0, 70.0, 1.0), 0.1);
+        // Heavier clothing slows cooling, so the same temperature means a longer interval
+        assertTrue(HenssgeModel.timeSinceDeath(30.0, 15.0, 70.0, 1.4) > 9.7);
+        assertTrue(Double.isNaN(HenssgeModel.timeSinceDeath(14.0, 15.0, 70.0, 1.0)));
+    }
+
+    @Test
+    public void testProcessTodEstimate_HenssgeModel() {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(15.0);
+        request.setBodyTempC(30.0);
+        request.setTimeSinceFirstReadingHours(0.0);
+        request.setModel(CoolingModel.HENSSGE);
+
+        assertThrows(ValidationException.class, () -> todService.processTodEstimate(request));
+
+        request.setBodyMassKg(70.0);
+        TodEstimateResponse response = todService.processTodEstimate(request);
+
+        assertEquals(CoolingModel.HENSSGE, response.getModel());
+        assertEquals(9.7, response.getTimeSinceDeathHours(), 0.1);
+        assertTrue(response.getK() > 0);
+    }
+
+    @Test
+    public void testCorrectedMassBeyondNomogramIsRejected() {
+        // B turns positive near 445 kg corrected mass and is close to zero well before
+        assertTrue(HenssgeModel.coolingConstant(300.0, 3.0) > 0);
+        assertTrue(Double.isNaN(HenssgeModel.timeSinceDeath(30.0, 15.0, 300.0, 3.0)));
+
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(15.0);
+        request.setBodyTempC(30.0);
+        request.setTimeSinceFirstReadingHours(0.0);
+        request.setModel(CoolingModel.HENSSGE);
+        for (double[] massAndFactor : new double[][]{{300.0, 3.0}, {250.0, 2.0}, {150.0, 2.8}}) {
+            request.setBodyMassKg(massAndFactor[0]);
+            request.setCorrectionFactor(massAndFactor[1]);
+            ValidationException e = assertThrows(ValidationException.class, () -> todService.processTodEstimate(request));
+            assertEquals(ErrorCode.K_OUT_OF_RANGE, e.getCode());
+        }
+
+        // The end of the scale still solves
+        request.setBodyMassKg(100.0);
+        request.setCorrectionFactor(2.0);
+        assertTrue(todService.processTodEstimate(request).getTimeSinceDeathHours() > 9.7);
+    }
+}
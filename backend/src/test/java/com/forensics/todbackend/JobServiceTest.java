@@ -0,0 +1,207 @@
+package com.forensics.todbackend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forensics.todbackend.dto.JobPriority;
+import com.forensics.todbackend.dto.JobState;
+import com.forensics.todbackend.dto.JobStatus;
+import com.forensics.todbackend.dto.SecondReading;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.service.JobService;
+import com.forensics.todbackend.service.TodService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"tod.jobs.directory=target/jobs-test", "tod.jobs.chunk-size=3000",
+        "tod.jobs.parallelism=4"})
+@AutoConfigureMockMvc
+public class JobServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TodService todService;
+
+    @TempDir
+    Path directory;
+
+    private static ByteArrayInputStream csv(int rows) {
+        StringBuilder csv = new StringBuilder("ambientTempC,bodyTempC\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("20,").append(25 + (i % 100) * 0.1).append('\n');
+        }
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JobStatus await(JobService jobs, String jobId) throws InterruptedException {
+        for (int attempt = 0; attempt < 500; attempt++) {
+            JobStatus status = jobs.status(jobId);
+            if (status.getState() != JobState.QUEUED && status.getState() != JobState.RUNNING) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        fail("Job " + jobId + " did not finish");
+        return null;
+    }
+
+    private double expectedHours(String bodyTempC, String k, String secondBodyTempC, String delta, double offset) {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(Double.parseDouble(bodyTempC));
+        request.setTimeSinceFirstReadingHours(offset);
+        if (k != null) {
+            request.setK(Double.parseDouble(k));
+        }
+        if (secondBodyTempC != null) {
+            SecondReading second = new SecondReading();
+            second.setBodyTempC(Double.parseDouble(secondBodyTempC));
+            second.setDeltaHoursFromFirst(Double.parseDouble(delta));
+            request.setSecondReading(second);
+        }
+        TodEstimateResponse response = todService.processTodEstimate(request);
+        return response.getTimeSinceDeathHours();
+    }
+
+    @Test
+    public void testPriorityOrderAndCancellation() throws Exception {
+        JobService jobs = new JobService(directory, 1, 10, 4096, 2, Duration.ofHours(1));
+        ReflectionTestUtils.setField(jobs, "todService", todService);
+        try {
+            // The single runner is busy with the first job while the others queue behind it
+            String running = jobs.submit(csv(300_000), JobPriority.NORMAL).getJobId();
+            String low = jobs.submit(csv(10), JobPriority.LOW).getJobId();
+            String high = jobs.submit(csv(10), JobPriority.HIGH).getJobId();
+            String queued = jobs.submit(csv(10), JobPriority.NORMAL).getJobId();
+
+            assertEquals(JobState.CANCELLED, jobs.cancel(queued).getState());
+            jobs.cancel(running);
+
+            assertEquals(JobState.CANCELLED, await(jobs, running).getState());
+            assertNull(jobs.result(running));
+            JobStatus lowStatus = await(jobs, low);
+            JobStatus highStatus = await(jobs, high);
+            assertEquals(JobState.COMPLETED, lowStatus.getState());
+            assertEquals(JobState.COMPLETED, highStatus.getState());
+            assertEquals(10L, highStatus.getRowsProcessed());
+            assertFalse(Instant.parse(highStatus.getStartedAt()).isAfter(Instant.parse(lowStatus.getStartedAt())));
+            assertNull(jobs.status(queued).getStartedAt());
+        } finally {
+            jobs.shutdown();
+        }
+    }
+
+    @Test
+    public void testCsvRoundTrip() throws Exception {
+        StringBuilder csv = new StringBuilder(
+                "caseId,sceneDateTime,AmbientTempC,bodyTempC,timeSinceFirstReadingHours,k,secondBodyTempC,secondDeltaHours\n");
+        csv.append("c-1,2024-01-15T14:00:00,20,32,0,,,\n");
+        csv.append("c-2,,20,30,1.5,0.25,,\n");
+        csv.append("\"c,3\",,20,32,0,,31,1\n");
+        csv.append("c-4,,20,10,0,,,\n");           // Below ambient
+        csv.append("c-5,,20,abc,0,,,\n");          // Not a number
+        csv.append("c-6,yesterday,20,32,0,,,\n");  // Bad scene time
+        // Enough rows to split a chunk across workers
+        for (int i = 0; i < 5000; i++) {
+            csv.append(",,20,").append(25 + (i % 100) * 0.1).append(",0,,,\n");
+        }
+
+        String body = mockMvc.perform(post("/api/tod/jobs")
+                        .param("priority", "HIGH")
+                        .contentType("text/csv")
+                        .content(csv.toString()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.priority").value("HIGH"))
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(body).get("jobId").asText();
+
+        for (int attempt = 0; attempt < 500; attempt++) {
+            String state = objectMapper.readTree(mockMvc.perform(get("/api/tod/jobs/" + jobId))
+                    .andReturn().getResponse().getContentAsString()).get("state").asText();
+            if (state.equals("COMPLETED")) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        mockMvc.perform(get("/api/tod/jobs/" + jobId))
+                .andExpect(jsonPath("$.state").value("COMPLETED"))
+                .andExpect(jsonPath("$.rowsProcessed").value(5006))
+                .andExpect(jsonPath("$.rowsFailed").value(3))
+                .andExpect(jsonPath("$.progress").value(1.0));
+
+        String result = mockMvc.perform(get("/api/tod/jobs/" + jobId + "/result"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = result.split("\n");
+        assertEquals(5007, lines.length);
+        assertEquals("row,caseId,k,timeSinceDeathHours,estimatedTimeOfDeath,error,message", lines[0]);
+
+        String[] first = lines[1].split(",", -1);
+        assertEquals("c-1", first[1]);
+        assertEquals(expectedHours("32", null, null, null, 0), Double.parseDouble(first[3]));
+        assertEquals(todService.processTodEstimate(sceneRequest()).getEstimatedTimeOfDeath(), first[4]);
+        assertEquals(expectedHours("30", "0.25", null, null, 1.5),
+                Double.parseDouble(lines[2].split(",", -1)[3]));
+        assertTrue(lines[3].startsWith("3,\"c,3\","), lines[3]);
+        assertEquals(expectedHours("32", null, "31", "1", 0),
+                Double.parseDouble(lines[3].substring(lines[3].lastIndexOf('"') + 1).split(",", -1)[2]));
+        assertEquals("4,c-4,,,,RATIO_OUT_OF_RANGE,", lines[4]);
+        assertEquals("5,c-5,,,,INVALID_INPUT,bodyTempC is not a number: abc", lines[5]);
+        assertTrue(lines[6].startsWith("6,c-6,,,,INVALID_INPUT,sceneDateTime"), lines[6]);
+        assertEquals(expectedHours("26.5", null, null, null, 0),
+                Double.parseDouble(lines[7 + 2515].split(",", -1)[3]));
+
+        mockMvc.perform(delete("/api/tod/jobs/" + jobId))
+                .andExpect(jsonPath("$.state").value("COMPLETED"));
+        mockMvc.perform(get("/api/tod/jobs/no-such-job"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+    }
+
+    private TodEstimateRequest sceneRequest() {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(32.0);
+        request.setTimeSinceFirstReadingHours(0.0);
+        request.setSceneDateTime("2024-01-15T14:00:00");
+        return request;
+    }
+
+    @Test
+    public void testMissingColumnFailsJob() throws IOException, InterruptedException {
+        JobService jobs = new JobService(directory, 1, 10, 100, 1, Duration.ofHours(1));
+        ReflectionTestUtils.setField(jobs, "todService", todService);
+        try {
+            String jobId = jobs.submit(new ByteArrayInputStream("caseId,bodyTempC\nx,30\n".getBytes()),
+                    JobPriority.NORMAL).getJobId();
+            JobStatus status = await(jobs, jobId);
+            assertEquals(JobState.FAILED, status.getState());
+            assertEquals("Missing required column ambientTempC", status.getMessage());
+        } finally {
+            jobs.shutdown();
+        }
+    }
+}
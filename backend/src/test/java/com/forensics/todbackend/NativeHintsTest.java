@@ -0,0 +1,37 @@
+package com.forensics.todbackend;
+
+import com.forensics.todbackend.config.NativeHints;
+import com.forensics.todbackend.dto.CaseRecord;
+import com.forensics.todbackend.dto.ErrorResponse;
+import com.forensics.todbackend.dto.ProbeRevision;
+import com.forensics.todbackend.dto.SecondReading;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.exception.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NativeHintsTest {
+
+    @Test
+    public void testDtosAndBuildersAreRegistered() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+        new NativeHints.Registrar().registerHints(hints, getClass().getClassLoader());
+
+        for (Class<?> type : new Class<?>[]{TodEstimateRequest.class, SecondReading.class,
+                TodEstimateResponse.class, ErrorResponse.class, CaseRecord.class, ProbeRevision.class}) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(type)
+                    .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints), type.getName());
+        }
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(TodEstimateRequest.class.getMethod("setSecondReading",
+                SecondReading.class)).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(ErrorResponse.class.getMethod("fieldErrors")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(ErrorCode.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(
+                TodEstimateResponse.TodEstimateResponseBuilder.class.getMethod("build")).test(hints));
+    }
+}
@@ -0,0 +1,171 @@
+package com.forensics.todbackend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forensics.todbackend.dto.ProbeReading;
+import com.forensics.todbackend.dto.ProbeRevision;
+import com.forensics.todbackend.dto.ProbeSessionRequest;
+import com.forensics.todbackend.exception.ErrorCode;
+import com.forensics.todbackend.exception.SessionNotFoundException;
+import com.forensics.todbackend.service.ProbeSessionService;
+import com.forensics.todbackend.service.Result;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ProbeSessionTest {
+
+    @Autowired
+    private ProbeSessionService probeSessionService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ProbeReading body(String takenAt, double bodyTempC) {
+        ProbeReading reading = new ProbeReading();
+        reading.setTakenAt(takenAt);
+        reading.setBodyTempC(bodyTempC);
+        return reading;
+    }
+
+    /** Body temperature {@code hours} after a death at 37°C in 20°C with k = 0.2 */
+    private double cooled(double hours) {
+        return 20.0 + 17.0 * Math.exp(-0.2 * hours);
+    }
+
+    @Test
+    public void testRevisionsConvergeOnFittedK() {
+        ProbeSessionRequest request = new ProbeSessionRequest();
+        request.setAmbientTempC(20.0);
+        String id = probeSessionService.open(request).getSessionId();
+
+        // Death at 12:00; the first reading uses the default k, later ones fit it
+        ProbeRevision first = probeSessionService.push(id, body("2024-01-15T14:00:00", cooled(2.0))).orThrow();
+        assertEquals("default", first.getKSource());
+        assertEquals(1L, first.getRevision());
+
+        ProbeRevision revision = null;
+        for (int minutes = 10; minutes <= 120; minutes += 10) {
+            String takenAt = String.format("2024-01-15T%02d:%02d:00", 14 + minutes / 60, minutes % 60);
+            revision = probeSessionService.push(id, body(takenAt, cooled(2.0 + minutes / 60.0))).orThrow();
+        }
+        assertEquals("readings_fit", revision.getKSource());
+        assertEquals(0.2, revision.getK(), 1e-9);
+        assertEquals(13, revision.getBodyReadings());
+        assertEquals(4.0, revision.getTimeSinceDeathHours());
+        assertEquals("2024-01-15T12:00:00", revision.getEstimatedTimeOfDeath());
+        assertEquals("2024-01-15T16:00:00", revision.getLastReadingAt());
+
+        // A reading below ambient is rejected and leaves the session as it was
+        Result<ProbeRevision> rejected = probeSessionService.push(id, body("2024-01-15T16:10:00", 19.0));
+        assertEquals(ErrorCode.INVALID_READINGS, rejected.error());
+        assertEquals(revision, probeSessionService.current(id));
+
+        probeSessionService.close(id);
+        assertThrows(SessionNotFoundException.class, () -> probeSessionService.current(id));
+    }
+
+    @Test
+    public void testStalledSubscriberDoesNotBlockPushes() throws Exception {
+        ProbeSessionRequest request = new ProbeSessionRequest();
+        request.setAmbientTempC(20.0);
+        String id = probeSessionService.open(request).getSessionId();
+        SseEmitter emitter = probeSessionService.subscribe(id);
+
+        // A send in progress holds the emitter's monitor; stand in for one that never finishes
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread subscriber = Thread.ofPlatform().start(() -> {
+            synchronized (emitter) {
+                stalled.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        stalled.await();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                for (int minutes = 0; minutes <= 50; minutes += 10) {
+                    String takenAt = String.format("2024-01-15T14:%02d:00", minutes);
+                    probeSessionService.push(id, body(takenAt, cooled(2.0 + minutes / 60.0))).orThrow();
+                }
+                assertEquals(6, probeSessionService.current(id).getBodyReadings());
+            });
+        } finally {
+            release.countDown();
+            subscriber.join();
+            probeSessionService.close(id);
+        }
+    }
+
+    @Test
+    public void testSubscribersReceiveRevisions() throws Exception {
+        ProbeSessionRequest request = new ProbeSessionRequest();
+        request.setAmbientTempC(20.0);
+        request.setK(0.2);
+        String body = mockMvc.perform(post("/api/tod/sessions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value("INSUFFICIENT_READINGS"))
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(body).get("sessionId").asText();
+
+        MvcResult events = mockMvc.perform(get("/api/tod/sessions/" + id + "/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(post("/api/tod/sessions/" + id + "/readings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body("2024-01-15T14:00:00", cooled(2.0)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.kSource").value("provided"))
+                .andExpect(jsonPath("$.estimatedTimeOfDeath").value("2024-01-15T12:00:00"));
+
+        // Events are written by a sender thread, shortly after the push returns
+        String stream = events.getResponse().getContentAsString();
+        for (long deadline = System.nanoTime() + 5_000_000_000L;
+             !stream.contains("\"revision\":1,") && System.nanoTime() < deadline; Thread.sleep(10)) {
+            stream = events.getResponse().getContentAsString();
+        }
+        assertTrue(stream.contains("event:revision\n"), stream);
+        assertTrue(stream.contains("id:0\n"), stream);
+        assertTrue(stream.contains("id:1\n"), stream);
+        assertTrue(stream.contains("\"estimatedTimeOfDeath\":\"2024-01-15T12:00:00\""), stream);
+
+        mockMvc.perform(delete("/api/tod/sessions/" + id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/tod/sessions/" + id))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+
+        // An explicit null replaces the default and must be rejected, not unboxed
+        request.setNormalBodyTempC(null);
+        mockMvc.perform(post("/api/tod/sessions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors.normalBodyTempC").exists());
+    }
+}
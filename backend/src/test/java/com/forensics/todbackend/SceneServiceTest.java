@@ -0,0 +1,183 @@
+package com.forensics.todbackend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forensics.todbackend.dto.SceneBody;
+import com.forensics.todbackend.dto.SceneBodyResult;
+import com.forensics.todbackend.dto.SceneRequest;
+import com.forensics.todbackend.dto.SceneResponse;
+import com.forensics.todbackend.dto.SecondReading;
+import com.forensics.todbackend.dto.TimedReading;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.exception.ErrorCode;
+import com.forensics.todbackend.service.SceneService;
+import com.forensics.todbackend.service.TodService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SceneServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SceneService sceneService;
+
+    private final TodService todService = new TodService();
+
+    /** Readings every half hour along a Newton curve, starting {@code hoursDead} after death */
+    private static SceneBody body(String id, double Te, double k, double hoursDead, int count,
+                                  double noiseC, SplittableRandom random) {
+        List<TimedReading> readings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double hours = i * 0.5;
+            TimedReading reading = new TimedReading();
+            reading.setHoursFromFirst(hours);
+            reading.setBodyTempC(Te + (37.0 - Te) * Math.exp(-k * (hoursDead + hours)) + noiseC * random.nextGaussian());
+            readings.add(reading);
+        }
+        SceneBody body = new SceneBody();
+        body.setBodyId(id);
+        body.setReadings(readings);
+        body.setTimeSinceFirstReadingHours(1.0);
+        return body;
+    }
+
+    private static SceneRequest scene(List<SceneBody> bodies) {
+        SceneRequest request = new SceneRequest();
+        request.setBodies(bodies);
+        request.setSceneDateTime("2024-01-15T20:00:00");
+        return request;
+    }
+
+    @Test
+    public void testJointFitRecoversAmbientAndFlagsOutliers() {
+        double Te = 14.3;
+        SplittableRandom random = new SplittableRandom(7);
+        List<SceneBody> bodies = new ArrayList<>();
+        double[] k = new double[200];
+        double[] hoursDead = new double[200];
+        for (int b = 0; b < 200; b++) {
+            k[b] = 0.08 + 0.22 * random.nextDouble();
+            hoursDead[b] = 2.0 + 6.0 * random.nextDouble();
+            bodies.add(body("b" + b, Te, k[b], hoursDead[b], 20, 0.02, random));
+        }
+        bodies.add(body("fast", Te, 1.2, 0.5, 20, 0.02, random));
+        bodies.add(body("noisy", Te, 0.15, 4.0, 20, 0.5, random));
+        SceneBody oneTime = body("one-time", Te, 0.15, 4.0, 2, 0.0, random);
+        oneTime.getReadings().get(1).setHoursFromFirst(0.0);
+        bodies.add(oneTime);
+
+        SceneResponse scene = sceneService.estimate(scene(bodies)).orThrow();
+
+        assertEquals(Te, scene.getAmbientTempC(), 0.05);
+        assertTrue(scene.getAmbientStandardErrorC() > 0 && scene.getAmbientStandardErrorC() < 0.05);
+        assertEquals(202, scene.getEstimatedBodies());
+        assertEquals(203, scene.getResults().size());
+        for (int b = 0; b < 200; b++) {
+            SceneBodyResult result = scene.getResults().get(b);
+            assertEquals("b" + b, result.getBodyId());
+            assertEquals(k[b], result.getK(), 0.01);
+            assertEquals(hoursDead[b] + 1.0, result.getTimeSinceDeathHours(), 0.3);
+            assertTrue(Math.abs(result.getKRobustZ()) < 3.5);
+        }
+        assertEquals(ErrorCode.INSUFFICIENT_READINGS, scene.getResults().get(202).getError());
+
+        assertFalse(scene.getConsistency().getConsistent());
+        assertEquals(List.of("fast"), scene.getConsistency().getKOutliers());
+        assertEquals(List.of("noisy"), scene.getConsistency().getResidualOutliers());
+        assertNull(scene.getConsistency().getAmbientOffsetC());
+    }
+
+    @Test
+    public void testSmallScenesRecoverAmbient() {
+        // Raising Te until the coldest readings fall below it must not look like a better fit
+        SplittableRandom random = new SplittableRandom(3);
+        SceneResponse single = sceneService.estimate(scene(List.of(
+                body("only", 15.0, 0.1, 5.0, 8, 0.05, random)))).orThrow();
+        // Three and a half hours of cooling pin Te down only to a few degrees, but honestly so
+        assertTrue(single.getAmbientStandardErrorC() > 0 && single.getAmbientStandardErrorC() < 5.0);
+        assertEquals(15.0, single.getAmbientTempC(), 2.0 * single.getAmbientStandardErrorC());
+        assertEquals(0.1, single.getResults().get(0).getK(), 0.03);
+        assertEquals(6.0, single.getResults().get(0).getTimeSinceDeathHours(), 0.5);
+
+        SceneResponse pair = sceneService.estimate(scene(List.of(
+                body("a", 15.0, 0.1, 5.0, 8, 0.05, random),
+                body("b", 15.0, 0.2, 3.0, 3, 0.05, random)))).orThrow();
+        assertTrue(pair.getAmbientStandardErrorC() > 0 && pair.getAmbientStandardErrorC() < 5.0);
+        assertEquals(15.0, pair.getAmbientTempC(), 2.0 * pair.getAmbientStandardErrorC());
+        assertEquals(6.0, pair.getResults().get(0).getTimeSinceDeathHours(), 0.5);
+        assertEquals(4.0, pair.getResults().get(1).getTimeSinceDeathHours(), 0.5);
+    }
+
+    @Test
+    public void testMeasuredAmbientFixesTwoReadingScenes() throws Exception {
+        SplittableRandom random = new SplittableRandom(11);
+        List<SceneBody> bodies = List.of(body("a", 18.0, 0.12, 3.0, 2, 0.0, random),
+                body("b", 18.0, 0.2, 5.0, 2, 0.0, random));
+        SceneRequest request = scene(bodies);
+
+        // Two readings per body fit any ambient exactly, so it cannot be fitted without a thermometer
+        mockMvc.perform(post("/api/tod/scene").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INSUFFICIENT_READINGS"));
+
+        // An explicit null replaces the default and must be rejected, not unboxed
+        request.setAmbientTempC(18.0);
+        bodies.get(1).setNormalBodyTempC(null);
+        mockMvc.perform(post("/api/tod/scene").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors['bodies[1].normalBodyTempC']").exists());
+
+        bodies.get(1).setNormalBodyTempC(37.0);
+        JsonNode response = objectMapper.readTree(mockMvc.perform(post("/api/tod/scene")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(18.0, response.get("ambientTempC").asDouble());
+        assertEquals(0.0, response.get("consistency").get("ambientOffsetC").asDouble());
+        assertFalse(response.has("ambientStandardErrorC"));
+
+        // Each body then matches its own two-reading estimate at that ambient
+        for (int b = 0; b < bodies.size(); b++) {
+            List<TimedReading> readings = bodies.get(b).getReadings();
+            TodEstimateRequest single = new TodEstimateRequest();
+            single.setAmbientTempC(18.0);
+            single.setBodyTempC(readings.get(0).getBodyTempC());
+            single.setTimeSinceFirstReadingHours(1.0);
+            single.setSceneDateTime("2024-01-15T20:00:00");
+            SecondReading second = new SecondReading();
+            second.setBodyTempC(readings.get(1).getBodyTempC());
+            second.setDeltaHoursFromFirst(readings.get(1).getHoursFromFirst());
+            single.setSecondReading(second);
+            TodEstimateResponse expected = todService.processTodEstimate(single);
+
+            JsonNode result = response.get("results").get(b);
+            // Up to the search tolerance on the ambient temperature
+            assertEquals(expected.getK(), result.get("k").asDouble(), 1e-6);
+            assertEquals(expected.getTimeSinceDeathHours(), result.get("timeSinceDeathHours").asDouble(), 0.011);
+            assertTrue(result.get("estimatedTimeOfDeath").asText().startsWith("2024-01-15T"));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.forensics.todbackend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forensics.todbackend.dto.SweepAxis;
+import com.forensics.todbackend.dto.SweepRequest;
+import com.forensics.todbackend.dto.SweepResponse;
+import com.forensics.todbackend.exception.ErrorCode;
+import com.forensics.todbackend.service.Result;
+import com.forensics.todbackend.service.SweepService;
+import com.forensics.todbackend.service.TodService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SweepServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final TodService todService = new TodService();
+
+    private static SweepAxis axis(double from, double to, int steps) {
+        SweepAxis axis = new SweepAxis();
+        axis.setFrom(from);
+        axis.setTo(to);
+        axis.setSteps(steps);
+        return axis;
+    }
+
+    private static SweepRequest request(SweepAxis ambient, SweepAxis k, SweepAxis body) {
+        SweepRequest request = new SweepRequest();
+        request.setAmbientTempC(ambient);
+        request.setK(k);
+        request.setBodyTempC(body);
+        return request;
+    }
+
+    @Test
+    public void testGridMatchesSingleEstimates() {
+        SweepService sweepService = new SweepService(1_000_000, 4);
+        // Ambient reaches 37°C and k reaches 0, so some cells are invalid for each reason
+        SweepResponse sweep = sweepService.sweep(request(axis(0.0, 37.0, 38), axis(0.0, 0.6, 25),
+                axis(15.0, 40.0, 251))).orThrow();
+        sweepService.shutdown();
+
+        assertEquals(38L * 25 * 251, sweep.getCells());
+        assertEquals(sweep.getCells(), sweep.getHours().length);
+        long invalid = 0;
+        for (int a = 0; a < 38; a++) {
+            for (int j = 0; j < 25; j++) {
+                for (int b = 0; b < 251; b++) {
+                    float hours = sweep.getHours()[(a * 25 + j) * 251 + b];
+                    double k = sweep.getK()[j];
+                    Result<Double> expected = k > 0
+                            ? todService.estimateTimeSinceDeath(37.0, sweep.getAmbientTempC()[a], sweep.getBodyTempC()[b], k)
+                            : Result.failure(ErrorCode.K_OUT_OF_RANGE, "");
+                    if (expected.isOk()) {
+                        assertEquals((float) (Math.round(expected.value() * 100.0) / 100.0), hours);
+                    } else {
+                        assertEquals(-1f, hours);
+                        invalid++;
+                    }
+                }
+            }
+        }
+        assertEquals(invalid, sweep.getInvalidCells());
+        assertEquals(38L * 251, sweep.getInvalidReasons().get(ErrorCode.K_OUT_OF_RANGE));
+        assertTrue(sweep.getInvalidReasons().get(ErrorCode.RATIO_OUT_OF_RANGE) > 0);
+        assertTrue(sweep.getInvalidReasons().get(ErrorCode.TEMPS_TOO_CLOSE) > 0);
+        assertTrue(sweep.getInvalidReasons().get(ErrorCode.BODY_NEAR_AMBIENT) > 0);
+    }
+
+    @Test
+    public void testSweepEndpoint() throws Exception {
+        mockMvc.perform(post("/api/tod/sweep")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request(axis(18.0, 22.0, 3),
+                                axis(0.1947, 0.1947, 1), axis(32.0, 34.0, 2)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ambientTempC.length()").value(3))
+                .andExpect(jsonPath("$.hours.length()").value(6))
+                .andExpect(jsonPath("$.hours[2]").value(1.79))
+                .andExpect(jsonPath("$.invalidCells").value(0));
+
+        mockMvc.perform(post("/api/tod/sweep")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request(axis(0.0, 30.0, 10000),
+                                axis(0.1, 0.3, 1000), axis(25.0, 35.0, 2)))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_INPUT"));
+
+        mockMvc.perform(post("/api/tod/sweep")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request(axis(0.0, 30.0, 0),
+                                axis(0.1, 0.3, 10), null))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors['ambientTempC.steps']").exists())
+                .andExpect(jsonPath("$.fieldErrors.bodyTempC").exists());
+
+        // Explicit nulls replace the defaults and must be rejected, not unboxed
+        SweepAxis nullSteps = axis(0.1, 0.3, 1);
+        nullSteps.setSteps(null);
+        SweepRequest nulls = request(axis(18.0, 22.0, 3), nullSteps, axis(32.0, 34.0, 2));
+        nulls.setNormalBodyTempC(null);
+        mockMvc.perform(post("/api/tod/sweep")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(nulls)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors['k.steps']").exists())
+                .andExpect(jsonPath("$.fieldErrors.normalBodyTempC").exists());
+    }
+}
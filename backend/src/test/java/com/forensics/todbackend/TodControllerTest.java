@@ -1,21 +1,29 @@
 package com.forensics.todbackend;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.forensics.todbackend.dto.ExplainLevel;
 import com.forensics.todbackend.dto.TodEstimateRequest;
 import com.forensics.todbackend.dto.SecondReading;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
-@AutoConfigureWebMvc
+@AutoConfigureMockMvc
+@AutoConfigureObservability
 public class TodControllerTest {
 
     @Autowired
@@ -28,7 +36,32 @@ public class TodControllerTest {
     public void testHealthEndpoint() throws Exception {
         mockMvc.perform(get("/api/tod/health"))
                 .andExpect(status().isOk())
-                .andExpect(content().string("TOD Calculator API is running"));
+                .andExpect(jsonPath("$.status").value("UP"))
+                .andExpect(jsonPath("$.liveness").value("CORRECT"))
+                .andExpect(jsonPath("$.readiness").value("ACCEPTING_TRAFFIC"));
+    }
+
+    @Test
+    public void testPrometheusEndpoint_ExposesStageTimers() throws Exception {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(10.0);
+        request.setTimeSinceFirstReadingHours(0.0);
+
+        mockMvc.perform(post("/api/tod/estimate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(metrics.contains("tod_estimate_stage_seconds_count{source=\"default\",stage=\"k_determination\""));
+        assertTrue(metrics.contains("tod_estimate_k_per_hour_bucket"));
+        assertTrue(metrics.contains("tod_validation_errors_total{cause=\"ratio_out_of_range\""));
+        assertTrue(metrics.contains("tod_async_queue_depth"));
+        assertTrue(metrics.contains("cache_gets_total{cache=\"tod.estimates\""));
     }
 
     @Test
@@ -48,7 +81,21 @@ public class TodControllerTest {
                 .andExpect(jsonPath("$.timeSinceDeathHours").exists())
                 .andExpect(jsonPath("$.estimatedTimeOfDeath").exists())
                 .andExpect(jsonPath("$.steps").isArray())
-                .andExpect(jsonPath("$.warnings").isArray());
+                .andExpect(jsonPath("$.warnings").isArray())
+                .andExpect(jsonPath("$.trace[0].code").value("NEWTON_LAW"))
+                .andExpect(jsonPath("$.trace[2].code").value("K_PROVIDED"))
+                .andExpect(jsonPath("$.trace[2].operands[0]").value(0.1947))
+                .andExpect(jsonPath("$.warningCodes[0]").value("PROVIDED_K"));
+
+        request.setExplain(ExplainLevel.CODES);
+        mockMvc.perform(post("/api/tod/estimate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.trace[2].code").value("K_PROVIDED"))
+                .andExpect(jsonPath("$.warningCodes").isArray())
+                .andExpect(jsonPath("$.steps").doesNotExist())
+                .andExpect(jsonPath("$.warnings").doesNotExist());
     }
 
     @Test
@@ -62,6 +109,44 @@ public class TodControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void testEstimateTimeOfDeath_NullRequestDefaults() throws Exception {
+        // An explicit null replaces the default and must be rejected, not unboxed
+        for (String field : new String[]{"correctionFactor", "clothingLayers", "medium", "windSpeedMs", "posture"}) {
+            mockMvc.perform(post("/api/tod/estimate")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ambientTempC\":15.0,\"bodyTempC\":30.0,\"timeSinceFirstReadingHours\":0.0,"
+                                    + "\"model\":\"HENSSGE\",\"bodyMassKg\":70.0,\"" + field + "\":null}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.fieldErrors." + field).exists());
+        }
+    }
+
+    @Test
+    public void testEstimateTimeOfDeath_NullCurveDefaults() throws Exception {
+        // An explicit null replaces the default and must be rejected, not unboxed
+        for (String field : new String[]{"fromHours", "samples", "maxPoints"}) {
+            mockMvc.perform(post("/api/tod/estimate")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ambientTempC\":20.0,\"bodyTempC\":32.0,\"timeSinceFirstReadingHours\":0.0,"
+                                    + "\"k\":0.1947,\"curve\":{\"" + field + "\":null}}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.fieldErrors['curve." + field + "']").exists());
+        }
+    }
+
+    @Test
+    public void testEstimateTimeOfDeath_NullUncertaintyDefaults() throws Exception {
+        for (String field : new String[]{"ambientSdC", "bodySdC", "normalBodySdC", "kSd", "samples"}) {
+            mockMvc.perform(post("/api/tod/estimate")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ambientTempC\":20.0,\"bodyTempC\":32.0,\"timeSinceFirstReadingHours\":0.0,"
+                                    + "\"k\":0.1947,\"uncertainty\":{\"" + field + "\":null}}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.fieldErrors['uncertainty." + field + "']").exists());
+        }
+    }
+
     @Test
     public void testEstimateTimeOfDeath_WithSecondReading() throws Exception {
         TodEstimateRequest request = new TodEstimateRequest();
@@ -82,4 +167,193 @@ public class TodControllerTest {
                 .andExpect(jsonPath("$.k").exists())
                 .andExpect(jsonPath("$.timeSinceDeathHours").exists());
     }
+
+    @Test
+    public void testEstimateBatch_JsonArrayWithInvalidRecord() throws Exception {
+        String body = "["
+                + "{\"ambientTempC\":20.0,\"bodyTempC\":32.0,\"timeSinceFirstReadingHours\":0.0,\"k\":0.1947},"
+                + "{\"ambientTempC\":25.0,\"bodyTempC\":20.0,\"timeSinceFirstReadingHours\":0.0},"
+                + "{\"bodyTempC\":32.0,\"timeSinceFirstReadingHours\":0.0}"
+                + "]";
+
+        MvcResult pending = mockMvc.perform(post("/api/tod/estimate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().trim().split("\n");
+
+        assertEquals(3, lines.length);
+        assertEquals(0, objectMapper.readTree(lines[0]).get("index").asInt());
+        assertTrue(objectMapper.readTree(lines[0]).has("result"));
+        assertEquals("Validation Error", objectMapper.readTree(lines[1]).get("error").asText());
+        assertEquals("Validation Failed", objectMapper.readTree(lines[2]).get("error").asText());
+        assertTrue(objectMapper.readTree(lines[2]).get("fieldErrors").has("ambientTempC"));
+    }
+
+    @Test
+    public void testEstimateBatch_UnboundRecordDoesNotStopStream() throws Exception {
+        String good = "{\"ambientTempC\":20.0,\"bodyTempC\":32.0,\"timeSinceFirstReadingHours\":0.0,\"k\":0.1947}\n";
+        String body = good
+                + "{\"ambientTempC\":20.0,\"bodyTempC\":\"warm\",\"timeSinceFirstReadingHours\":0.0}\n"
+                + "{\"ambientTempC\":20.0,\"bodyTempC\":32.0,\"readings\":{\"nested\":[1,2]}}\n"
+                + good + good
+                + "{\"ambientTempC\":20.0,,}\n"
+                + good;
+
+        MvcResult pending = mockMvc.perform(post("/api/tod/estimate/batch")
+                .contentType("application/x-ndjson")
+                .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().trim().split("\n");
+
+        // Records that do not bind are reported in place; a syntax error still ends the stream
+        assertEquals(6, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(i, objectMapper.readTree(lines[i]).get("index").asInt());
+        }
+        assertTrue(objectMapper.readTree(lines[0]).has("result"));
+        assertEquals("Malformed Record", objectMapper.readTree(lines[1]).get("error").asText());
+        assertEquals("Malformed Record", objectMapper.readTree(lines[2]).get("error").asText());
+        assertTrue(objectMapper.readTree(lines[3]).has("result"));
+        assertTrue(objectMapper.readTree(lines[4]).has("result"));
+        assertEquals("Malformed Record", objectMapper.readTree(lines[5]).get("error").asText());
+    }
+
+    @Test
+    public void testEstimateBatch_NdjsonPreservesOrder() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            body.append("{\"ambientTempC\":20.0,\"bodyTempC\":").append(25.0 + (i % 10))
+                    .append(",\"timeSinceFirstReadingHours\":").append(i).append("}\n");
+        }
+
+        MvcResult pending = mockMvc.perform(post("/api/tod/estimate/batch")
+                .contentType("application/x-ndjson")
+                .content(body.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().trim().split("\n");
+
+        assertEquals(200, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(i, objectMapper.readTree(lines[i]).get("index").asInt());
+        }
+    }
+
+    @Test
+    public void testEstimateTimeOfDeath_WithUncertainty() throws Exception {
+        String body = "{\"ambientTempC\":20.0,\"bodyTempC\":32.0,\"timeSinceFirstReadingHours\":0.0,"
+                + "\"k\":0.1947,\"uncertainty\":{\"ambientSdC\":1.0,\"kSd\":0.02,\"seed\":7}}";
+
+        mockMvc.perform(post("/api/tod/estimate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uncertainty.samples").value(1000000))
+                .andExpect(jsonPath("$.uncertainty.seed").value(7))
+                .andExpect(jsonPath("$.uncertainty.hoursPercentiles.p50").exists())
+                .andExpect(jsonPath("$.uncertainty.hoursLower95").exists())
+                .andExpect(jsonPath("$.uncertainty.timeOfDeathEarliest95").exists());
+    }
+
+    @Test
+    public void testEstimateTimeOfDeathAsync() throws Exception {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(32.0);
+        request.setTimeSinceFirstReadingHours(0.0);
+        request.setK(0.1947);
+
+        MvcResult pending = mockMvc.perform(post("/api/tod/async/estimate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.timeSinceDeathHours").exists());
+    }
+
+    @Test
+    public void testEstimateTimeOfDeathAsync_ValidationError() throws Exception {
+        String body = "{\"ambientTempC\":25.0,\"bodyTempC\":20.0,\"timeSinceFirstReadingHours\":0.0}";
+
+        MvcResult pending = mockMvc.perform(post("/api/tod/async/estimate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation Error"))
+                .andExpect(jsonPath("$.code").value("RATIO_OUT_OF_RANGE"));
+    }
+
+    @Test
+    public void testEstimateTimeOfDeath_PhysicallyInvalid() throws Exception {
+        String body = "{\"ambientTempC\":25.0,\"bodyTempC\":20.0,\"timeSinceFirstReadingHours\":0.0}";
+
+        mockMvc.perform(post("/api/tod/estimate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.error").value("Validation Error"))
+                .andExpect(jsonPath("$.code").value("RATIO_OUT_OF_RANGE"))
+                .andExpect(jsonPath("$.message").exists())
+                .andExpect(jsonPath("$.timestamp").exists())
+                .andExpect(jsonPath("$.fieldErrors").doesNotExist());
+    }
+
+    @Test
+    public void testEstimateTimeOfDeath_CompactCbor() throws Exception {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(32.0);
+        request.setTimeSinceFirstReadingHours(0.0);
+        request.setK(0.1947);
+        request.setSceneDateTime("2024-01-15T20:00:00");
+        request.setCompact(true);
+
+        CBORMapper cbor = new CBORMapper();
+        MvcResult result = mockMvc.perform(post("/api/tod/estimate")
+                        .contentType("application/cbor")
+                        .accept("application/cbor")
+                        .content(cbor.writeValueAsBytes(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn();
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        JsonNode response = cbor.readTree(body);
+        assertEquals(1.79, response.get("timeSinceDeathHours").asDouble(), 0.01);
+        assertEquals("2024-01-15T18:13:00", response.get("estimatedTimeOfDeath").asText());
+        assertFalse(response.has("steps"));
+        assertFalse(response.has("warnings"));
+        assertFalse(response.has("trace"));
+        assertFalse(response.has("warningCodes"));
+
+        request.setCompact(false);
+        String json = mockMvc.perform(post("/api/tod/estimate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.steps").isArray())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(body.length * 5 < json.length(), "compact CBOR should be far smaller than verbose JSON");
+    }
 }
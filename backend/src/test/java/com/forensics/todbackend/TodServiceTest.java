@@ -1,13 +1,23 @@
 package com.forensics.todbackend;
 
+import com.forensics.todbackend.service.Result;
 import com.forensics.todbackend.service.TodService;
+import com.forensics.todbackend.dto.ExplainLevel;
+import com.forensics.todbackend.dto.StepCode;
 import com.forensics.todbackend.dto.TodEstimateRequest;
 import com.forensics.todbackend.dto.TodEstimateResponse;
 import com.forensics.todbackend.dto.SecondReading;
+import com.forensics.todbackend.dto.TimedReading;
+import com.forensics.todbackend.dto.UncertaintySpec;
+import com.forensics.todbackend.dto.WarningCode;
+import com.forensics.todbackend.exception.ErrorCode;
 import com.forensics.todbackend.exception.ValidationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -18,30 +28,32 @@ public class TodServiceTest {
     @Test
     public void testEstimateK_ValidInputs() {
         // Test k estimation with valid inputs
-        double k = todService.estimateK(37.0, 20.0, 34.0, 32.0, 1.0);
+        double k = todService.estimateK(37.0, 20.0, 34.0, 32.0, 1.0).orThrow();
         assertTrue(k > 0 && k < 5.0, "K should be positive and reasonable");
     }
 
     @Test
     public void testEstimateK_InvalidInputs() {
         // Test with temperatures too close
-        assertThrows(ValidationException.class, () ->
-            todService.estimateK(20.0, 20.0, 20.0, 19.0, 1.0)
-        );
+        Result<Double> result = todService.estimateK(20.0, 20.0, 20.0, 19.0, 1.0);
+        assertFalse(result.isOk());
+        assertEquals(ErrorCode.TEMPS_TOO_CLOSE, result.error());
+        assertThrows(ValidationException.class, result::orThrow);
     }
 
     @Test
     public void testEstimateTimeSinceDeath_ValidInputs() {
-        double timeSinceDeath = todService.estimateTimeSinceDeath(37.0, 20.0, 32.0, 0.1947);
+        double timeSinceDeath = todService.estimateTimeSinceDeath(37.0, 20.0, 32.0, 0.1947).orThrow();
         assertTrue(timeSinceDeath > 0, "Time since death should be positive");
     }
 
     @Test
     public void testEstimateTimeSinceDeath_InvalidRatio() {
         // Test with body temp lower than ambient
-        assertThrows(ValidationException.class, () ->
-            todService.estimateTimeSinceDeath(37.0, 25.0, 20.0, 0.1947)
-        );
+        Result<Double> result = todService.estimateTimeSinceDeath(37.0, 25.0, 20.0, 0.1947);
+        assertFalse(result.isOk());
+        assertEquals(ErrorCode.RATIO_OUT_OF_RANGE, result.error());
+        assertTrue(result.message().startsWith("Invalid temperature ratio"));
     }
 
     @Test
@@ -83,6 +95,48 @@ public class TodServiceTest {
         assertNotNull(response.getEstimatedTimeOfDeath());
     }
 
+    @Test
+    public void testProcessTodEstimate_ExplainLevels() {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(34.0);
+        request.setTimeSinceFirstReadingHours(0.0);
+        SecondReading secondReading = new SecondReading();
+        secondReading.setBodyTempC(32.0);
+        secondReading.setDeltaHoursFromFirst(1.0);
+        request.setSecondReading(secondReading);
+
+        TodEstimateResponse full = todService.processTodEstimate(request);
+        assertEquals(full.getTrace().size(), full.getSteps().size());
+        assertEquals(StepCode.TWO_READINGS_VALUES, full.getTrace().get(3).getCode());
+        assertArrayEquals(new double[]{34.0, 32.0, 1.0}, full.getTrace().get(3).getOperands());
+        assertEquals("T1 = 34.0°C at t1, T2 = 32.0°C at t2 (Δt = 1.0 hours)", full.getSteps().get(3));
+        assertEquals(String.format("k = -(1/Δt) * ln(R2/R1) = %.4f h⁻¹", full.getK()), full.getSteps().get(6));
+        assertEquals(WarningCode.K_TWO_READINGS_CONSTANT_AMBIENT, full.getWarningCodes().get(0));
+        assertEquals(WarningCode.K_TWO_READINGS_CONSTANT_AMBIENT.text(), full.getWarnings().get(0));
+
+        request.setExplain(ExplainLevel.CODES);
+        TodEstimateResponse codes = todService.processTodEstimate(request);
+        assertEquals(full.getTrace(), codes.getTrace());
+        assertEquals(full.getWarningCodes(), codes.getWarningCodes());
+        assertNull(codes.getSteps());
+        assertNull(codes.getWarnings());
+
+        request.setExplain(ExplainLevel.NONE);
+        TodEstimateResponse none = todService.processTodEstimate(request);
+        assertNull(none.getTrace());
+        assertNull(none.getWarningCodes());
+        assertNull(none.getSteps());
+        assertEquals(full.getTimeSinceDeathHours(), none.getTimeSinceDeathHours());
+
+        // An explicit level wins over the older compact flag
+        request.setCompact(true);
+        request.setExplain(null);
+        assertNull(todService.processTodEstimate(request).getTrace());
+        request.setExplain(ExplainLevel.FULL);
+        assertNotNull(todService.processTodEstimate(request).getSteps());
+    }
+
     @Test
     public void testProcessTodEstimate_EdgeCases() {
         // Test with body temp very close to ambient
@@ -97,4 +151,92 @@ public class TodServiceTest {
         assertTrue(response.getWarnings().stream()
             .anyMatch(w -> w.contains("close to ambient")));
     }
+
+    @Test
+    public void testProcessTodEstimate_UncertaintyIsReproducible() {
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(20.0);
+        request.setBodyTempC(32.0);
+        request.setTimeSinceFirstReadingHours(0.0);
+        request.setNormalBodyTempC(37.0);
+        request.setK(0.1947);
+        request.setSceneDateTime("2024-01-15T20:00:00");
+
+        UncertaintySpec spec = new UncertaintySpec();
+        spec.setAmbientSdC(1.0);
+        spec.setBodySdC(0.2);
+        spec.setKSd(0.02);
+        spec.setSamples(200000);
+        spec.setSeed(42L);
+        request.setUncertainty(spec);
+
+        TodEstimateResponse first = todService.processTodEstimate(request);
+        TodEstimateResponse second = todService.processTodEstimate(request);
+
+        assertEquals(first.getUncertainty(), second.getUncertainty());
+        assertEquals(42L, first.getUncertainty().getSeed());
+        assertTrue(first.getUncertainty().getHoursLower95() < first.getTimeSinceDeathHours());
+        assertTrue(first.getUncertainty().getHoursUpper95() > first.getTimeSinceDeathHours());
+        assertTrue(first.getUncertainty().getTimeOfDeathEarliest95()
+                .compareTo(first.getUncertainty().getTimeOfDeathLatest95()) < 0);
+    }
+
+    @Test
+    public void testProcessTodEstimate_ReadingsFitMatchesTwoReadingPath() {
+        TodEstimateRequest twoReadings = new TodEstimateRequest();
+        twoReadings.setAmbientTempC(20.0);
+        twoReadings.setBodyTempC(34.0);
+        twoReadings.setTimeSinceFirstReadingHours(0.5);
+        SecondReading secondReading = new SecondReading();
+        secondReading.setBodyTempC(32.0);
+        secondReading.setDeltaHoursFromFirst(1.0);
+        twoReadings.setSecondReading(secondReading);
+
+        TodEstimateRequest fitted = new TodEstimateRequest();
+        fitted.setAmbientTempC(20.0);
+        fitted.setBodyTempC(34.0);
+        fitted.setTimeSinceFirstReadingHours(0.5);
+        TimedReading reading = new TimedReading();
+        reading.setHoursFromFirst(1.0);
+        reading.setBodyTempC(32.0);
+        fitted.setReadings(List.of(reading));
+
+        TodEstimateResponse expected = todService.processTodEstimate(twoReadings);
+        TodEstimateResponse actual = todService.processTodEstimate(fitted);
+
+        assertEquals(expected.getK(), actual.getK(), 1e-12);
+        assertEquals(expected.getTimeSinceDeathHours(), actual.getTimeSinceDeathHours(), 1e-9);
+        assertEquals(2, actual.getFit().getReadingsUsed());
+        assertNull(actual.getFit().getKStandardError());
+    }
+
+    @Test
+    public void testProcessTodEstimate_ReadingsFitRecoversK() {
+        double k = 0.15;
+        double hoursAtFirstReading = 4.0;
+
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(18.0);
+        request.setBodyTempC(18.0 + 19.0 * Math.exp(-k * hoursAtFirstReading));
+        request.setTimeSinceFirstReadingHours(0.0);
+
+        List<TimedReading> readings = new ArrayList<>();
+        for (int i = 1; i <= 24; i++) {
+            TimedReading reading = new TimedReading();
+            reading.setHoursFromFirst(i * 0.25);
+            // Alternating +/-0.05°C probe noise
+            reading.setBodyTempC(18.0 + 19.0 * Math.exp(-k * (hoursAtFirstReading + i * 0.25)) + (i % 2 == 0 ? 0.05 : -0.05));
+            readings.add(reading);
+        }
+        request.setReadings(readings);
+
+        TodEstimateResponse response = todService.processTodEstimate(request);
+
+        assertEquals(k, response.getK(), 0.01);
+        assertEquals(hoursAtFirstReading, response.getTimeSinceDeathHours(), 0.2);
+        assertEquals(25, response.getFit().getReadingsUsed());
+        assertEquals(25, response.getFit().getResidualsC().size());
+        assertTrue(response.getFit().getKStandardError() > 0);
+        assertTrue(response.getFit().getRmsResidualC() < 0.1);
+    }
 }
@@ -0,0 +1,95 @@
+package com.forensics.todbackend;
+
+import com.forensics.todbackend.dto.AmbientReading;
+import com.forensics.todbackend.dto.SecondReading;
+import com.forensics.todbackend.dto.TodEstimateRequest;
+import com.forensics.todbackend.dto.TodEstimateResponse;
+import com.forensics.todbackend.service.AmbientProfile;
+import com.forensics.todbackend.service.CoolingKernel;
+import com.forensics.todbackend.service.TodService;
+import com.forensics.todbackend.service.VaryingAmbientCooling;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VaryingAmbientCoolingTest {
+
+    private final TodService todService = new TodService();
+
+    @Test
+    public void testConstantAmbientMatchesClosedForm() {
+        AmbientProfile ambient = AmbientProfile.constant(20.0);
+        for (double k : new double[]{0.05, 0.1947, 0.6, 2.0}) {
+            for (double T1 = 21.0; T1 < 37.0; T1 += 1.5) {
+                assertEquals(CoolingKernel.timeSinceDeath(37.0, 20.0, T1, k),
+                        VaryingAmbientCooling.timeSinceDeath(37.0, T1, k, ambient), 1e-5, "k=" + k + " T1=" + T1);
+            }
+        }
+    }
+
+    @Test
+    public void testLinearRampMatchesAnalyticSolution() {
+        // Te(t) = a + b*t gives T(t) = a + b*t - b/k + C*e^(-k*t)
+        double a = 15.0;
+        double b = -0.3;
+        double k = 0.2;
+        double T1 = 28.0;
+        double C = T1 - a + b / k;
+
+        AmbientProfile ambient = AmbientProfile.of(new double[]{-100.0, 0.0, 50.0},
+                new double[]{a - 100.0 * b, a, a + 50.0 * b}).orThrow();
+
+        for (double t : new double[]{-8.0, -2.5, 1.0, 6.0}) {
+            double expected = a + b * t - b / k + C * Math.exp(-k * t);
+            assertEquals(expected, VaryingAmbientCooling.temperatureAt(T1, k, ambient, t), 1e-6, "t=" + t);
+        }
+
+        double hours = VaryingAmbientCooling.timeSinceDeath(37.0, T1, k, ambient);
+        double atDeath = a - b * hours - b / k + C * Math.exp(k * hours);
+        assertEquals(37.0, atDeath, 1e-6);
+    }
+
+    @Test
+    public void testDiurnalSeriesRoundTrip() {
+        // Ten days of samples every minute, with a 10°C day/night swing
+        int samples = 14400;
+        double[] hours = new double[samples];
+        double[] temps = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            hours[i] = -200.0 + i / 60.0;
+            temps[i] = 15.0 + 5.0 * Math.sin(2 * Math.PI * (hours[i] + 6.0) / 24.0);
+        }
+        AmbientProfile ambient = AmbientProfile.of(hours, temps).orThrow();
+
+        double k = VaryingAmbientCooling.k(30.0, VaryingAmbientCooling.temperatureAt(30.0, 0.17, ambient, 2.5), 2.5, ambient);
+        assertEquals(0.17, k, 1e-6);
+
+        double timeSinceDeath = VaryingAmbientCooling.timeSinceDeath(37.0, 30.0, k, ambient);
+        assertTrue(timeSinceDeath > 0);
+        assertEquals(37.0, VaryingAmbientCooling.temperatureAt(30.0, k, ambient, -timeSinceDeath), 1e-5);
+
+        TodEstimateRequest request = new TodEstimateRequest();
+        request.setAmbientTempC(15.0);
+        request.setBodyTempC(30.0);
+        request.setTimeSinceFirstReadingHours(1.0);
+        SecondReading second = new SecondReading();
+        second.setBodyTempC(VaryingAmbientCooling.temperatureAt(30.0, 0.17, ambient, 2.5));
+        second.setDeltaHoursFromFirst(2.5);
+        request.setSecondReading(second);
+        List<AmbientReading> series = new ArrayList<>();
+        for (int i = samples - 1; i >= 0; i--) {
+            AmbientReading reading = new AmbientReading();
+            reading.setHoursFromFirst(hours[i]);
+            reading.setTempC(temps[i]);
+            series.add(reading);
+        }
+        request.setAmbientSeries(series);
+
+        TodEstimateResponse response = todService.processTodEstimate(request);
+        assertEquals(0.17, response.getK(), 1e-6);
+        assertEquals(Math.round((timeSinceDeath + 1.0) * 100.0) / 100.0, response.getTimeSinceDeathHours(), 0.0);
+    }
+}
@@ -1,6 +1,7 @@
 import React, { useState, useEffect } from 'react';
 import TodForm from './components/TodForm';
 import ResultCard from './components/ResultCard';
+import SensitivityMap from './components/SensitivityMap';
 import ApiService from './api';
 
 function App() {
@@ -8,12 +9,35 @@ function App() {
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState(null);
   const [apiHealthy, setApiHealthy] = useState(false);
+  const [sessionId, setSessionId] = useState('');
+  const [liveSession, setLiveSession] = useState(null);
+  const [lastRequest, setLastRequest] = useState(null);
 
   useEffect(() => {
     // Check API health on component mount
     ApiService.checkHealth().then(setApiHealthy);
   }, []);
 
+  useEffect(() => {
+    if (!liveSession) {
+      return undefined;
+    }
+    // Each revision pushed by the server replaces the displayed result
+    return ApiService.subscribeProbeSession(
+      liveSession,
+      (revision) => {
+        setError(revision.code ? revision.message : null);
+        if (!revision.code) {
+          setResult(revision);
+        }
+      },
+      (err) => {
+        setError(err.message);
+        setLiveSession(null);
+      }
+    );
+  }, [liveSession]);
+
   const handleCalculate = async (formData) => {
     setLoading(true);
     setError(null);
@@ -22,6 +46,7 @@ function App() {
     try {
       const response = await ApiService.estimateTimeOfDeath(formData);
       setResult(response);
+      setLastRequest(formData);
     } catch (err) {
       setError(err.message || 'An error occurred while calculating time of death');
     } finally {
@@ -32,6 +57,16 @@ function App() {
   const handleReset = () => {
     setResult(null);
     setError(null);
+    setLastRequest(null);
+    setLiveSession(null);
+  };
+
+  const handleFollowSession = (event) => {
+    event.preventDefault();
+    setResult(null);
+    setError(null);
+    setLastRequest(null);
+    setLiveSession(sessionId.trim() || null);
   };
 
   return (
@@ -59,6 +94,33 @@ function App() {
       <div style={{ display: 'grid', gridTemplateColumns: result ? '1fr 1fr' : '1fr', gap: '30px' }}>
         <div>
           <TodForm onCalculate={handleCalculate} loading={loading} onReset={handleReset} />
+          <form onSubmit={handleFollowSession} style={{
+            backgroundColor: 'white',
+            padding: '20px',
+            borderRadius: '10px',
+            boxShadow: '0 4px 6px rgba(0,0,0,0.1)',
+            marginTop: '20px',
+            display: 'flex',
+            gap: '10px'
+          }}>
+            <input
+              type="text"
+              value={sessionId}
+              onChange={(e) => setSessionId(e.target.value)}
+              placeholder="Live probe session ID"
+              style={{ flex: 1, padding: '10px', border: '1px solid #ddd', borderRadius: '4px' }}
+            />
+            <button type="submit" style={{
+              backgroundColor: liveSession ? '#28a745' : '#17a2b8',
+              color: 'white',
+              border: 'none',
+              padding: '10px 20px',
+              borderRadius: '4px',
+              cursor: 'pointer'
+            }}>
+              {liveSession ? 'Following' : 'Follow'}
+            </button>
+          </form>
           {error && (
             <div style={{
               backgroundColor: '#f8d7da',
@@ -76,6 +138,7 @@ function App() {
         {result && (
           <div>
             <ResultCard result={result} />
+            <SensitivityMap request={lastRequest} />
           </div>
         )}
       </div>
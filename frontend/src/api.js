@@ -2,13 +2,43 @@ const API_BASE_URL = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080
 
 class ApiService {
   async estimateTimeOfDeath(requestData) {
+    return this.postJson('/api/tod/estimate', requestData);
+  }
+
+  async sweep(sweepData) {
+    return this.postJson('/api/tod/sweep', sweepData);
+  }
+
+  async openProbeSession(sessionData) {
+    return this.postJson('/api/tod/sessions', sessionData);
+  }
+
+  async pushProbeReading(sessionId, reading) {
+    return this.postJson(`/api/tod/sessions/${encodeURIComponent(sessionId)}/readings`, reading);
+  }
+
+  // Follows a live probe session. onRevision is called with every revised estimate,
+  // starting with the current one. Returns a function that stops following.
+  subscribeProbeSession(sessionId, onRevision, onError) {
+    const source = new EventSource(`${API_BASE_URL}/api/tod/sessions/${encodeURIComponent(sessionId)}/events`);
+    source.addEventListener('revision', (event) => onRevision(JSON.parse(event.data)));
+    source.onerror = () => {
+      // The browser reconnects on its own while the session exists; give up once it is closed
+      if (source.readyState === EventSource.CLOSED && onError) {
+        onError(new Error('Probe session stream closed'));
+      }
+    };
+    return () => source.close();
+  }
+
+  async postJson(path, body) {
     try {
-      const response = await fetch(`${API_BASE_URL}/api/tod/estimate`, {
+      const response = await fetch(`${API_BASE_URL}${path}`, {
         method: 'POST',
         headers: {
           'Content-Type': 'application/json',
         },
-        body: JSON.stringify(requestData),
+        body: JSON.stringify(body),
       });
 
       if (!response.ok) {
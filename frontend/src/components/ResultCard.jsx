@@ -25,7 +25,23 @@ const ResultCard = ({ result }) => {
       borderRadius: '10px', 
       boxShadow: '0 4px 6px rgba(0,0,0,0.1)' 
     }}>
-      <h2 style={{ marginBottom: '25px', color: '#2c3e50' }}>Results</h2>
+      <h2 style={{ marginBottom: '25px', color: '#2c3e50' }}>
+        Results
+        {result.revision != null && (
+          <span style={{
+            marginLeft: '12px',
+            fontSize: '14px',
+            fontWeight: 'normal',
+            color: '#155724',
+            backgroundColor: '#d4edda',
+            border: '1px solid #c3e6cb',
+            borderRadius: '4px',
+            padding: '4px 8px'
+          }}>
+            ● Live – revision {result.revision}, {result.bodyReadings} readings
+          </span>
+        )}
+      </h2>
 
       {/* Main Results */}
       <div style={{ marginBottom: '30px' }}>
@@ -45,6 +61,7 @@ const ResultCard = ({ result }) => {
               </label>
               <div style={{ fontSize: '18px', color: '#155724' }}>
                 {result.k?.toFixed(4)} h⁻¹
+                {result.kStandardError != null && ` ± ${result.kStandardError.toFixed(4)}`}
               </div>
             </div>
 
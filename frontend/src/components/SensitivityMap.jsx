@@ -0,0 +1,83 @@
+import React, { useEffect, useState } from 'react';
+import ApiService from '../api';
+
+const STEPS = 21;
+
+// Heatmap of time since death over ambient temperature (rows) and k (columns)
+// around the submitted inputs, so uncertain values need not be re-entered by hand.
+const SensitivityMap = ({ request }) => {
+  const [sweep, setSweep] = useState(null);
+  const [error, setError] = useState(null);
+
+  useEffect(() => {
+    if (!request) {
+      return;
+    }
+    setSweep(null);
+    setError(null);
+    const ambient = Number(request.ambientTempC);
+    ApiService.sweep({
+      ambientTempC: { from: ambient - 5, to: ambient + 5, steps: STEPS },
+      k: { from: 0.1, to: 0.3, steps: STEPS },
+      bodyTempC: { from: Number(request.bodyTempC), to: Number(request.bodyTempC), steps: 1 },
+      normalBodyTempC: request.normalBodyTempC,
+    })
+      .then(setSweep)
+      .catch((err) => setError(err.message));
+  }, [request]);
+
+  if (!request) {
+    return null;
+  }
+
+  const valid = sweep ? Array.from(sweep.hours).filter((h) => h >= 0) : [];
+  const max = valid.length ? Math.max(...valid) : 1;
+  const min = valid.length ? Math.min(...valid) : 0;
+  const color = (hours) => {
+    if (hours < 0) {
+      return '#e0e0e0';
+    }
+    const shade = max > min ? (hours - min) / (max - min) : 0;
+    return `hsl(${210 - shade * 210}, 70%, 55%)`;
+  };
+
+  return (
+    <div style={{
+      backgroundColor: 'white',
+      padding: '20px',
+      borderRadius: '10px',
+      boxShadow: '0 4px 6px rgba(0,0,0,0.1)',
+      marginTop: '20px'
+    }}>
+      <h3 style={{ color: '#2c3e50', marginBottom: '10px' }}>Sensitivity</h3>
+      <p style={{ color: '#7f8c8d', fontSize: '14px', marginBottom: '10px' }}>
+        Time since death for ambient temperature ±5°C (rows) and k from 0.1 to 0.3 (columns).
+        Grey cells cannot be estimated.
+      </p>
+      {error && <div style={{ color: '#721c24' }}>{error}</div>}
+      {sweep && (
+        <>
+          <div style={{ display: 'grid', gridTemplateColumns: `repeat(${sweep.k.length}, 1fr)`, gap: '1px' }}>
+            {Array.from(sweep.hours).map((hours, i) => {
+              const ambient = sweep.ambientTempC[Math.floor(i / sweep.k.length)];
+              const k = sweep.k[i % sweep.k.length];
+              return (
+                <div
+                  key={i}
+                  title={`${ambient.toFixed(1)}°C, k=${k.toFixed(3)}: ${hours < 0 ? 'invalid' : `${hours.toFixed(2)} h`}`}
+                  style={{ backgroundColor: color(hours), height: '14px' }}
+                />
+              );
+            })}
+          </div>
+          <div style={{ display: 'flex', justifyContent: 'space-between', fontSize: '12px', color: '#7f8c8d', marginTop: '6px' }}>
+            <span>{min.toFixed(1)} h</span>
+            <span>{max.toFixed(1)} h</span>
+          </div>
+        </>
+      )}
+    </div>
+  );
+};
+
+export default SensitivityMap;